@@ -0,0 +1,57 @@
+package eventreg2;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Cost of AuditLog.record on the calling thread, with one and with four threads
+ * recording at once. Prints how many records were dropped because the writer fell behind.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuditLogBenchmark {
+
+    private Path directory;
+    private AuditLog log;
+    private long recorded;
+    private long dropped;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("audit-bench");
+        log = AuditLog.open(directory, 65_536, 64 << 20, 2, AuditLog.FsyncPolicy.INTERVAL, 1000);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        log.close();
+        System.out.println("\nrecorded " + recorded + ", dropped " + dropped);
+        for (Path segment : AuditLog.segments(directory)) Files.delete(segment);
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean recordOneThread() {
+        return count(log.record(AuditLog.Type.REGISTERED, 42, 7, null));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean recordFourThreads() {
+        return count(log.record(AuditLog.Type.REGISTERED, 42, 7, null));
+    }
+
+    // Racy across threads, good enough for an order of magnitude
+    private boolean count(boolean ok) {
+        if (ok) recorded++; else dropped++;
+        return ok;
+    }
+}
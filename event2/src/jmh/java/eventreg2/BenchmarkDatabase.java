@@ -0,0 +1,112 @@
+package eventreg2;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Points DatabaseConnection at an in-memory H2 database and recreates the schema,
+ * so DAO and API benchmarks run without a MySQL server.
+ * Must be touched before anything borrows a connection.
+ */
+final class BenchmarkDatabase {
+
+    static {
+        System.setProperty("eventreg.db.url", "jdbc:h2:mem:eventreg-bench;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        System.setProperty("eventreg.db.user", "sa");
+        System.setProperty("eventreg.db.password", "");
+    }
+
+    private static final String[] DROP = {
+        "DROP TABLE IF EXISTS waitlist",
+        "DROP TABLE IF EXISTS registrations",
+        "DROP TABLE IF EXISTS events",
+        "DROP TABLE IF EXISTS users"
+    };
+
+    private BenchmarkDatabase() {
+    }
+
+    /** Recreates all tables, empty. */
+    static void reset() throws SQLException {
+        try (Connection connection = DatabaseConnection.getConnection();
+             Statement statement = connection.createStatement()) {
+            for (String sql : DROP) {
+                statement.execute(sql);
+            }
+            DatabaseConnection.createSchema(connection);
+        }
+    }
+
+    /**
+     * Makes every statement of one kind on a table take at least the given time, to stand
+     * in for the network and disk latency of a real database server.
+     * @param operation "SELECT", "INSERT", "UPDATE" or "DELETE".
+     */
+    static void addLatency(String table, String operation, int millis) throws SQLException {
+        String trigger = table + "_" + operation.toLowerCase() + "_latency";
+        System.setProperty("eventreg.bench.latencyMs." + trigger.toUpperCase(), String.valueOf(millis));
+        try (Connection connection = DatabaseConnection.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TRIGGER " + trigger + " BEFORE " + operation + " ON " + table
+                + " CALL \"" + Latency.class.getName() + "\"");
+        }
+    }
+
+    /** H2 statement-level trigger that sleeps for the time configured under its name. */
+    public static final class Latency implements org.h2.api.Trigger {
+        private long millis;
+
+        @Override
+        public void init(Connection connection, String schemaName, String triggerName, String tableName,
+                         boolean before, int type) {
+            millis = Long.getLong("eventreg.bench.latencyMs." + triggerName, 0);
+        }
+
+        @Override
+        public void fire(Connection connection, Object[] oldRow, Object[] newRow) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** Inserts users 1..n. */
+    static void seedUsers(int n) throws SQLException {
+        try (Connection connection = DatabaseConnection.getConnection();
+             java.sql.PreparedStatement insert = connection.prepareStatement(
+                 "INSERT INTO users (username, password, name, email) VALUES (?, ?, ?, ?)")) {
+            for (int i = 1; i <= n; i++) {
+                insert.setString(1, "user" + i);
+                insert.setString(2, "password" + i);
+                insert.setString(3, "User " + i);
+                insert.setString(4, "user" + i + "@example.com");
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    /** Inserts events 1..n, each with the given capacity. */
+    static void seedEvents(int n, int capacity) throws SQLException {
+        List<Event> events = events(n);
+        events.forEach(event -> event.setCapacity(capacity));
+        new EventDAO().createAll(events);
+    }
+
+    /** Builds n distinct, unsaved events. */
+    static List<Event> events(int n) {
+        List<Event> events = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            events.add(new Event("Benchmark event " + i, LocalDate.of(2026, 1, 1).plusDays(i % 365),
+                "Room " + (i % 50), 100 + i % 400, new BigDecimal(i % 100 + ".50")));
+        }
+        return events;
+    }
+}
@@ -0,0 +1,76 @@
+package eventreg2;
+
+import static spark.Spark.awaitInitialization;
+import static spark.Spark.stop;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** End-to-end EventAPI routes over loopback HTTP, backed by the embedded database. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventApiBenchmark {
+
+    private static final int PORT = 5055;
+    private static final String BASE = "http://localhost:" + PORT;
+
+    private HttpClient client;
+    private String etag;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkDatabase.reset();
+        new EventDAO().createAll(BenchmarkDatabase.events(1000));
+
+        System.setProperty("eventreg.port", String.valueOf(PORT));
+        System.setProperty("eventreg.openBrowser", "false");
+        // Measure the server itself, not the per-client limits or load shedding
+        System.setProperty("eventreg.ratelimit.enabled", "false");
+        System.setProperty("eventreg.shed.maxDbWaiting", "0");
+        System.setProperty("eventreg.shed.maxP99Ms", "0");
+        EventAPI.main(new String[0]);
+        awaitInitialization();
+
+        client = HttpClient.newHttpClient();
+        etag = get("/api/events", null).headers().firstValue("ETag").orElseThrow();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        stop();
+        DatabaseConnection.getPool().shutdown();
+    }
+
+    @Benchmark
+    public int getAllEvents() throws Exception {
+        return get("/api/events", null).statusCode();
+    }
+
+    @Benchmark
+    public int getAllEventsNotModified() throws Exception {
+        return get("/api/events", etag).statusCode();
+    }
+
+    @Benchmark
+    public int getPage() throws Exception {
+        return get("/api/events?limit=50&from=2026-03-01", null).statusCode();
+    }
+
+    private HttpResponse<byte[]> get(String path, String ifNoneMatch) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(BASE + path)).GET();
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+}
@@ -0,0 +1,45 @@
+package eventreg2;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Encoding the event list in the binary EventCodec format, for comparison with
+ * {@link EventJsonBenchmark} at the same sizes. Prints both payload sizes at setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventCodecBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int size;
+
+    private List<Event> events;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        events = BenchmarkDatabase.events(size);
+        for (int i = 0; i < events.size(); i++) {
+            events.get(i).setEventId(i + 1);
+        }
+        bytes = EventCodec.encode(events);
+        System.out.println("\n" + size + " events: binary " + bytes.length + " bytes, JSON "
+            + EventAPI.GSON.toJson(events).length() + " bytes");
+    }
+
+    @Benchmark
+    public byte[] encodeList() {
+        return EventCodec.encode(events);
+    }
+
+    @Benchmark
+    public List<Event> decodeList() {
+        return EventCodec.decode(bytes);
+    }
+}
@@ -0,0 +1,83 @@
+package eventreg2;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** EventDAO CRUD against an embedded in-memory database. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventDAOBenchmark {
+
+    private static final int SEEDED = 10_000;
+    private static final int BATCH = 100;
+
+    private EventDAO dao;
+    private int readId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        BenchmarkDatabase.reset();
+        dao = new EventDAO();
+        dao.createAll(BenchmarkDatabase.events(SEEDED));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        DatabaseConnection.getPool().shutdown();
+    }
+
+    @Benchmark
+    public Event readOne() throws SQLException {
+        readId = readId % SEEDED + 1;
+        return dao.read(readId);
+    }
+
+    @Benchmark
+    public Page<Event> readFirstPage() throws SQLException {
+        return dao.readPage(null, EventQuery.DEFAULT_LIMIT);
+    }
+
+    @Benchmark
+    public boolean createAndDelete() throws SQLException {
+        Event event = BenchmarkDatabase.events(1).get(0);
+        dao.create(event);
+        return dao.delete(event.getEventId());
+    }
+
+    @Benchmark
+    public boolean update() throws SQLException {
+        Event event = dao.read(1);
+        event.setCapacity(event.getCapacity() + 1);
+        return dao.update(event);
+    }
+
+    /** 100 inserts as 100 auto-commit statements; compare with {@link #createBatchOf100()}. */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int createOneByOne100() throws SQLException {
+        List<Event> events = BenchmarkDatabase.events(BATCH);
+        for (Event event : events) {
+            dao.create(event);
+        }
+        return cleanUp(events);
+    }
+
+    /** 100 inserts as one JDBC batch in one transaction. */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int createBatchOf100() throws SQLException {
+        List<Event> events = BenchmarkDatabase.events(BATCH);
+        dao.createAll(events);
+        return cleanUp(events);
+    }
+
+    private int cleanUp(List<Event> events) throws SQLException {
+        return dao.deleteAll(events.stream().map(Event::getEventId).toList()).getSucceeded();
+    }
+}
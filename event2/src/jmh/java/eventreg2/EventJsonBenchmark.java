@@ -0,0 +1,54 @@
+package eventreg2;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Encoding the event list the way GET /api/events does, at several list sizes, with
+ * the streaming Event adapter ("streaming", what EventAPI uses) and with Gson's
+ * reflective mapping ("reflective", what it used before).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventJsonBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int size;
+
+    @Param({"streaming", "reflective"})
+    public String mapping;
+
+    private Gson gson;
+    private List<Event> events;
+    private String json;
+
+    @Setup
+    public void setUp() {
+        gson = mapping.equals("streaming") ? EventAPI.GSON
+            : new GsonBuilder().registerTypeAdapter(LocalDate.class, new LocalDateAdapter()).create();
+        events = BenchmarkDatabase.events(size);
+        for (int i = 0; i < events.size(); i++) {
+            events.get(i).setEventId(i + 1);
+        }
+        json = gson.toJson(events);
+    }
+
+    @Benchmark
+    public byte[] encodeList() {
+        return gson.toJson(events).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Event[] decodeList() {
+        return gson.fromJson(json, Event[].class);
+    }
+}
@@ -0,0 +1,86 @@
+package eventreg2;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Searching 100k events in {@link EventSearchIndex}. Titles are three words drawn from
+ * a 200-word vocabulary and locations one of 50 venues, so a single word matches about
+ * 1.5% of the events and a one-letter prefix a few tenths of them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventSearchBenchmark {
+
+    private static final String[] ROOTS = {"java", "cloud", "data", "design", "music", "yoga", "chess",
+        "startup", "security", "garden", "python", "rust", "film", "poetry", "robot", "marathon",
+        "cooking", "career", "finance", "language"};
+    private static final String[] KINDS = {"meetup", "workshop", "talk", "summit", "night",
+        "bootcamp", "clinic", "jam", "forum", "club"};
+
+    @Param({"100000"})
+    public int size;
+
+    private EventSearchIndex index;
+    private EventQuery filter;
+    private EventQuery dateFilter;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<Event> events = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String title = word(random) + " " + word(random) + " " + KINDS[random.nextInt(KINDS.length)];
+            Event event = new Event(i + 1, title, LocalDate.of(2026, 1, 1).plusDays(i % 365),
+                "Hall " + (i % 50) + " " + ROOTS[i % ROOTS.length] + " centre", 100, new BigDecimal(i % 100));
+            events.add(event);
+        }
+        index = new EventSearchIndex();
+        index.load(events);
+        filter = new EventQuery();
+        filter.setLimit(EventSearchIndex.DEFAULT_LIMIT);
+        dateFilter = new EventQuery();
+        dateFilter.setLimit(EventSearchIndex.DEFAULT_LIMIT);
+        dateFilter.setFromDate(LocalDate.of(2026, 6, 1));
+        dateFilter.setToDate(LocalDate.of(2026, 6, 30));
+    }
+
+    /** 200 words: each root with ten suffixes. */
+    private static String word(Random random) {
+        return ROOTS[random.nextInt(ROOTS.length)] + random.nextInt(10);
+    }
+
+    @Benchmark
+    public List<Event> oneWord() {
+        return index.search("java3 ", filter);
+    }
+
+    @Benchmark
+    public List<Event> twoWords() {
+        return index.search("java3 workshop ", filter);
+    }
+
+    @Benchmark
+    public List<Event> typeAhead() {
+        return index.search("java3 wor", filter);
+    }
+
+    @Benchmark
+    public List<Event> shortPrefix() {
+        return index.search("ja", filter);
+    }
+
+    @Benchmark
+    public List<Event> prefixWithDates() {
+        return index.search("ja", dateFilter);
+    }
+}
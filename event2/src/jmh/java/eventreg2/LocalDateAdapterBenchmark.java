@@ -0,0 +1,36 @@
+package eventreg2;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LocalDateAdapterBenchmark {
+
+    private final LocalDateAdapter adapter = new LocalDateAdapter();
+    private final LocalDate date = LocalDate.of(2026, 2, 15);
+
+    @Benchmark
+    public String write() throws IOException {
+        StringWriter out = new StringWriter(16);
+        adapter.write(new JsonWriter(out), date);
+        return out.toString();
+    }
+
+    @Benchmark
+    public LocalDate read() throws IOException {
+        JsonReader in = new JsonReader(new StringReader("\"2026-02-15\""));
+        in.setLenient(true);
+        return adapter.read(in);
+    }
+}
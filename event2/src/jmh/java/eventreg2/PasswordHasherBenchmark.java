@@ -0,0 +1,41 @@
+package eventreg2;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Logins per second per core: single-threaded PBKDF2 verification at a few costs,
+ * and a repeat login answered from the verification cache.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Benchmark)
+public class PasswordHasherBenchmark {
+
+    @Param({"100000", "310000", "600000"})
+    public int iterations;
+
+    private PasswordHasher hasher;
+    private String stored;
+
+    @Setup
+    public void setUp() throws Exception {
+        hasher = new PasswordHasher(iterations, 1, 16, 60_000, 100);
+        stored = hasher.encode("correct horse battery staple");
+        hasher.verify("ann", "correct horse battery staple", stored).get();
+    }
+
+    @Benchmark
+    public boolean login() {
+        return hasher.check("correct horse battery staple", stored).matches();
+    }
+
+    @Benchmark
+    public boolean repeatLoginCached() throws Exception {
+        return hasher.verify("ann", "correct horse battery staple", stored).get().matches();
+    }
+}
@@ -0,0 +1,59 @@
+package eventreg2;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Registration throughput with one transaction per row versus the group-commit
+ * {@link RegistrationWriter}, with 64 concurrent registering clients.
+ * The embedded database does not flush a log on commit, so each INSERT statement on
+ * registrations is made to take 2 ms, standing in for the durable commit a real
+ * server pays per transaction.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@Threads(64)
+@State(Scope.Benchmark)
+public class RegistrationWriterBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final int EVENTS = 500;
+
+    private final AtomicInteger next = new AtomicInteger();
+    private RegistrationDAO dao;
+    private RegistrationWriter writer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        System.setProperty("eventreg.pool.maxSize", "16");
+        BenchmarkDatabase.reset();
+        BenchmarkDatabase.seedUsers(USERS);
+        BenchmarkDatabase.seedEvents(EVENTS, USERS);
+        BenchmarkDatabase.addLatency("registrations", "INSERT", 2);
+        dao = new RegistrationDAO();
+        writer = new RegistrationWriter(dao, 10_000, 500, 5, 1000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        writer.shutdown();
+        DatabaseConnection.getPool().shutdown();
+    }
+
+    @Benchmark
+    public boolean perRowCommit() throws SQLException {
+        int n = next.getAndIncrement();
+        return dao.registerWithinCapacity(n % USERS + 1, n / USERS % EVENTS + 1);
+    }
+
+    @Benchmark
+    public RegistrationWriter.Outcome groupCommit() {
+        int n = next.getAndIncrement();
+        return writer.submit(n % USERS + 1, n / USERS % EVENTS + 1).join();
+    }
+}
@@ -0,0 +1,86 @@
+package eventreg2;
+
+import static spark.Spark.awaitInitialization;
+import static spark.Spark.stop;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Load test of platform vs virtual server threads under a registration-style spike.
+ *
+ * <p>Most clients hit a database-bound route (a paged query; every SELECT takes 5 ms)
+ * while a few read the cached event list, which needs no database at all. With
+ * platform threads the database-bound requests occupy every Jetty thread and the
+ * cheap requests queue behind them; with virtual threads only the connection pool
+ * bounds the database work. Compare the score (throughput) and the p99/p999 of
+ * cachedList between the two modes. Each mode runs in its own fork.</p>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServerModeBenchmark {
+
+    private static final int PORT = 5056;
+    private static final String BASE = "http://localhost:" + PORT;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    private HttpClient client;
+    private HttpRequest pageRequest;
+    private HttpRequest listRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        System.setProperty("eventreg.server.threads", threads);
+        System.setProperty("eventreg.server.maxThreads", "200");
+        System.setProperty("eventreg.pool.maxSize", "20");
+        System.setProperty("eventreg.pool.borrowTimeoutMs", "30000");
+        System.setProperty("eventreg.cache.ttlMs", "3600000");
+        BenchmarkDatabase.reset();
+        new EventDAO().createAll(BenchmarkDatabase.events(1000));
+        BenchmarkDatabase.addLatency("events", "SELECT", 5);
+
+        System.setProperty("eventreg.port", String.valueOf(PORT));
+        System.setProperty("eventreg.openBrowser", "false");
+        // Measure the server itself, not the per-client limits or load shedding
+        System.setProperty("eventreg.ratelimit.enabled", "false");
+        System.setProperty("eventreg.shed.maxDbWaiting", "0");
+        System.setProperty("eventreg.shed.maxP99Ms", "0");
+        EventAPI.main(new String[0]);
+        awaitInitialization();
+
+        client = HttpClient.newHttpClient();
+        pageRequest = HttpRequest.newBuilder(URI.create(BASE + "/api/events?limit=20&from=2026-06-01")).build();
+        listRequest = HttpRequest.newBuilder(URI.create(BASE + "/api/events")).build();
+        client.send(listRequest, HttpResponse.BodyHandlers.discarding());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        stop();
+        DatabaseConnection.getPool().shutdown();
+    }
+
+    @Benchmark
+    @Group("spike")
+    @GroupThreads(300)
+    public int pagedQuery() throws Exception {
+        return client.send(pageRequest, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Benchmark
+    @Group("spike")
+    @GroupThreads(16)
+    public int cachedList() throws Exception {
+        return client.send(listRequest, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
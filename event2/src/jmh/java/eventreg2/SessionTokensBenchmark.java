@@ -0,0 +1,27 @@
+package eventreg2;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** Cost of issuing and validating a session token (no database involved). */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SessionTokensBenchmark {
+
+    private final SessionTokens tokens = new SessionTokens(null, 3_600_000);
+    private final String token = tokens.issue("benchmark-user", 1);
+
+    @Benchmark
+    public String issue() {
+        return tokens.issue("benchmark-user", 1);
+    }
+
+    @Benchmark
+    public SessionTokens.Session validate() {
+        return tokens.validate(token);
+    }
+}
@@ -0,0 +1,395 @@
+package eventreg2;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only audit trail of event changes, registrations and logins, written behind
+ * the request path into memory-mapped segment files.
+ *
+ * <p>A request thread only claims a slot in a bounded ring buffer and stores a few
+ * fields in it: one CAS and no allocation, locks or I/O. A single writer thread encodes
+ * the records into the current segment. When the ring is full the record is dropped and
+ * counted instead of making the request wait.</p>
+ *
+ * <p>Segments are files named {@code audit-000001.log}, {@code audit-000002.log}, ... of
+ * {@code segmentBytes} each, numbered on from the newest one already in the directory;
+ * a new one is started when a record does not fit and only the newest
+ * {@code maxSegments} are kept. A segment starts with an 8-byte header (magic and
+ * version) followed by records of:</p>
+ * <ul>
+ *   <li>length of the rest of the record (int), written last, so 0 marks the end of the data,</li>
+ *   <li>CRC32C of what follows it (int),</li>
+ *   <li>type (byte), time in epoch milliseconds (long), event ID and user ID (ints; 0 if none),</li>
+ *   <li>text as a UTF-8 byte count (short) and bytes, e.g. the username of a login.</li>
+ * </ul>
+ * <p>{@link AuditLogReader} replays and tails segments.</p>
+ *
+ * <p>How far writes are forced to disk is set by the {@link FsyncPolicy}. With any policy
+ * a crash of the process loses nothing already in the segment, since the mapping belongs
+ * to the OS; only records still in the ring are lost.</p>
+ */
+public class AuditLog implements EventChangeListener, AutoCloseable {
+
+    /** What a record is about. New types are only ever appended, since the ordinal is stored. */
+    public enum Type {
+        EVENT_CREATED,
+        EVENT_UPDATED,
+        EVENT_DELETED,
+        REGISTERED,
+        CANCELLED,
+        PROMOTED,
+        WAITLIST_JOINED,
+        WAITLIST_LEFT,
+        LOGIN,
+        LOGIN_FAILED,
+        LOGOUT
+    }
+
+    /** When the current segment is forced to disk. */
+    public enum FsyncPolicy {
+        /** Left to the OS; a power loss can lose the last writes. */
+        NEVER,
+        /** At most every fsyncMillis while there are new records. */
+        INTERVAL,
+        /** After every batch the writer drains, before it takes the next one. */
+        BATCH
+    }
+
+    /** One decoded record. */
+    public static final class Record {
+        private final Type type;
+        private final long timeMillis;
+        private final int eventId;
+        private final int userId;
+        private final String text;
+        /** Bytes the record takes in its segment. */
+        final int size;
+
+        Record(Type type, long timeMillis, int eventId, int userId, String text, int size) {
+            this.type = type;
+            this.timeMillis = timeMillis;
+            this.eventId = eventId;
+            this.userId = userId;
+            this.text = text;
+            this.size = size;
+        }
+
+        public Type getType() { return type; }
+        public long getTimeMillis() { return timeMillis; }
+        public int getEventId() { return eventId; }
+        public int getUserId() { return userId; }
+        public String getText() { return text; }
+
+        @Override
+        public String toString() {
+            StringBuilder line = new StringBuilder().append(Instant.ofEpochMilli(timeMillis)).append(' ').append(type);
+            if (eventId != 0) line.append(" event=").append(eventId);
+            if (userId != 0) line.append(" user=").append(userId);
+            if (!text.isEmpty()) line.append(' ').append(text);
+            return line.toString();
+        }
+    }
+
+    private static final Type[] TYPES = Type.values();
+
+    static final int MAGIC = 0x45524155; // "ERAU"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 8;
+    /** CRC, type, time, event ID, user ID and text length. */
+    private static final int FIXED_BYTES = 4 + 1 + 8 + 4 + 4 + 2;
+    private static final int MAX_TEXT_CHARS = 256;
+    private static final int DRAIN_BATCH = 1024;
+    private static final long MAX_IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final Metrics.Counter WRITTEN = Metrics.counter("eventreg_audit_records_total", "result", "written");
+    private static final Metrics.Counter DROPPED = Metrics.counter("eventreg_audit_records_total", "result", "dropped");
+
+    // Ring buffer: slot i holds position p while sequences[i] == p + 1, and is free for
+    // position p while sequences[i] == p. Fields are written before the sequence is
+    // published (release) and read after it is seen (acquire).
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final byte[] types;
+    private final long[] times;
+    private final int[] eventIds;
+    private final int[] userIds;
+    private final String[] texts;
+    private final AtomicLong tail = new AtomicLong();
+    /** Next position the writer reads; only the writer thread changes it. */
+    private volatile long head;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncNanos;
+    private final CRC32C crc = new CRC32C();
+    private int segmentIndex;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int position;
+
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    /**
+     * Opens a new segment in the directory (created if missing) and starts the writer thread.
+     * @param capacity Records the ring holds before new ones are dropped; rounded up to a power of two.
+     * @param segmentBytes Size of each segment file.
+     * @param maxSegments Segments kept; older ones are deleted (0 keeps all).
+     * @param fsyncMillis Interval for {@link FsyncPolicy#INTERVAL}.
+     */
+    public static AuditLog open(Path directory, int capacity, int segmentBytes, int maxSegments,
+                                FsyncPolicy fsyncPolicy, long fsyncMillis) throws IOException {
+        AuditLog log = new AuditLog(directory, capacity, segmentBytes, maxSegments, fsyncPolicy, fsyncMillis);
+        log.writer.start();
+        return log;
+    }
+
+    private AuditLog(Path directory, int capacity, int segmentBytes, int maxSegments,
+                     FsyncPolicy fsyncPolicy, long fsyncMillis) throws IOException {
+        if (segmentBytes < 4096) throw new IllegalArgumentException("Segments must be at least 4096 bytes");
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) sequences.set(i, i);
+        this.types = new byte[size];
+        this.times = new long[size];
+        this.eventIds = new int[size];
+        this.userIds = new int[size];
+        this.texts = new String[size];
+
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncNanos = TimeUnit.MILLISECONDS.toNanos(fsyncMillis);
+
+        Files.createDirectories(directory);
+        List<Path> existing = segments(directory);
+        segmentIndex = existing.isEmpty() ? 0 : indexOf(existing.get(existing.size() - 1));
+        openSegment();
+
+        writer = new Thread(this::writeLoop, "audit-writer");
+        writer.setDaemon(true);
+    }
+
+    @Override
+    public void eventCreated(Event event) {
+        record(Type.EVENT_CREATED, event.getEventId(), 0, null);
+    }
+
+    @Override
+    public void eventUpdated(Event event) {
+        record(Type.EVENT_UPDATED, event.getEventId(), 0, null);
+    }
+
+    @Override
+    public void eventDeleted(int eventId) {
+        record(Type.EVENT_DELETED, eventId, 0, null);
+    }
+
+    /**
+     * Queues a record for the writer; never blocks.
+     * @param text Extra detail such as a username, or null.
+     * @return false if the ring was full and the record was dropped.
+     */
+    public boolean record(Type type, int eventId, int userId, String text) {
+        long timeMillis = System.currentTimeMillis();
+        long claimed = tail.get();
+        int index;
+        while (true) {
+            index = (int) claimed & mask;
+            long sequence = sequences.get(index);
+            if (sequence == claimed) {
+                if (tail.compareAndSet(claimed, claimed + 1)) break;
+                claimed = tail.get();
+            } else if (sequence < claimed) {
+                // The writer has not freed this slot from the previous lap yet: full
+                DROPPED.increment();
+                return false;
+            } else {
+                claimed = tail.get();
+            }
+        }
+        types[index] = (byte) type.ordinal();
+        times[index] = timeMillis;
+        eventIds[index] = eventId;
+        userIds[index] = userId;
+        texts[index] = text;
+        sequences.lazySet(index, claimed + 1);
+        return true;
+    }
+
+    /** Records queued but not yet written to a segment. */
+    public long getBacklog() {
+        return Math.max(0, tail.get() - head);
+    }
+
+    /** The segment being written. */
+    public Path getCurrentSegment() {
+        return directory.resolve(segmentName(segmentIndex));
+    }
+
+    /** Stops the writer after it has written every queued record, and forces the segment to disk. */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        long lastForce = System.nanoTime();
+        boolean unforced = false;
+        int idle = 0;
+        try {
+            while (true) {
+                boolean stopping = !running;
+                int written = drain();
+                unforced |= written > 0;
+                long now = System.nanoTime();
+                if (unforced && (stopping || fsyncPolicy == FsyncPolicy.BATCH
+                        || (fsyncPolicy == FsyncPolicy.INTERVAL && now - lastForce >= fsyncNanos))) {
+                    segment.force();
+                    unforced = false;
+                    lastForce = now;
+                }
+                if (stopping && written == 0) break;
+                if (written > 0) {
+                    idle = 0;
+                } else {
+                    // Back off from 16 microseconds to 1 ms while there is nothing to write
+                    LockSupport.parkNanos(Math.min(MAX_IDLE_PARK_NANOS, 16_000L << Math.min(idle++, 6)));
+                }
+            }
+            channel.close();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Audit log writer stopped: " + e.getMessage());
+        }
+    }
+
+    /** Writes up to a batch of queued records; returns how many. */
+    private int drain() throws IOException {
+        int count = 0;
+        while (count < DRAIN_BATCH) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) break;
+            Type type = TYPES[types[index]];
+            String text = texts[index];
+            texts[index] = null;
+            write(type, times[index], eventIds[index], userIds[index], text);
+            sequences.lazySet(index, head + mask + 1);
+            head++;
+            count++;
+        }
+        if (count > 0) WRITTEN.add(count);
+        return count;
+    }
+
+    private void write(Type type, long timeMillis, int eventId, int userId, String text) throws IOException {
+        if (text != null && text.length() > MAX_TEXT_CHARS) text = text.substring(0, MAX_TEXT_CHARS);
+        byte[] utf8 = text == null ? new byte[0] : text.getBytes(StandardCharsets.UTF_8);
+        int length = FIXED_BYTES + utf8.length;
+        if (position + 4 + length > segmentBytes) {
+            rollSegment();
+        }
+
+        int body = position + 8;
+        segment.put(body, (byte) type.ordinal());
+        segment.putLong(body + 1, timeMillis);
+        segment.putInt(body + 9, eventId);
+        segment.putInt(body + 13, userId);
+        segment.putShort(body + 17, (short) utf8.length);
+        segment.put(body + 19, utf8);
+        crc.reset();
+        crc.update(segment.slice(body, length - 4));
+        segment.putInt(position + 4, (int) crc.getValue());
+        // Last, so a reader never sees the length of a record that is not complete
+        segment.putInt(position, length);
+        position += 4 + length;
+    }
+
+    private void openSegment() throws IOException {
+        segmentIndex++;
+        channel = FileChannel.open(getCurrentSegment(),
+            StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        segment.putInt(0, MAGIC);
+        segment.putInt(4, VERSION);
+        position = HEADER_BYTES;
+    }
+
+    private void rollSegment() throws IOException {
+        if (fsyncPolicy != FsyncPolicy.NEVER) segment.force();
+        channel.close();
+        openSegment();
+        if (maxSegments > 0) {
+            List<Path> all = segments(directory);
+            for (int i = 0; i < all.size() - maxSegments; i++) {
+                Files.deleteIfExists(all.get(i));
+            }
+        }
+    }
+
+    /**
+     * Decodes the record at a position of a segment.
+     * @return The record, or null if there is none (yet) or it is not intact.
+     */
+    static Record read(ByteBuffer segment, int position) {
+        if (position + 4 > segment.limit()) return null;
+        int length = segment.getInt(position);
+        if (length < FIXED_BYTES || position + 4 + length > segment.limit()) return null;
+        int body = position + 8;
+        CRC32C check = new CRC32C();
+        check.update(segment.slice(body, length - 4));
+        if ((int) check.getValue() != segment.getInt(position + 4)) return null;
+
+        int typeOrdinal = segment.get(body);
+        int textLength = segment.getShort(body + 17) & 0xFFFF;
+        if (typeOrdinal < 0 || typeOrdinal >= TYPES.length || textLength != length - FIXED_BYTES) return null;
+        byte[] text = new byte[textLength];
+        segment.get(body + 19, text);
+        return new Record(TYPES[typeOrdinal], segment.getLong(body + 1), segment.getInt(body + 9),
+            segment.getInt(body + 13), new String(text, StandardCharsets.UTF_8), 4 + length);
+    }
+
+    /** Segment files in a directory, oldest first. */
+    static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) return List.of();
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().matches("audit-\\d{6,}\\.log"))
+                .sorted((a, b) -> Integer.compare(indexOf(a), indexOf(b)))
+                .collect(Collectors.toList());
+        }
+    }
+
+    static int indexOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Integer.parseInt(name.substring("audit-".length(), name.length() - ".log".length()));
+    }
+
+    private static String segmentName(int index) {
+        return String.format("audit-%06d.log", index);
+    }
+}
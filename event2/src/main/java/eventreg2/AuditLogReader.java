@@ -0,0 +1,147 @@
+package eventreg2;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads the segments written by {@link AuditLog}, oldest first.
+ *
+ * <p>From the command line it prints one line per record:</p>
+ * <pre>
+ * java -cp ... eventreg2.AuditLogReader [-f] [directory]
+ * </pre>
+ * <p>The directory defaults to -Deventreg.audit.dir or ./data/audit. With {@code -f} it
+ * keeps following the newest segment, like {@code tail -f}, including segments started
+ * after it was launched.</p>
+ */
+public final class AuditLogReader {
+
+    private static final long FOLLOW_POLL_MILLIS = 200;
+
+    private AuditLogReader() {}
+
+    public static void main(String[] args) throws Exception {
+        boolean follow = false;
+        String directory = System.getProperty("eventreg.audit.dir", "data/audit");
+        for (String arg : args) {
+            if ("-f".equals(arg)) {
+                follow = true;
+            } else if (arg.startsWith("-")) {
+                System.err.println("Usage: AuditLogReader [-f] [directory]");
+                System.exit(2);
+            } else {
+                directory = arg;
+            }
+        }
+        if (follow) {
+            follow(Paths.get(directory), System.out::println);
+        } else {
+            replay(Paths.get(directory), System.out::println);
+        }
+    }
+
+    /**
+     * Passes every record in the directory's segments to the consumer, oldest first.
+     * A segment is read up to its end or the first record that is not intact.
+     * @return The number of records read.
+     */
+    public static long replay(Path directory, Consumer<AuditLog.Record> consumer) throws IOException {
+        long count = 0;
+        for (Path path : AuditLog.segments(directory)) {
+            Segment segment = Segment.open(path);
+            if (segment == null) {
+                System.err.println("Skipping " + path + ": not an audit log segment");
+                continue;
+            }
+            AuditLog.Record record;
+            while ((record = segment.next()) != null) {
+                consumer.accept(record);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Replays every record like {@link #replay}, then waits for new ones and passes them
+     * on as they are written, until the thread is interrupted.
+     */
+    public static void follow(Path directory, Consumer<AuditLog.Record> consumer)
+            throws IOException, InterruptedException {
+        int currentIndex = 0;
+        Segment segment = null;
+        while (!Thread.currentThread().isInterrupted()) {
+            Path next = null;
+            boolean newest = false;
+            List<Path> segments = AuditLog.segments(directory);
+            for (int i = 0; i < segments.size(); i++) {
+                if (AuditLog.indexOf(segments.get(i)) > currentIndex) {
+                    next = segments.get(i);
+                    newest = i == segments.size() - 1;
+                    break;
+                }
+            }
+            // The writer finishes a segment before it starts the next, so if a newer one
+            // was listed above, this drain sees everything left in the current one
+            if (segment != null) drain(segment, consumer);
+            if (next == null) {
+                Thread.sleep(FOLLOW_POLL_MILLIS);
+                continue;
+            }
+            Segment opened = Segment.open(next);
+            if (opened == null && newest) {
+                // Probably just created, before the writer put its header in
+                Thread.sleep(FOLLOW_POLL_MILLIS);
+                continue;
+            }
+            currentIndex = AuditLog.indexOf(next);
+            if (opened != null) {
+                segment = opened;
+            } else {
+                System.err.println("Skipping " + next + ": not an audit log segment");
+            }
+        }
+    }
+
+    private static void drain(Segment segment, Consumer<AuditLog.Record> consumer) {
+        AuditLog.Record record;
+        while ((record = segment.next()) != null) {
+            consumer.accept(record);
+        }
+    }
+
+    /** Read position in one segment file. */
+    private static final class Segment {
+        private final MappedByteBuffer buffer;
+        private int position = AuditLog.HEADER_BYTES;
+
+        private Segment(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /** Maps a segment, or returns null if it is not an audit segment of this version. */
+        static Segment open(Path path) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (buffer.limit() < AuditLog.HEADER_BYTES || buffer.getInt(0) != AuditLog.MAGIC
+                        || buffer.getInt(4) != AuditLog.VERSION) {
+                    return null;
+                }
+                return new Segment(buffer);
+            }
+        }
+
+        /** The next record, or null if there is none yet. */
+        AuditLog.Record next() {
+            AuditLog.Record record = AuditLog.read(buffer, position);
+            if (record != null) position += record.size;
+            return record;
+        }
+    }
+}
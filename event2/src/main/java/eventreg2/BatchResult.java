@@ -0,0 +1,54 @@
+package eventreg2;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-item outcome of a batch create, update or delete.
+ * Items are reported in request order, so clients can match them by index.
+ */
+public class BatchResult {
+
+    /** Outcome of one item of the batch. */
+    public static class Item {
+        private final int index;
+        private final boolean success;
+        private final Integer id;
+        private final String error;
+
+        private Item(int index, boolean success, Integer id, String error) {
+            this.index = index;
+            this.success = success;
+            this.id = id;
+            this.error = error;
+        }
+
+        public int getIndex() { return index; }
+        public boolean isSuccess() { return success; }
+        public Integer getId() { return id; }
+        public String getError() { return error; }
+    }
+
+    private final List<Item> items = new ArrayList<>();
+    private int succeeded;
+    private int failed;
+    private long elapsedMillis;
+
+    public void success(int index, Integer id) {
+        items.add(new Item(index, true, id, null));
+        succeeded++;
+    }
+
+    public void failure(int index, Integer id, String error) {
+        items.add(new Item(index, false, id, error));
+        failed++;
+    }
+
+    public List<Item> getItems() { return items; }
+    public int getSucceeded() { return succeeded; }
+    public int getFailed() { return failed; }
+
+    /** Wall-clock time the database work took, when the DAO measured it. */
+    public long getElapsedMillis() { return elapsedMillis; }
+    public void setElapsedMillis(long elapsedMillis) { this.elapsedMillis = elapsedMillis; }
+}
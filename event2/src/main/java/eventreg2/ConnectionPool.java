@@ -0,0 +1,379 @@
+package eventreg2;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A small bounded JDBC connection pool used by {@link DatabaseConnection}.
+ *
+ * <p>Callers borrow a connection with {@link #borrow()} and give it back by calling
+ * {@code close()} on it (normally through try-with-resources). Borrowing blocks for at
+ * most the borrow timeout when all connections are in use. Idle connections are
+ * validated before they are handed out again, evicted after the idle timeout (down to
+ * the minimum size) and keep a small LRU cache of prepared statements.</p>
+ */
+public class ConnectionPool {
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long validationIntervalMillis;
+    private final int statementCacheSize;
+
+    /** One permit per connection that may be handed out; waiting threads queue fairly. */
+    private final Semaphore permits;
+    /** Idle connections, most recently used first so cold ones age out at the tail. */
+    private final ConcurrentLinkedDeque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final AtomicInteger totalCount = new AtomicInteger();
+
+    private final ScheduledExecutorService housekeeper;
+
+    public ConnectionPool(String url, String user, String password, int minSize, int maxSize,
+                          long borrowTimeoutMillis, long idleTimeoutMillis, int statementCacheSize) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.validationIntervalMillis = 1000;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Starts the housekeeping thread, which opens connections up to the minimum size and
+     * evicts idle ones. Until then the pool only opens connections on demand.
+     * @return This pool.
+     */
+    public ConnectionPool start() {
+        long period = Math.max(1000, idleTimeoutMillis / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0, period, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    /**
+     * Borrows a connection from the pool, opening a new one if none is idle.
+     * @return A connection whose {@code close()} returns it to the pool.
+     * @throws SQLException if no connection became available within the borrow timeout
+     *                      or a new connection could not be opened.
+     */
+    public Connection borrow() throws SQLException {
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out after " + borrowTimeoutMillis
+                        + " ms waiting for a database connection (active=" + getActiveCount()
+                        + ", waiting=" + getWaitingCount() + ")", "08001");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", "08001", e);
+        }
+
+        try {
+            PooledConnection pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                idleCount.decrementAndGet();
+                if (validate(pooled)) break;
+                discard(pooled);
+            }
+            if (pooled == null) {
+                pooled = open();
+            }
+            activeCount.incrementAndGet();
+            return pooled.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /** Number of connections currently borrowed. */
+    public int getActiveCount() { return activeCount.get(); }
+
+    /** Number of open connections sitting in the pool. */
+    public int getIdleCount() { return idleCount.get(); }
+
+    /** Number of threads blocked in {@link #borrow()} waiting for a connection. */
+    public int getWaitingCount() { return permits.getQueueLength(); }
+
+    /** Number of physical connections currently open. */
+    public int getTotalCount() { return totalCount.get(); }
+
+    public int getMaxSize() { return maxSize; }
+
+    public int getMinSize() { return minSize; }
+
+    /** Closes every idle connection and stops the housekeeping thread. */
+    public void shutdown() {
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            idleCount.decrementAndGet();
+            discard(pooled);
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, user, password);
+        totalCount.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    private boolean validate(PooledConnection pooled) {
+        if (System.currentTimeMillis() - pooled.lastUsed < validationIntervalMillis) {
+            return true;
+        }
+        try {
+            return pooled.physical.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void release(PooledConnection pooled) {
+        try {
+            if (pooled.broken) {
+                discard(pooled);
+            } else {
+                try {
+                    if (!pooled.physical.getAutoCommit()) {
+                        pooled.physical.rollback();
+                        pooled.physical.setAutoCommit(true);
+                    }
+                    pooled.lastUsed = System.currentTimeMillis();
+                    idle.offerFirst(pooled);
+                    idleCount.incrementAndGet();
+                } catch (SQLException e) {
+                    discard(pooled);
+                }
+            }
+        } finally {
+            activeCount.decrementAndGet();
+            permits.release();
+        }
+    }
+
+    private void discard(PooledConnection pooled) {
+        pooled.closeStatements();
+        try {
+            pooled.physical.close();
+        } catch (SQLException ignored) {
+            // The connection is being thrown away anyway
+        } finally {
+            totalCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Evicts connections idle past the timeout and tops the pool back up to its minimum.
+     * Each top-up connection is opened under a permit, so the pool never holds more than
+     * maxSize connections even when borrowers are opening their own at the same time.
+     */
+    void housekeep() {
+        try {
+            long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext() && totalCount.get() > minSize) {
+                PooledConnection pooled = it.next();
+                if (pooled.lastUsed < cutoff && idle.removeLastOccurrence(pooled)) {
+                    idleCount.decrementAndGet();
+                    discard(pooled);
+                }
+            }
+            while (totalCount.get() < minSize && permits.tryAcquire()) {
+                try {
+                    PooledConnection pooled = open();
+                    pooled.lastUsed = System.currentTimeMillis();
+                    idle.offerLast(pooled);
+                    idleCount.incrementAndGet();
+                } finally {
+                    permits.release();
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Connection pool could not reach minimum size: " + e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println("Connection pool housekeeping failed: " + e.getMessage());
+        }
+    }
+
+    /** A physical connection plus its prepared statement cache. */
+    private final class PooledConnection {
+        final Connection physical;
+        volatile long lastUsed = System.currentTimeMillis();
+        volatile boolean broken;
+
+        /** LRU of statements not currently checked out; only touched by the borrowing thread. */
+        private final LinkedHashMap<String, PreparedStatement> statements =
+                new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                        if (size() > statementCacheSize) {
+                            closeQuietly(eldest.getValue());
+                            return true;
+                        }
+                        return false;
+                    }
+                };
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, new ConnectionHandle(this));
+        }
+
+        PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+            String key = autoGeneratedKeys + ":" + sql;
+            PreparedStatement statement = statementCacheSize > 0 ? statements.remove(key) : null;
+            if (statement == null) {
+                statement = physical.prepareStatement(sql, autoGeneratedKeys);
+            }
+            return cachedHandle(key, statement);
+        }
+
+        void checkIn(String key, PreparedStatement statement) {
+            if (statementCacheSize <= 0 || statements.containsKey(key)) {
+                closeQuietly(statement);
+            } else {
+                statements.put(key, statement);
+            }
+        }
+
+        void closeStatements() {
+            statements.values().forEach(ConnectionPool::closeQuietly);
+            statements.clear();
+        }
+
+        private PreparedStatement cachedHandle(String key, PreparedStatement statement) {
+            InvocationHandler handler = new InvocationHandler() {
+                private boolean closed;
+
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    switch (method.getName()) {
+                        case "close":
+                            if (!closed) {
+                                closed = true;
+                                ResultSet open = statement.getResultSet();
+                                if (open != null) open.close();
+                                statement.clearParameters();
+                                statement.clearBatch();
+                                checkIn(key, statement);
+                            }
+                            return null;
+                        case "isClosed":
+                            return closed;
+                        default:
+                            if (closed) throw new SQLException("Statement is closed");
+                            return invokeTracked(PooledConnection.this, statement, method, args);
+                    }
+                }
+            };
+            return (PreparedStatement) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class }, handler);
+        }
+    }
+
+    /** The per-borrow view of a pooled connection; closing it returns the connection. */
+    private final class ConnectionHandle implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean closed;
+
+        ConnectionHandle(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("close".equals(name)) {
+                if (!closed) {
+                    closed = true;
+                    release(pooled);
+                }
+                return null;
+            }
+            if ("isClosed".equals(name)) {
+                return closed || pooled.physical.isClosed();
+            }
+            if (closed) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            if ("prepareStatement".equals(name) && args.length <= 2 && (args.length == 1 || args[1] instanceof Integer)) {
+                int keys = args.length == 2 ? (Integer) args[1] : java.sql.Statement.NO_GENERATED_KEYS;
+                try {
+                    return pooled.prepare((String) args[0], keys);
+                } catch (SQLException e) {
+                    markIfBroken(pooled, e);
+                    throw e;
+                }
+            }
+            return invokeTracked(pooled, pooled.physical, method, args);
+        }
+    }
+
+    private static Object invokeTracked(PooledConnection pooled, Object target, Method method, Object[] args)
+            throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                markIfBroken(pooled, (SQLException) cause);
+            }
+            throw cause;
+        }
+    }
+
+    /** SQLState class 08 means the connection itself failed, so it must not be reused. */
+    private static void markIfBroken(PooledConnection pooled, SQLException e) {
+        String state = e.getSQLState();
+        if (state != null && state.startsWith("08")) {
+            pooled.broken = true;
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable resource) {
+        try {
+            resource.close();
+        } catch (Exception ignored) {
+            // Nothing useful to do with a failed close
+        }
+    }
+}
@@ -1,25 +1,121 @@
 package eventreg2;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
 
+/**
+ * Central access point to the database.
+ * Connections come from a bounded {@link ConnectionPool}; callers must close the
+ * connection they borrow (try-with-resources) so it goes back to the pool.
+ *
+ * <p>MySQL by default. With {@code -Deventreg.db.dialect=h2} (or an H2 URL) the database
+ * runs embedded in the process, in ./data/eventreg.mv.db unless -Deventreg.db.url says
+ * otherwise (e.g. {@code jdbc:h2:mem:eventreg;MODE=MySQL;DB_CLOSE_DELAY=-1}), and the
+ * schema in schema.sql is created on first start.</p>
+ */
 public class DatabaseConnection {
-    private static final String URL = "jdbc:mysql://localhost:3306/eventregistrationsystem"; 
-    private static final String USER = "root";
-    private static final String PASSWORD = "Alif##1235";
-    
-    private static Connection connection = null;
+    // -Deventreg.db.url/user/password/dialect override the defaults below.
+    // rewriteBatchedStatements lets the MySQL driver send a JDBC batch as multi-row statements.
+    private static final String MYSQL_URL = "jdbc:mysql://localhost:3306/eventregistrationsystem?rewriteBatchedStatements=true";
+    private static final String H2_URL = "jdbc:h2:./data/eventreg;MODE=MySQL";
 
-    public static Connection getConnection() {
+    private static final String CONFIGURED_URL = System.getProperty("eventreg.db.url");
+    private static final Dialect DIALECT = System.getProperty("eventreg.db.dialect") != null
+        ? Dialect.valueOf(System.getProperty("eventreg.db.dialect").toUpperCase())
+        : CONFIGURED_URL != null ? Dialect.fromUrl(CONFIGURED_URL) : Dialect.MYSQL;
+    private static final String URL = CONFIGURED_URL != null ? CONFIGURED_URL
+        : DIALECT == Dialect.H2 ? H2_URL : MYSQL_URL;
+    private static final String USER = System.getProperty("eventreg.db.user", DIALECT == Dialect.H2 ? "sa" : "root");
+    private static final String PASSWORD = System.getProperty("eventreg.db.password",
+        DIALECT == Dialect.H2 ? "" : "Alif##1235");
+
+    /** Create missing tables from schema.sql at startup; on by default for embedded H2. */
+    private static final boolean INIT_SCHEMA = Boolean.parseBoolean(
+        System.getProperty("eventreg.db.initSchema", String.valueOf(DIALECT == Dialect.H2)));
+
+    // Pool sizing, overridable with -Deventreg.pool.* system properties
+    private static final int POOL_MIN_SIZE = Integer.getInteger("eventreg.pool.minSize", 2);
+    private static final int POOL_MAX_SIZE = Integer.getInteger("eventreg.pool.maxSize", 10);
+    private static final long BORROW_TIMEOUT_MS = Long.getLong("eventreg.pool.borrowTimeoutMs", 5000);
+    private static final long IDLE_TIMEOUT_MS = Long.getLong("eventreg.pool.idleTimeoutMs", 300_000);
+    private static final int STATEMENT_CACHE_SIZE = Integer.getInteger("eventreg.pool.statementCacheSize", 32);
+
+    private static final ConnectionPool pool = createPool();
+
+    private static ConnectionPool createPool() {
         try {
-            if (connection == null || connection.isClosed()) {
-                Class.forName("com.mysql.cj.jdbc.Driver");
-                connection = DriverManager.getConnection(URL, USER, PASSWORD);
-                System.out.println("Success: Database Connected...");
+            Class.forName(DIALECT.getDriverClass());
+        } catch (ClassNotFoundException e) {
+            System.err.println("Failed: JDBC driver not found!!! " + e.getMessage());
+        }
+        ConnectionPool pool = new ConnectionPool(URL, USER, PASSWORD, POOL_MIN_SIZE, POOL_MAX_SIZE,
+                BORROW_TIMEOUT_MS, IDLE_TIMEOUT_MS, STATEMENT_CACHE_SIZE).start();
+        if (INIT_SCHEMA) {
+            try (Connection connection = pool.borrow()) {
+                if (!hasSchema(connection)) {
+                    createSchema(connection);
+                    System.out.println("Created the " + DIALECT + " schema at " + URL);
+                }
+            } catch (SQLException e) {
+                System.err.println("Failed: Schema creation failed!!! " + e.getMessage());
+            }
+        }
+        return pool;
+    }
+
+    private static boolean hasSchema(Connection connection) {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeQuery("SELECT 1 FROM events WHERE 1 = 0").close();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /** Runs every statement in the schema.sql resource. */
+    static void createSchema(Connection connection) throws SQLException {
+        String script;
+        try (InputStream in = DatabaseConnection.class.getResourceAsStream("/schema.sql")) {
+            if (in == null) throw new SQLException("schema.sql is missing from the classpath");
+            script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new SQLException("Could not read schema.sql", e);
+        }
+        StringBuilder sql = new StringBuilder();
+        for (String line : script.split("\n")) {
+            if (!line.trim().startsWith("--")) sql.append(line).append('\n');
+        }
+        try (Statement statement = connection.createStatement()) {
+            for (String ddl : sql.toString().split(";")) {
+                if (!ddl.isBlank()) statement.execute(ddl);
             }
-        } catch (Exception e) {
+        }
+    }
+
+    /**
+     * Borrows a pooled connection. Closing it returns it to the pool.
+     * @return A connection, or null if none could be obtained.
+     */
+    public static Connection getConnection() {
+        try {
+            return pool.borrow();
+        } catch (SQLException e) {
             System.err.println("Failed: Connection Failed!!! " + e.getMessage());
+            return null;
         }
-        return connection;
     }
-}
\ No newline at end of file
+
+    /** The engine the pool is connected to. */
+    public static Dialect getDialect() {
+        return DIALECT;
+    }
+
+    /** Exposes the pool so its active/idle/waiting gauges can be reported. */
+    public static ConnectionPool getPool() {
+        return pool;
+    }
+}
@@ -0,0 +1,33 @@
+package eventreg2;
+
+/**
+ * The database engines the DAOs run on, and what differs between them.
+ * The SQL itself is shared: H2 runs in its MySQL compatibility mode.
+ */
+public enum Dialect {
+    /** A MySQL server (the default). */
+    MYSQL("com.mysql.cj.jdbc.Driver", Integer.MIN_VALUE),
+    /** H2 embedded in the server process, in a file or in memory. */
+    H2("org.h2.Driver", 1000);
+
+    private final String driverClass;
+    private final int streamFetchSize;
+
+    Dialect(String driverClass, int streamFetchSize) {
+        this.driverClass = driverClass;
+        this.streamFetchSize = streamFetchSize;
+    }
+
+    public String getDriverClass() { return driverClass; }
+
+    /**
+     * Fetch size for reading a large result without holding it all in memory:
+     * Integer.MIN_VALUE makes MySQL stream row by row, H2 needs a positive batch size.
+     */
+    public int getStreamFetchSize() { return streamFetchSize; }
+
+    /** The dialect a JDBC URL points at. */
+    public static Dialect fromUrl(String url) {
+        return url.startsWith("jdbc:h2:") ? H2 : MYSQL;
+    }
+}
@@ -17,30 +17,156 @@ package eventreg2;
 import static spark.Spark.*;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import spark.Route;
+import spark.embeddedserver.EmbeddedServers;
+import spark.embeddedserver.jetty.EmbeddedJettyFactory;
 
 
 public class EventAPI {
     
     /** * GSON instance configured with a custom LocalDateAdapter to handle 
-     * JSON date serialization/deserialization.
+     * JSON date serialization/deserialization, and streaming adapters for Event and User.
+     * Package-private so the benchmarks encode with exactly the same configuration.
      */
-    private static final Gson GSON = new GsonBuilder()
+    static final Gson GSON = new GsonBuilder()
         .registerTypeAdapter(LocalDate.class, new LocalDateAdapter())
+        .registerTypeAdapter(Event.class, new EventAdapter())
+        .registerTypeAdapter(User.class, new UserAdapter())
         .create();
     
+    /** HTTP port, 5000 unless -Deventreg.port is set. */
+    private static final int PORT = Integer.getInteger("eventreg.port", 5000);
+
+    /** "platform" (Jetty's thread pool, the default) or "virtual" (a virtual thread per task). */
+    private static final String SERVER_THREADS = System.getProperty("eventreg.server.threads", "platform");
+
+    /** Maximum Jetty threads in platform mode; Spark's default when unset. */
+    private static final int SERVER_MAX_THREADS = Integer.getInteger("eventreg.server.maxThreads", -1);
+
     /** Service layer instance for handling event business logic. */
     private static final EventService eventService = new EventService();
 
+    /** Pre-encoded JSON of the event list, rebuilt only when the list changes. */
+    private static final EventSnapshot eventsSnapshot = new EventSnapshot(GSON);
+    private static final EventSnapshot eventsBinarySnapshot = new EventSnapshot(EventCodec::encode);
+
+    /** Server-Sent Events feed of event changes for GET /api/events/changes. */
+    private static final EventChangeFeed changeFeed = new EventChangeFeed(GSON,
+        Integer.getInteger("eventreg.feed.capacity", 1024),
+        Integer.getInteger("eventreg.feed.heartbeatSeconds", 15));
+
+    /** Streams the events table for GET /api/events/export. */
+    private static final EventExporter eventExporter = new EventExporter(GSON, new EventDAO());
+
+    /**
+     * Audit trail of event changes, registrations and logins in eventreg.audit.dir, or null
+     * with -Deventreg.audit.enabled=false or if the directory cannot be written.
+     */
+    private static final AuditLog auditLog = openAuditLog();
+
+    /**
+     * Group-commit pipeline for registrations, enabled with -Deventreg.registration.groupCommit=true.
+     * Rows are committed every eventreg.registration.maxDelayMs or eventreg.registration.batchSize rows.
+     */
+    private static final RegistrationWriter registrationWriter =
+        Boolean.getBoolean("eventreg.registration.groupCommit")
+            ? new RegistrationWriter(new RegistrationDAO(auditLog),
+                Integer.getInteger("eventreg.registration.queueSize", 10_000),
+                Integer.getInteger("eventreg.registration.batchSize", 500),
+                Long.getLong("eventreg.registration.maxDelayMs", 5),
+                Long.getLong("eventreg.registration.submitTimeoutMs", 1000))
+            : null;
+
+    /** Who is registered for which event, loaded at startup and updated by the registration engine. */
+    private static final RegistrationIndex registrationIndex = new RegistrationIndex();
+
+    /** Capacity-enforcing registration engine, kept in sync with event updates. */
+    private static final RegistrationEngine registrationEngine =
+        new RegistrationEngine(new RegistrationDAO(auditLog), registrationWriter, registrationIndex);
+
+    /** Word index of event titles and locations behind GET /api/events/search, loaded at startup. */
+    private static final EventSearchIndex searchIndex = new EventSearchIndex();
+
+    /** Waitlists of sold-out events, promoted in the background when seats free up. */
+    private static final Waitlist waitlist = new Waitlist(new RegistrationDAO(auditLog), registrationEngine);
+
+    /**
+     * Username lookups for login: found users are cached for eventreg.users.cacheTtlMs and unknown
+     * names are rejected by a filter of all usernames, rebuilt every eventreg.users.filterRefreshMs.
+     */
+    private static final UserCache userCache = new UserCache(
+        Long.getLong("eventreg.users.cacheTtlMs", 60_000),
+        Integer.getInteger("eventreg.users.cacheMaxSize", 10_000),
+        Integer.getInteger("eventreg.users.expected", 100_000));
+
     /** Data Access Object for handling user-related database operations. */
-    private static final UserDAO userDAO = new UserDAO();
+    private static final UserDAO userDAO = new UserDAO(userCache);
+
+    /** Signed session tokens issued by /api/login and required for event writes. */
+    private static final SessionTokens sessionTokens = new SessionTokens(
+        System.getProperty("eventreg.session.secret") == null ? null
+            : Base64.getDecoder().decode(System.getProperty("eventreg.session.secret")),
+        Long.getLong("eventreg.session.ttlSeconds", 3600) * 1000);
+
+    /** PBKDF2 hashing on its own bounded executor; cost and cache are set with -Deventreg.password.*. */
+    private static final PasswordHasher passwordHasher = new PasswordHasher(
+        Integer.getInteger("eventreg.password.iterations", 310_000),
+        Integer.getInteger("eventreg.password.threads", Runtime.getRuntime().availableProcessors()),
+        Integer.getInteger("eventreg.password.queueSize", 256),
+        Long.getLong("eventreg.password.cacheTtlMs", 60_000),
+        Integer.getInteger("eventreg.password.cacheMaxSize", 10_000));
+
+    /** Warm up before serving (see {@link StartupWarmup}); -Deventreg.warmup.exit=true exits once warm, for AppCDS training runs. */
+    private static final boolean WARMUP_ENABLED = Boolean.parseBoolean(System.getProperty("eventreg.warmup.enabled", "true"));
+    private static final boolean WARMUP_EXIT = Boolean.getBoolean("eventreg.warmup.exit");
+    private static final int WARMUP_ITERATIONS = Integer.getInteger("eventreg.warmup.iterations", 200);
+
+    /** Set once warm-up is done and every route is mapped; reported by GET /api/ready. */
+    private static volatile boolean ready;
 
     
     public static void main(String[] args) { 
+
+        eventService.addListener(registrationEngine);
+        eventService.addListener(waitlist);
+        eventService.addListener(changeFeed);
+        eventService.addListener(searchIndex);
+        if (auditLog != null) {
+            eventService.addListener(auditLog);
+            Runtime.getRuntime().addShutdownHook(new Thread(auditLog::close, "audit-log-close"));
+        }
+        userCache.refreshEvery(userDAO::forEachUsername, Long.getLong("eventreg.users.filterRefreshMs", 300_000));
+        loadRegistrationIndex();
+        loadSearchIndex();
+        if (WARMUP_ENABLED) {
+            warmUp();
+        }
         
         // 1. Server Configuration
+        if ("virtual".equalsIgnoreCase(SERVER_THREADS)) {
+            // Must be registered before the first route starts the embedded server
+            EmbeddedServers.add(EmbeddedServers.Identifiers.JETTY,
+                new EmbeddedJettyFactory(VirtualThreadPool.serverFactory()));
+        } else if (SERVER_MAX_THREADS > 0) {
+            threadPool(SERVER_MAX_THREADS);
+        }
+        System.out.println("Server threads: " + SERVER_THREADS + ", database concurrency: "
+            + DatabaseConnection.getPool().getMaxSize());
         staticFiles.location("/public"); 
-        port(5000); 
+        port(PORT); 
 
         // 2. CORS (Cross-Origin Resource Sharing) Configuration
         options("/*", (request, response) -> {
@@ -52,75 +178,453 @@ public class EventAPI {
         });
         
         before((request, response) -> response.header("Access-Control-Allow-Origin", "*"));
+
+        // Every request, including static files and 404s: latency, in-flight count and status class
+        before((request, response) -> REQUEST_START.get()[0] = HTTP_TIMER.start());
+        afterAfter((request, response) -> {
+            HTTP_TIMER.stop(REQUEST_START.get()[0]);
+            int statusClass = response.status() / 100;
+            HTTP_STATUS[statusClass >= 1 && statusClass <= 5 ? statusClass : 0].increment();
+            if (statusClass == 5) HTTP_TIMER.error();
+        });
+        registerGauges();
+
+        // Per-client rate checks run before any other /api work; overload is checked in dbTimed routes
+        if (RATE_LIMITS_ENABLED) {
+            before("/api/*", EventAPI::admit);
+        }
+
+        // Writes to events and registrations need a valid session token (Authorization: Bearer ...).
+        // The token is checked from its signature and the revocation list, without a query.
+        before("/api/events", EventAPI::requireSession);
+        before("/api/events/*", EventAPI::requireSession);
         
         // 3. API ENDPOINTS
 
         /**
-         * GET /api/events
-         * Fetches all events from the database.
+         * GET /metrics
+         * Request, DAO, connection pool and cache metrics in the Prometheus text format.
+         */
+        get("/metrics", (request, response) -> {
+            response.type("text/plain; version=0.0.4; charset=utf-8");
+            return Metrics.render();
+        });
+
+        /**
+         * GET /api/ready
+         * 200 once warm-up is done and every route is mapped, 503 before that, so a load
+         * balancer only sends traffic to a warm server.
          */
-        get("/api/events", (request, response) -> {
+        get("/api/ready", (request, response) -> {
             response.type("application/json");
-            return GSON.toJson(eventService.getAllEvents());
+            if (!ready) response.status(503);
+            return "{\"ready\": " + ready + "}";
         });
 
+        /**
+         * GET /api/events
+         * With any of limit, cursor, from, to, location, minFee or maxFee: returns one
+         * keyset page as {"items": [...], "nextCursor": "..."}.
+         * Otherwise fetches all events. Sends the cached JSON snapshot with a strong ETag and
+         * answers 304 Not Modified when the client's If-None-Match still matches.
+         * Clients sending Accept: application/x-eventreg-bin get the list in the binary
+         * EventCodec format instead (pages are always JSON).
+         */
+        get("/api/events", dbTimed("GET /api/events", (request, response) -> {
+            if (isPageRequest(request)) {
+                response.type("application/json");
+                try {
+                    return GSON.toJson(eventService.queryEvents(parseEventQuery(request)));
+                } catch (IllegalArgumentException e) {
+                    response.status(400);
+                    return "{\"error\": \"" + e.getMessage() + "\"}";
+                }
+            }
+            boolean binary = EventCodec.accepts(request.headers("Accept"));
+            EventSnapshot.Snapshot snapshot = (binary ? eventsBinarySnapshot : eventsSnapshot)
+                .get(eventService.getAllEvents());
+            response.header("ETag", snapshot.getETag());
+            response.header("Cache-Control", "no-cache");
+            response.header("Vary", "Accept");
+            response.type(binary ? EventCodec.MEDIA_TYPE : "application/json");
+            if (snapshot.matches(request.headers("If-None-Match"))) {
+                response.status(304);
+                return "";
+            }
+            return snapshot.getBytes();
+        }));
+
+        /**
+         * POST /api/events/batch
+         * Creates many events (JSON array, or an EventCodec list sent as
+         * application/x-eventreg-bin) in one transaction.
+         * PUT /api/events/batch updates many events (each with its eventId) and
+         * DELETE /api/events/batch deletes a JSON array of event IDs.
+         * All three answer with a per-item result list.
+         */
+        post("/api/events/batch", timed("POST /api/events/batch", (request, response) -> {
+            response.type("application/json");
+            List<Event> events = parseEventBatch(request);
+            if (events == null) return badBatch(response);
+            return GSON.toJson(eventService.createEvents(events));
+        }));
+
+        put("/api/events/batch", timed("PUT /api/events/batch", (request, response) -> {
+            response.type("application/json");
+            List<Event> events = parseEventBatch(request);
+            if (events == null) return badBatch(response);
+            return GSON.toJson(eventService.updateEvents(events));
+        }));
+
+        delete("/api/events/batch", timed("DELETE /api/events/batch", (request, response) -> {
+            response.type("application/json");
+            List<Integer> ids = parseBatch(request.body(), ID_LIST_TYPE);
+            if (ids == null) return badBatch(response);
+            return GSON.toJson(eventService.deleteEvents(ids));
+        }));
+
+        /**
+         * GET /api/events/search?q=...
+         * Ranked events whose title or location contains every word of q, the last word
+         * also as a prefix, from the in-memory search index. Takes the from, to, minFee and
+         * maxFee filters of GET /api/events and a limit (default 20, at most 100).
+         * Returns {"items": [...]}.
+         */
+        get("/api/events/search", timed("GET /api/events/search", (request, response) -> {
+            response.type("application/json");
+            String q = request.queryParams("q");
+            if (q == null || q.isBlank()) {
+                response.status(400);
+                return "{\"error\": \"Query parameter q is required\"}";
+            }
+            EventQuery filter;
+            try {
+                filter = parseEventQuery(request);
+            } catch (IllegalArgumentException e) {
+                response.status(400);
+                return "{\"error\": \"" + e.getMessage() + "\"}";
+            }
+            if (request.queryParams("limit") == null) filter.setLimit(EventSearchIndex.DEFAULT_LIMIT);
+            return GSON.toJson(new Page<>(searchIndex.search(q, filter), null));
+        }));
+
+        /**
+         * GET /api/events/changes
+         * Server-Sent Events stream of created, updated and deleted events. A reconnecting
+         * client's Last-Event-ID (or ?lastEventId=) resumes after the last change it saw.
+         */
+        get("/api/events/changes", timed("GET /api/events/changes", (request, response) -> {
+            String lastEventId = request.headers("Last-Event-ID");
+            if (lastEventId == null) lastEventId = request.queryParams("lastEventId");
+            changeFeed.subscribe(request.raw(), response.raw(), lastEventId);
+            return "";
+        }));
+
+        /**
+         * GET /api/events/export
+         * Streams every event straight from the database as a JSON array,
+         * or as newline-delimited JSON with ?format=ndjson.
+         */
+        get("/api/events/export", timed("GET /api/events/export", (request, response) -> {
+            EventExporter.Format format = "ndjson".equalsIgnoreCase(request.queryParams("format"))
+                ? EventExporter.Format.NDJSON : EventExporter.Format.JSON;
+            response.type(format.getContentType());
+            try {
+                EXPORTED_EVENTS.add(eventExporter.export(response.raw().getOutputStream(), format));
+            } catch (SQLException e) {
+                // Headers are already sent once rows are streaming, so only log it
+                System.err.println("Export failed: " + e.getMessage());
+            }
+            return "";
+        }));
+
         /**
          * POST /api/events
          * Creates a new event based on JSON request body.
          */
-        post("/api/events", (request, response) -> {
+        post("/api/events", dbTimed("POST /api/events", (request, response) -> {
             Event newEvent = GSON.fromJson(request.body(), Event.class);
             eventService.createEvent(newEvent);
             return "{\"status\": \"success\"}"; 
-        });
+        }));
+
+        /**
+         * POST /api/events/:id/registrations
+         * Registers the logged-in user for an event if a seat is still free, otherwise
+         * puts them on the event's waitlist (202 with their position). A body of
+         * {"userId": 3} must name the session's own user (403 otherwise); only the
+         * admin may register someone else, and must name them.
+         */
+        post("/api/events/:id/registrations", dbTimed("POST /api/events/:id/registrations", (request, response) -> {
+            response.type("application/json");
+            try {
+                int eventId = Integer.parseInt(request.params(":id"));
+                RegistrationRequest body = GSON.fromJson(request.body(), RegistrationRequest.class);
+                SessionTokens.Session session = request.attribute("session");
+                int userId = body != null && body.userId > 0 ? body.userId : session.getUserId();
+                if (userId <= 0) {
+                    response.status(400);
+                    return "{\"error\": \"userId is required\"}";
+                }
+                if (!mayActFor(session, userId)) {
+                    response.status(403);
+                    return "{\"error\": \"Not allowed to register another user\"}";
+                }
+
+                // Nobody may take a seat ahead of users already on the waitlist
+                RegistrationEngine.Result result = waitlist.hasWaiting(eventId)
+                    && !registrationEngine.isRegistered(userId, eventId)
+                    ? RegistrationEngine.Result.SOLD_OUT
+                    : registrationEngine.registerAsync(userId, eventId).join();
+
+                switch (result) {
+                    case REGISTERED:
+                        response.status(201);
+                        return "{\"status\": \"registered\"}";
+                    case ALREADY_REGISTERED:
+                        response.status(409);
+                        return "{\"error\": \"User is already registered for this event\"}";
+                    case SOLD_OUT:
+                        return joinWaitlist(waitlist, response, userId, eventId);
+                    case EVENT_NOT_FOUND:
+                        response.status(404);
+                        return "{\"error\": \"Event ID " + eventId + " not found\"}";
+                    case USER_NOT_FOUND:
+                        response.status(404);
+                        return "{\"error\": \"User ID " + userId + " not found\"}";
+                    case BUSY:
+                        response.status(503);
+                        response.header("Retry-After", "1");
+                        return "{\"error\": \"Too many registrations in progress, please retry\"}";
+                    default:
+                        response.status(500);
+                        return "{\"error\": \"Registration failed\"}";
+                }
+            } catch (NumberFormatException | JsonSyntaxException e) {
+                response.status(400);
+                return "{\"error\": \"Invalid event ID or request body\"}";
+            } catch (Exception e) {
+                // Database or engine failure: a server fault, counted as an error by timed()
+                System.err.println("Registration Error for event " + request.params(":id") + ": " + e);
+                response.status(500);
+                return "{\"error\": \"Registration failed\"}";
+            }
+        }));
+
+        /**
+         * DELETE /api/events/:id/registrations/:userId
+         * Cancels a registration (or leaves the waitlist). A freed seat is offered
+         * to the waitlist by a background promotion. Users may only cancel their own
+         * (403 otherwise); the admin may cancel anyone's.
+         */
+        delete("/api/events/:id/registrations/:userId", dbTimed("DELETE /api/events/:id/registrations/:userId", (request, response) -> {
+            response.type("application/json");
+            try {
+                int eventId = Integer.parseInt(request.params(":id"));
+                int userId = Integer.parseInt(request.params(":userId"));
+                if (!mayActFor(request.attribute("session"), userId)) {
+                    response.status(403);
+                    return "{\"error\": \"Not allowed to cancel for another user\"}";
+                }
+                if (registrationEngine.cancel(userId, eventId)) {
+                    waitlist.schedulePromotion(eventId);
+                    return "{\"status\": \"cancelled\"}";
+                }
+                if (waitlist.leave(userId, eventId)) {
+                    return "{\"status\": \"left waitlist\"}";
+                }
+                response.status(404);
+                return "{\"error\": \"No registration found\"}";
+            } catch (Exception e) {
+                response.status(500);
+                return "{\"error\": \"" + e.getMessage() + "\"}";
+            }
+        }));
+
+        /**
+         * GET /api/events/:id/waitlist
+         * Returns how many users are waiting, or with ?userId= that user's position.
+         */
+        get("/api/events/:id/waitlist", dbTimed("GET /api/events/:id/waitlist", (request, response) -> {
+            response.type("application/json");
+            try {
+                int eventId = Integer.parseInt(request.params(":id"));
+                String userParam = request.queryParams("userId");
+                if (userParam == null) {
+                    return "{\"waiting\": " + waitlist.size(eventId) + "}";
+                }
+                int position = waitlist.position(Integer.parseInt(userParam), eventId);
+                if (position < 0) {
+                    response.status(404);
+                    return "{\"error\": \"User is not on the waitlist\"}";
+                }
+                return "{\"position\": " + position + "}";
+            } catch (Exception e) {
+                response.status(500);
+                return "{\"error\": \"" + e.getMessage() + "\"}";
+            }
+        }));
+
+        /**
+         * GET /api/events/:id/attendees/count
+         * Returns how many users are registered for the event, from the registration index.
+         */
+        get("/api/events/:id/attendees/count", timed("GET /api/events/:id/attendees/count", (request, response) -> {
+            response.type("application/json");
+            try {
+                int eventId = Integer.parseInt(request.params(":id"));
+                return "{\"attendees\": " + registrationIndex.attendeeCount(eventId) + "}";
+            } catch (NumberFormatException e) {
+                response.status(400);
+                return "{\"error\": \"Invalid event ID\"}";
+            }
+        }));
+
+        /**
+         * GET /api/events/:id/attendees?limit=&cursor=
+         * Returns a keyset page of the event's attendee user IDs in ascending order as
+         * {"items": [...], "nextCursor": "..."}; pass nextCursor back to get the next page.
+         */
+        get("/api/events/:id/attendees", timed("GET /api/events/:id/attendees", (request, response) -> {
+            response.type("application/json");
+            int eventId;
+            int limit;
+            int after;
+            try {
+                eventId = Integer.parseInt(request.params(":id"));
+                String limitParam = request.queryParams("limit");
+                String cursorParam = request.queryParams("cursor");
+                limit = limitParam == null ? DEFAULT_ATTENDEE_PAGE : Integer.parseInt(limitParam);
+                after = cursorParam == null ? 0 : Integer.parseInt(cursorParam);
+            } catch (NumberFormatException e) {
+                response.status(400);
+                return "{\"error\": \"Invalid query parameter: " + e.getMessage() + "\"}";
+            }
+            if (limit < 1 || limit > MAX_ATTENDEE_PAGE) {
+                response.status(400);
+                return "{\"error\": \"limit must be between 1 and " + MAX_ATTENDEE_PAGE + "\"}";
+            }
+            int[] userIds = registrationIndex.attendees(eventId, after, limit + 1);
+            boolean more = userIds.length > limit;
+            StringBuilder json = new StringBuilder(32 + userIds.length * 8).append("{\"items\": ");
+            appendIds(json, userIds, Math.min(limit, userIds.length));
+            json.append(", \"nextCursor\": ");
+            if (more) {
+                json.append('"').append(userIds[limit - 1]).append('"');
+            } else {
+                json.append("null");
+            }
+            return json.append('}').toString();
+        }));
+
+        /**
+         * GET /api/users/:userId/events
+         * Returns the IDs of the events a user is registered for, from the registration index.
+         */
+        get("/api/users/:userId/events", timed("GET /api/users/:userId/events", (request, response) -> {
+            response.type("application/json");
+            try {
+                int userId = Integer.parseInt(request.params(":userId"));
+                int[] eventIds = registrationIndex.eventsOf(userId);
+                StringBuilder json = new StringBuilder(16 + eventIds.length * 8).append("{\"eventIds\": ");
+                appendIds(json, eventIds, eventIds.length);
+                return json.append('}').toString();
+            } catch (NumberFormatException e) {
+                response.status(400);
+                return "{\"error\": \"Invalid user ID\"}";
+            }
+        }));
 
         /**
          * POST /api/signup
          * Registers a new user in the database.
          */
-        post("/api/signup", (request, response) -> {
+        post("/api/signup", timed("POST /api/signup", (request, response) -> {
             try {
                 User newUser = GSON.fromJson(request.body(), User.class);
+                if (newUser.getPassword() == null || newUser.getPassword().isEmpty()) {
+                    response.status(400);
+                    return "{\"error\": \"password is required\"}";
+                }
+                if (newUser.getUsername() != null && ADMIN_USERNAME.equals(UsernameFilter.normalize(newUser.getUsername()))) {
+                    response.status(400);
+                    return "{\"error\": \"username is reserved\"}";
+                }
+                // Only the PBKDF2 hash is stored, never the password itself
+                newUser.setPassword(passwordHasher.hash(newUser.getPassword()).join());
                 userDAO.saveUser(newUser); 
                 return "{\"status\": \"success\"}";
+            } catch (CompletionException e) {
+                return hasherBusy(response, e);
             } catch (Exception e) {
                 response.status(500);
                 return "{\"error\": \"" + e.getMessage() + "\"}";
             }
-        });
+        }));
 
         /**
          * POST /api/login
-         * Authenticates a user against hardcoded admin credentials or the database.
+         * Authenticates the configured admin account (see ADMIN_PASSWORD_HASH) or a user in the database.
          */
-        post("/api/login", (request, response) -> {
+        post("/api/login", timed("POST /api/login", (request, response) -> {
             try {
                 User attempt = GSON.fromJson(request.body(), User.class);
                 
-                // Check for hardcoded admin first
-                if ("admin".equals(attempt.getUsername()) && "1234".equals(attempt.getPassword())) {
-                    return "{\"status\": \"success\"}";
+                // Check for the admin account first, if one is configured
+                if (ADMIN_PASSWORD_HASH != null && ADMIN_USERNAME.equals(attempt.getUsername())) {
+                    if (passwordHasher.verify(ADMIN_USERNAME, attempt.getPassword(), ADMIN_PASSWORD_HASH).join().matches()) {
+                        return loggedIn(ADMIN_USERNAME, ADMIN_USER_ID);
+                    }
+                    audit(AuditLog.Type.LOGIN_FAILED, ADMIN_USER_ID, attempt.getUsername());
+                    response.status(401);
+                    return "{\"error\": \"Invalid username or password\"}";
                 }
                 
                 // Otherwise, check the database
                 User existingUser = userDAO.findByUsername(attempt.getUsername());
-                if (existingUser != null && existingUser.getPassword().equals(attempt.getPassword())) {
-                    return "{\"status\": \"success\"}";
+                if (existingUser != null) {
+                    PasswordHasher.Verification verification = passwordHasher
+                        .verify(existingUser.getUsername(), attempt.getPassword(), existingUser.getPassword()).join();
+                    if (verification.matches()) {
+                        if (verification.needsRehash()) {
+                            rehash(existingUser.getUsername(), attempt.getPassword());
+                        }
+                        return loggedIn(existingUser.getUsername(), existingUser.getUserId());
+                    }
                 }
                 
+                audit(AuditLog.Type.LOGIN_FAILED, existingUser != null ? existingUser.getUserId() : 0, attempt.getUsername());
                 response.status(401);
                 return "{\"error\": \"Invalid username or password\"}";
+            } catch (CompletionException e) {
+                return hasherBusy(response, e);
             } catch (Exception e) {
                 response.status(500);
                 return "{\"error\": \"Server Error: " + e.getMessage() + "\"}";
             }
-        });
+        }));
+
+        /**
+         * POST /api/logout
+         * Revokes the caller's session token.
+         */
+        post("/api/logout", timed("POST /api/logout", (request, response) -> {
+            response.type("application/json");
+            SessionTokens.Session session = sessionTokens.validate(bearerToken(request));
+            if (session == null) {
+                response.status(401);
+                return "{\"error\": \"Not logged in\"}";
+            }
+            sessionTokens.revoke(session);
+            audit(AuditLog.Type.LOGOUT, session.getUserId(), session.getUsername());
+            return "{\"status\": \"logged out\"}";
+        }));
 
         /**
          * PUT /api/events/:id
          * Updates an existing event by its ID.
          */
-        put("/api/events/:id", (request, response) -> {
+        put("/api/events/:id", dbTimed("PUT /api/events/:id", (request, response) -> {
             try {
                 int urlId = Integer.parseInt(request.params(":id"));
                 Event updatedEvent = GSON.fromJson(request.body(), Event.class); 
@@ -137,25 +641,452 @@ public class EventAPI {
                 response.status(500);
                 return "{\"error\": \"" + e.getMessage() + "\"}";
             }
-        });
+        }));
 
         /**
          * DELETE /api/events/:id
          * Deletes an event by its unique ID.
          */
-        delete("/api/events/:id", (request, response) -> {
+        delete("/api/events/:id", dbTimed("DELETE /api/events/:id", (request, response) -> {
             int eventId = Integer.parseInt(request.params(":id"));
             if (eventService.deleteEvent(eventId)) {
                 return "{\"message\": \"Deleted\"}";
             }
             return "{\"error\": \"Failed\"}";
-        });
+        }));
+
+        awaitInitialization();
+        ready = true;
+        if (WARMUP_EXIT) {
+            System.out.println("Warm-up done, exiting (-Deventreg.warmup.exit=true)");
+            System.exit(0);
+        }
 
-        // 4. Utility: Auto-open the browser on startup
+        // 4. Utility: Auto-open the browser on startup (-Deventreg.openBrowser=false to skip)
+        if (!Boolean.parseBoolean(System.getProperty("eventreg.openBrowser", "true"))) {
+            return;
+        }
         try {
-            Runtime.getRuntime().exec("rundll32 url.dll,FileProtocolHandler http://localhost:5000/index.html");
+            new ProcessBuilder("rundll32", "url.dll,FileProtocolHandler", "http://localhost:" + PORT + "/index.html").start();
         } catch (Exception e) {
-            System.out.println("Visit: http://localhost:5000/index.html");
+            System.out.println("Visit: http://localhost:" + PORT + "/index.html");
+        }
+    }
+
+    /** Latency of all HTTP requests; per-route timers are added by {@link #timed}. */
+    private static final Metrics.Timer HTTP_TIMER = Metrics.timer("eventreg_http_server_request", "route", "all");
+
+    /** Responses by status class, indexed by status / 100 (index 0 for anything unexpected). */
+    private static final Metrics.Counter[] HTTP_STATUS = {
+        Metrics.counter("eventreg_http_responses_total", "status", "other"),
+        Metrics.counter("eventreg_http_responses_total", "status", "1xx"),
+        Metrics.counter("eventreg_http_responses_total", "status", "2xx"),
+        Metrics.counter("eventreg_http_responses_total", "status", "3xx"),
+        Metrics.counter("eventreg_http_responses_total", "status", "4xx"),
+        Metrics.counter("eventreg_http_responses_total", "status", "5xx")
+    };
+
+    /**
+     * Start time of the request being handled on this thread, reused to avoid boxing a Long per request.
+     * In virtual thread mode every request has a fresh thread, so this is one small array per request.
+     */
+    private static final ThreadLocal<long[]> REQUEST_START = ThreadLocal.withInitial(() -> new long[1]);
+
+    /**
+     * Wraps a route so its latency, errors (status 5xx or an exception) and in-flight
+     * count are recorded under the given name.
+     */
+    private static Route timed(String name, Route route) {
+        Metrics.Timer timer = Metrics.timer("eventreg_http_request", "route", name);
+        return (request, response) -> {
+            long start = timer.start();
+            try {
+                Object body = route.handle(request, response);
+                if (response.status() >= 500) timer.error();
+                return body;
+            } catch (Exception e) {
+                timer.error();
+                throw e;
+            } finally {
+                timer.stop(start);
+            }
+        };
+    }
+
+    /**
+     * Like {@link #timed}, and also sheds the route while the database is overloaded and
+     * feeds the load shedder's latency histogram. For routes that are normally short and
+     * spend their time on the database; not for exports, batches, password hashing or
+     * streams, which are slow by design. Routes that never touch the database (/api/ready,
+     * logout, search, the in-memory indexes) are never shed.
+     */
+    private static Route dbTimed(String name, Route route) {
+        return timed(name, shedding(RATE_LIMITS_ENABLED ? loadShedder : null, (request, response) -> {
+            long start = System.nanoTime();
+            try {
+                return route.handle(request, response);
+            } finally {
+                SHED_LATENCY.record(System.nanoTime() - start);
+            }
+        }));
+    }
+
+    /** Answers 503 instead of running the route while the shedder (if any) reports overload. */
+    static Route shedding(LoadShedder shedder, Route route) {
+        if (shedder == null) return route;
+        return (request, response) -> {
+            if (shedder.isOverloaded()) {
+                SHED.increment();
+                reject(response, 503, 1, "Server is overloaded, please retry");
+            }
+            return route.handle(request, response);
+        };
+    }
+
+    /** Exposes connection pool and event cache state at GET /metrics. */
+    private static void registerGauges() {
+        ConnectionPool pool = DatabaseConnection.getPool();
+        Metrics.gauge("eventreg_db_pool_active", "Connections currently borrowed", pool::getActiveCount);
+        Metrics.gauge("eventreg_db_pool_idle", "Open connections sitting in the pool", pool::getIdleCount);
+        Metrics.gauge("eventreg_db_pool_waiting", "Threads waiting for a connection", pool::getWaitingCount);
+        Metrics.gauge("eventreg_db_pool_max", "Maximum pool size", pool::getMaxSize);
+        EventCache cache = eventService.getCache();
+        Metrics.gauge("eventreg_event_cache_hits", "Event cache hits", cache::getHitCount);
+        Metrics.gauge("eventreg_event_cache_misses", "Event cache misses", cache::getMissCount);
+        Metrics.gauge("eventreg_event_cache_evictions", "Event cache evictions", cache::getEvictionCount);
+        Metrics.gauge("eventreg_event_cache_size", "Events held in the cache", cache::size);
+        Metrics.gauge("eventreg_feed_streams", "Connected change feed streams", changeFeed::getStreamCount);
+        Metrics.gauge("eventreg_ratelimit_clients", "Clients with a rate limit bucket",
+            () -> readLimiter.size() + writeLimiter.size() + authLimiter.size());
+        Metrics.gauge("eventreg_http_recent_p99_microseconds",
+            "p99 latency of database-bound requests over the last second",
+            () -> loadShedder.getRecentP99Nanos() / 1000);
+        Metrics.gauge("eventreg_session_revoked", "Revoked session tokens not yet expired",
+            sessionTokens::getRevokedCount);
+        Metrics.gauge("eventreg_password_hash_queue_depth", "Password hashes waiting for a thread",
+            passwordHasher::getQueueDepth);
+        Metrics.gauge("eventreg_password_cache_hits", "Logins verified from the cache", passwordHasher::getCacheHitCount);
+        if (auditLog != null) {
+            Metrics.gauge("eventreg_audit_backlog", "Audit records waiting for the writer", auditLog::getBacklog);
+        }
+        Metrics.gauge("eventreg_registration_index_size", "Registrations held in the registration index",
+            registrationIndex::size);
+        Metrics.gauge("eventreg_search_index_events", "Events held in the search index", searchIndex::size);
+        Metrics.gauge("eventreg_user_cache_hits", "Username lookups answered from the cache", userCache::getHitCount);
+        Metrics.gauge("eventreg_user_cache_filtered", "Unknown usernames rejected without a query",
+            userCache::getFilteredCount);
+        if (registrationWriter != null) {
+            Metrics.gauge("eventreg_registration_queue_depth", "Registrations waiting for group commit",
+                registrationWriter::getQueueDepth);
+        }
+    }
+
+    /** Per-client limits, set with -Deventreg.ratelimit.{read,write,auth}.{perSecond,burst}. */
+    private static final boolean RATE_LIMITS_ENABLED =
+        Boolean.parseBoolean(System.getProperty("eventreg.ratelimit.enabled", "true"));
+    private static final int RATE_LIMIT_MAX_CLIENTS = Integer.getInteger("eventreg.ratelimit.maxClients", 100_000);
+    private static final RateLimiter readLimiter = rateLimiter("read", 50, 100);
+    private static final RateLimiter writeLimiter = rateLimiter("write", 10, 20);
+    private static final RateLimiter authLimiter = rateLimiter("auth", 1, 5);
+
+    /** Latency of the routes mapped with {@link #dbTimed}, watched by the load shedder. */
+    private static final Metrics.Histogram SHED_LATENCY = new Metrics.Histogram();
+
+    /**
+     * Sheds database-bound routes while the database queue or their recent p99 is over
+     * -Deventreg.shed.* limits; seconds with fewer than minSamples requests are ignored.
+     */
+    private static final LoadShedder loadShedder = new LoadShedder(DatabaseConnection.getPool(),
+        SHED_LATENCY,
+        Integer.getInteger("eventreg.shed.maxDbWaiting", 50),
+        Long.getLong("eventreg.shed.maxP99Ms", 2000),
+        Integer.getInteger("eventreg.shed.minSamples", 20)).start();
+
+    private static final Metrics.Counter RATE_LIMITED =
+        Metrics.counter("eventreg_http_rejected_total", "reason", "rate_limit");
+    private static final Metrics.Counter SHED = Metrics.counter("eventreg_http_rejected_total", "reason", "overload");
+    private static final Metrics.Counter EXPORTED_EVENTS = Metrics.counter("eventreg_events_exported_total", null, null);
+
+    private static RateLimiter rateLimiter(String routeClass, int perSecond, int burst) {
+        String prefix = "eventreg.ratelimit." + routeClass + ".";
+        return new RateLimiter(Double.parseDouble(System.getProperty(prefix + "perSecond", String.valueOf(perSecond))),
+            Integer.getInteger(prefix + "burst", burst), RATE_LIMIT_MAX_CLIENTS).start();
+    }
+
+    /**
+     * Answers 429 when the client (its user if it sends a valid session token, otherwise
+     * its IP address) has used up its budget for the route class.
+     */
+    private static void admit(spark.Request request, spark.Response response) {
+        String path = request.pathInfo();
+        String method = request.requestMethod();
+        RateLimiter limiter;
+        if (path.equals("/api/login") || path.equals("/api/signup") || path.equals("/api/logout")) {
+            limiter = authLimiter;
+        } else if ("GET".equals(method) || "HEAD".equals(method)) {
+            limiter = readLimiter;
+        } else if ("OPTIONS".equals(method)) {
+            return;
+        } else {
+            limiter = writeLimiter;
+        }
+
+        SessionTokens.Session session = sessionTokens.validate(bearerToken(request));
+        String client = session != null ? "user:" + session.getUsername() : request.ip();
+        long waitNanos = limiter.tryAcquire(client);
+        if (waitNanos > 0) {
+            RATE_LIMITED.increment();
+            reject(response, 429, Math.max(1, (waitNanos + 999_999_999) / 1_000_000_000), "Too many requests");
+        }
+    }
+
+    private static void reject(spark.Response response, int status, long retryAfterSeconds, String message) {
+        response.type("application/json");
+        response.header("Retry-After", String.valueOf(retryAfterSeconds));
+        halt(status, "{\"error\": \"" + message + "\"}");
+    }
+
+    /** Answers a registration for a sold-out event by putting the user on its waitlist (202). */
+    static String joinWaitlist(Waitlist waitlist, spark.Response response, int userId, int eventId) throws SQLException {
+        int position = waitlist.join(userId, eventId);
+        switch (position) {
+            case Waitlist.ALREADY_REGISTERED:
+                response.status(409);
+                return "{\"error\": \"User is already registered for this event\"}";
+            case Waitlist.EVENT_NOT_FOUND:
+                response.status(404);
+                return "{\"error\": \"Event ID " + eventId + " not found\"}";
+            case Waitlist.USER_NOT_FOUND:
+                response.status(404);
+                return "{\"error\": \"User ID " + userId + " not found\"}";
+            default:
+                response.status(202);
+                return "{\"status\": \"waitlisted\", \"position\": " + position + "}";
+        }
+    }
+
+    /** Login response carrying a new session token. */
+    private static String loggedIn(String username, int userId) {
+        audit(AuditLog.Type.LOGIN, userId, username);
+        return "{\"status\": \"success\", \"token\": \"" + sessionTokens.issue(username, userId)
+            + "\", \"expiresIn\": " + Long.getLong("eventreg.session.ttlSeconds", 3600) + "}";
+    }
+
+    // The admin's user ID is 0, which the audit log reads as "no user"; its username still tells it apart
+    private static void audit(AuditLog.Type type, int userId, String username) {
+        if (auditLog != null) auditLog.record(type, 0, userId, username);
+    }
+
+    private static AuditLog openAuditLog() {
+        if (!Boolean.parseBoolean(System.getProperty("eventreg.audit.enabled", "true"))) return null;
+        Path directory = Paths.get(System.getProperty("eventreg.audit.dir", "data/audit"));
+        try {
+            return AuditLog.open(directory,
+                Integer.getInteger("eventreg.audit.capacity", 65_536),
+                Integer.getInteger("eventreg.audit.segmentBytes", 64 << 20),
+                Integer.getInteger("eventreg.audit.maxSegments", 0),
+                AuditLog.FsyncPolicy.valueOf(System.getProperty("eventreg.audit.fsync", "interval").toUpperCase()),
+                Long.getLong("eventreg.audit.fsyncMs", 1000));
+        } catch (IOException e) {
+            System.err.println("Audit log disabled, cannot write " + directory + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** Halts with 401 unless a write request carries a valid session token. */
+    private static void requireSession(spark.Request request, spark.Response response) {
+        String method = request.requestMethod();
+        if ("GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method)) return;
+
+        SessionTokens.Session session = sessionTokens.validate(bearerToken(request));
+        if (session == null) {
+            response.type("application/json");
+            response.header("WWW-Authenticate", "Bearer");
+            halt(401, "{\"error\": \"Login required\"}");
+        }
+        request.attribute("session", session);
+    }
+
+    /** User ID in the sessions of the built-in admin account, which has no users row. */
+    private static final int ADMIN_USER_ID = 0;
+    private static final String ADMIN_USERNAME = "admin";
+
+    /**
+     * PBKDF2 hash of the admin password from -Deventreg.admin.passwordHash (print one with
+     * {@code java eventreg2.PasswordHasher <password>}). The admin may act for any user, so
+     * there is no default: without the property, or with a value that is not a PBKDF2 hash,
+     * admin login is disabled.
+     */
+    private static final String ADMIN_PASSWORD_HASH = adminPasswordHash();
+
+    private static String adminPasswordHash() {
+        String hash = System.getProperty("eventreg.admin.passwordHash");
+        if (hash == null || hash.isEmpty()) return null;
+        if (!PasswordHasher.isHash(hash)) {
+            System.err.println("Admin login disabled: eventreg.admin.passwordHash is not a PBKDF2 hash");
+            return null;
+        }
+        return hash;
+    }
+
+    /** True if the session may register, waitlist or cancel for the user: its own user, or anyone for the admin. */
+    private static boolean mayActFor(SessionTokens.Session session, int userId) {
+        return session.getUserId() == userId || session.getUserId() == ADMIN_USER_ID;
+    }
+
+    private static String bearerToken(spark.Request request) {
+        String header = request.headers("Authorization");
+        return header != null && header.startsWith("Bearer ") ? header.substring(7).trim() : null;
+    }
+
+    /**
+     * Stores a fresh hash for a password stored in plaintext or with an old cost.
+     * Runs in the background and is best-effort: the login neither waits for it nor
+     * fails with it, and a busy hasher just leaves the upgrade to the next login.
+     */
+    private static void rehash(String username, String password) {
+        passwordHasher.hash(password).thenAccept(hash -> {
+            try {
+                userDAO.updatePassword(username, hash);
+            } catch (SQLException e) {
+                System.err.println("Password rehash failed for " + username + ": " + e.getMessage());
+            }
+        }).exceptionally(e -> {
+            System.err.println("Password rehash skipped for " + username + ": " + e.getMessage());
+            return null;
+        });
+    }
+
+    /** Answers 503 when the hashing queue is full, 500 for any other hashing failure. */
+    private static String hasherBusy(spark.Response response, CompletionException e) {
+        if (e.getCause() instanceof RejectedExecutionException) {
+            response.status(503);
+            response.header("Retry-After", "1");
+            return "{\"error\": \"Server busy, please retry\"}";
+        }
+        response.status(500);
+        return "{\"error\": \"Server Error: " + e.getCause().getMessage() + "\"}";
+    }
+
+    /** Largest number of items accepted in one batch request. */
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final Type EVENT_LIST_TYPE = new TypeToken<List<Event>>() {}.getType();
+    private static final Type ID_LIST_TYPE = new TypeToken<List<Integer>>() {}.getType();
+
+    /** Parses a batch body, returning null if it is not a JSON array of acceptable size. */
+    private static <T> List<T> parseBatch(String body, Type type) {
+        try {
+            List<T> items = GSON.fromJson(body, type);
+            if (items == null || items.isEmpty() || items.size() > MAX_BATCH_SIZE) return null;
+            return items;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /** Parses an event batch sent as JSON or, by Content-Type, in the binary EventCodec format. */
+    private static List<Event> parseEventBatch(spark.Request request) {
+        if (!EventCodec.isBinary(request.contentType())) return parseBatch(request.body(), EVENT_LIST_TYPE);
+        try {
+            List<Event> events = EventCodec.decode(request.bodyAsBytes());
+            return events.isEmpty() || events.size() > MAX_BATCH_SIZE ? null : events;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String badBatch(spark.Response response) {
+        response.status(400);
+        return "{\"error\": \"Expected a JSON array of 1 to " + MAX_BATCH_SIZE + " items\"}";
+    }
+
+    private static final int DEFAULT_ATTENDEE_PAGE = 100;
+    private static final int MAX_ATTENDEE_PAGE = 10_000;
+
+    /** Appends the first count IDs as a JSON array. */
+    private static void appendIds(StringBuilder json, int[] ids, int count) {
+        json.append('[');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) json.append(',');
+            json.append(ids[i]);
+        }
+        json.append(']');
+    }
+
+    /**
+     * Prepares statements on every pool connection, loads the event list and both of its
+     * snapshots, and exercises JSON and binary serialization. Failures are logged; the
+     * server still starts, only colder.
+     */
+    private static void warmUp() {
+        long start = System.currentTimeMillis();
+        try {
+            int connections = StartupWarmup.prepareStatements(DatabaseConnection.getPool().getMaxSize());
+            System.out.println("Warm-up: statements prepared on " + connections + " connections");
+        } catch (SQLException e) {
+            System.err.println("Warm-up: preparing statements failed: " + e.getMessage());
+        }
+        List<Event> events = eventService.getAllEvents();
+        eventsSnapshot.get(events);
+        eventsBinarySnapshot.get(events);
+        StartupWarmup.serialization(GSON, events, WARMUP_ITERATIONS);
+        System.out.println("Warm-up: " + events.size() + " events loaded, done in "
+            + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /** Loads every registration into the index; without a database the index starts empty. */
+    private static void loadRegistrationIndex() {
+        long start = System.currentTimeMillis();
+        try {
+            int loaded = registrationIndex.load(new RegistrationDAO()::forEachRegistration);
+            System.out.println("Registration index: " + loaded + " registrations loaded in "
+                + (System.currentTimeMillis() - start) + " ms");
+        } catch (SQLException e) {
+            System.err.println("Registration index load failed: " + e.getMessage());
+        }
+    }
+
+    /** Indexes every event for search; the list comes through the event cache, which warm-up then reuses. */
+    private static void loadSearchIndex() {
+        long start = System.currentTimeMillis();
+        List<Event> events = eventService.getAllEvents();
+        searchIndex.load(events);
+        System.out.println("Search index: " + events.size() + " events indexed in "
+            + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /** JSON body of a registration request. */
+    private static class RegistrationRequest {
+        int userId;
+    }
+
+    /** Query parameters that switch GET /api/events from the full list to a paged listing. */
+    private static final String[] PAGE_PARAMS = {"limit", "cursor", "from", "to", "location", "minFee", "maxFee"};
+
+    private static boolean isPageRequest(spark.Request request) {
+        for (String param : PAGE_PARAMS) {
+            if (request.queryParams(param) != null) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Builds an EventQuery from the request's query string.
+     * @throws IllegalArgumentException if a parameter cannot be parsed.
+     */
+    private static EventQuery parseEventQuery(spark.Request request) {
+        EventQuery query = new EventQuery();
+        try {
+            if (request.queryParams("limit") != null) query.setLimit(Integer.parseInt(request.queryParams("limit")));
+            if (request.queryParams("from") != null) query.setFromDate(LocalDate.parse(request.queryParams("from")));
+            if (request.queryParams("to") != null) query.setToDate(LocalDate.parse(request.queryParams("to")));
+            if (request.queryParams("minFee") != null) query.setMinFee(new BigDecimal(request.queryParams("minFee")));
+            if (request.queryParams("maxFee") != null) query.setMaxFee(new BigDecimal(request.queryParams("maxFee")));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid query parameter: " + e.getMessage());
         }
+        query.setLocation(request.queryParams("location"));
+        query.setCursor(request.queryParams("cursor"));
+        return query;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,86 @@
+package eventreg2;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Streaming JSON mapping for {@link Event}, replacing Gson's reflective one.
+ *
+ * <p>Writes the fields straight to the {@link JsonWriter} in declaration order
+ * ({@code eventId, title, date, location, capacity, fee}), leaves out null fields
+ * as Gson does, and leaves out {@code registeredAttendees} when it is empty, which
+ * it always is for events read from the database. Reading accepts the fields in any
+ * order and ignores unknown ones, so it takes the same JSON the reflective mapping did.</p>
+ */
+public class EventAdapter extends TypeAdapter<Event> {
+
+    private final TypeAdapter<LocalDate> dateAdapter = new LocalDateAdapter();
+    private final TypeAdapter<User> userAdapter = new UserAdapter();
+
+    @Override
+    public void write(JsonWriter out, Event event) throws IOException {
+        if (event == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("eventId").value(event.getEventId());
+        if (event.getTitle() != null) out.name("title").value(event.getTitle());
+        if (event.getDate() != null) {
+            out.name("date");
+            dateAdapter.write(out, event.getDate());
+        }
+        if (event.getLocation() != null) out.name("location").value(event.getLocation());
+        out.name("capacity").value(event.getCapacity());
+        // BigDecimal caches its decimal text, so a cached Event formats its fee only once
+        if (event.getFee() != null) out.name("fee").value(event.getFee());
+        if (event.getRegisteredAttendees() != null && !event.getRegisteredAttendees().isEmpty()) {
+            out.name("registeredAttendees").beginArray();
+            for (User user : event.getRegisteredAttendees()) {
+                userAdapter.write(out, user);
+            }
+            out.endArray();
+        }
+        out.endObject();
+    }
+
+    @Override
+    public Event read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        Event event = new Event(0, null, null, null, 0, null);
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "eventId": event.setEventId(in.nextInt()); break;
+                case "title": event.setTitle(in.nextString()); break;
+                case "date": event.setDate(dateAdapter.read(in)); break;
+                case "location": event.setLocation(in.nextString()); break;
+                case "capacity": event.setCapacity(in.nextInt()); break;
+                case "fee": event.setFee(new BigDecimal(in.nextString())); break;
+                case "registeredAttendees":
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        event.getRegisteredAttendees().add(userAdapter.read(in));
+                    }
+                    in.endArray();
+                    break;
+                default: in.skipValue();
+            }
+        }
+        in.endObject();
+        return event;
+    }
+}
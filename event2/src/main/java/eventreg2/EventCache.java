@@ -0,0 +1,163 @@
+package eventreg2;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read-through, in-memory cache of events used by {@link EventService}.
+ *
+ * <p>Single events and the full event list are cached separately, both with a TTL so
+ * changes made outside this process are eventually picked up. The single-event map is
+ * LRU and bounded. Every write invalidates the affected entries and bumps a generation
+ * counter; a load that started before a write is never stored, so a deleted or updated
+ * event cannot be put back into the cache by a slow concurrent reader.</p>
+ */
+public class EventCache {
+
+    /** Loads a value from the database on a cache miss. */
+    @FunctionalInterface
+    public interface Loader<T> {
+        T load() throws SQLException;
+    }
+
+    private static final class Entry<T> {
+        final T value;
+        final long loadedAt;
+
+        Entry(T value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final long ttlMillis;
+    private final int maxSize;
+
+    // Guarded by "this"
+    private final LinkedHashMap<Integer, Entry<Event>> byId;
+    private Entry<List<Event>> all;
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public EventCache(long ttlMillis, int maxSize) {
+        this.ttlMillis = ttlMillis;
+        this.maxSize = maxSize;
+        this.byId = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry<Event>> eldest) {
+                if (size() > EventCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached event, loading it on a miss.
+     * Missing events (loader returns null) are not cached.
+     */
+    public Event get(int id, Loader<Event> loader) throws SQLException {
+        long loadGeneration;
+        synchronized (this) {
+            Entry<Event> entry = byId.get(id);
+            if (entry != null) {
+                if (isFresh(entry)) {
+                    hits.increment();
+                    return entry.value;
+                }
+                byId.remove(id);
+                evictions.increment();
+            }
+            misses.increment();
+            loadGeneration = generation;
+        }
+
+        Event loaded = loader.load();
+
+        if (loaded != null) {
+            synchronized (this) {
+                if (generation == loadGeneration) {
+                    byId.put(id, new Entry<>(loaded, System.currentTimeMillis()));
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Returns the cached (unmodifiable) list of all events, loading it on a miss.
+     * A freshly loaded list also warms the single-event entries.
+     */
+    public List<Event> getAll(Loader<List<Event>> loader) throws SQLException {
+        long loadGeneration;
+        synchronized (this) {
+            if (all != null) {
+                if (isFresh(all)) {
+                    hits.increment();
+                    return all.value;
+                }
+                all = null;
+                evictions.increment();
+            }
+            misses.increment();
+            loadGeneration = generation;
+        }
+
+        List<Event> loaded = Collections.unmodifiableList(new ArrayList<>(loader.load()));
+
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                long now = System.currentTimeMillis();
+                all = new Entry<>(loaded, now);
+                for (Event event : loaded) {
+                    if (byId.size() >= maxSize) break;
+                    byId.put(event.getEventId(), new Entry<>(event, now));
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /** Drops one event and the full list after that event was created, updated or deleted. */
+    public synchronized void invalidate(int id) {
+        generation++;
+        byId.remove(id);
+        all = null;
+    }
+
+    /** Drops everything, e.g. after a bulk change. */
+    public synchronized void invalidateAll() {
+        generation++;
+        byId.clear();
+        all = null;
+    }
+
+    public long getHitCount() { return hits.sum(); }
+
+    public long getMissCount() { return misses.sum(); }
+
+    /** Entries dropped because they expired or the cache was full (not invalidations). */
+    public long getEvictionCount() { return evictions.sum(); }
+
+    public synchronized int size() { return byId.size(); }
+
+    @Override
+    public String toString() {
+        return "EventCache [hits=" + getHitCount() + ", misses=" + getMissCount()
+                + ", evictions=" + getEvictionCount() + ", size=" + size() + "]";
+    }
+
+    private boolean isFresh(Entry<?> entry) {
+        return System.currentTimeMillis() - entry.loadedAt < ttlMillis;
+    }
+}
@@ -0,0 +1,253 @@
+package eventreg2;
+
+import com.google.gson.Gson;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Pushes event changes to clients as Server-Sent Events.
+ *
+ * <p>Every create, update and delete reported by {@link EventService} becomes one SSE
+ * message ({@code created}, {@code updated} or {@code deleted}) with a sequence number
+ * as its {@code id}, kept in a ring buffer of the most recent changes. A client that
+ * reconnects with {@code Last-Event-ID} is sent what it missed from the buffer; if that
+ * is no longer there it gets a {@code reset} message and should reload the full list.</p>
+ *
+ * <p>Streams use asynchronous, non-blocking servlet output: no thread waits on a client.
+ * A new change schedules at most one drain task per stream on the feed's single thread,
+ * and the drain only writes while the connection can take data. A slow client just
+ * falls behind in the buffer, and is sent {@code reset} if it falls out of it.</p>
+ */
+public class EventChangeFeed implements EventChangeListener {
+
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] RETRY = "retry: 3000\n\n".getBytes(StandardCharsets.US_ASCII);
+
+    /** One buffered SSE message. */
+    static final class Change {
+        final long sequence;
+        final byte[] message;
+
+        Change(long sequence, byte[] message) {
+            this.sequence = sequence;
+            this.message = message;
+        }
+    }
+
+    private final Gson gson;
+    private final Change[] ring;
+    /** Sequence number of the newest change; guarded by this. */
+    private long head;
+
+    private final Set<Stream> streams = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "change-feed");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * @param gson Encodes the events in created and updated messages.
+     * @param capacity Number of recent changes kept for reconnecting clients.
+     * @param heartbeatSeconds How often idle streams get a comment line, so proxies and
+     *                         idle timeouts keep them open and dead clients are noticed.
+     */
+    public EventChangeFeed(Gson gson, int capacity, int heartbeatSeconds) {
+        this.gson = gson;
+        this.ring = new Change[capacity];
+        executor.scheduleAtFixedRate(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void eventCreated(Event event) {
+        publish("created", gson.toJson(event, Event.class));
+    }
+
+    @Override
+    public void eventUpdated(Event event) {
+        publish("updated", gson.toJson(event, Event.class));
+    }
+
+    @Override
+    public void eventDeleted(int eventId) {
+        publish("deleted", "{\"eventId\":" + eventId + "}");
+    }
+
+    /**
+     * Turns the request into an SSE stream. The response is committed and the request
+     * put into async mode, so the route must return without writing anything else.
+     * @param lastEventId The client's Last-Event-ID, or null to send only new changes.
+     */
+    public void subscribe(HttpServletRequest request, HttpServletResponse response, String lastEventId)
+            throws IOException {
+        long after;
+        try {
+            after = lastEventId == null ? -1 : Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            after = -1;
+        }
+
+        response.setContentType("text/event-stream; charset=utf-8");
+        response.setHeader("Cache-Control", "no-cache");
+        response.setHeader("X-Accel-Buffering", "no");
+        ServletOutputStream out = response.getOutputStream();
+        out.write(RETRY);
+        out.flush();
+
+        AsyncContext async = request.startAsync();
+        async.setTimeout(0);
+        Stream stream = new Stream(async, out, after < 0 ? latest() : after);
+        streams.add(stream);
+        async.addListener(stream);
+        out.setWriteListener(stream);
+    }
+
+    /** Number of connected streams. */
+    public int getStreamCount() {
+        return streams.size();
+    }
+
+    /** Sequence number of the newest change. */
+    public synchronized long latest() {
+        return head;
+    }
+
+    void publish(String type, String data) {
+        synchronized (this) {
+            long sequence = ++head;
+            byte[] message = ("id: " + sequence + "\nevent: " + type + "\ndata: " + data + "\n\n")
+                .getBytes(StandardCharsets.UTF_8);
+            ring[(int) (sequence % ring.length)] = new Change(sequence, message);
+        }
+        for (Stream stream : streams) {
+            stream.schedule();
+        }
+    }
+
+    /**
+     * The change after the given sequence number: null if there is none yet, or a
+     * reset up to the newest change if it is no longer buffered (or the sequence is
+     * from a previous run of the server).
+     */
+    synchronized Change next(long after) {
+        if (after == head) return null;
+        if (after > head || head - after > ring.length) {
+            return new Change(head, ("id: " + head + "\nevent: reset\ndata: {}\n\n").getBytes(StandardCharsets.UTF_8));
+        }
+        return ring[(int) ((after + 1) % ring.length)];
+    }
+
+    private void heartbeat() {
+        for (Stream stream : streams) {
+            stream.heartbeatDue = true;
+            stream.schedule();
+        }
+    }
+
+    /** One client connection. */
+    private final class Stream implements WriteListener, AsyncListener {
+        private final AsyncContext async;
+        private final ServletOutputStream out;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        /** Last sequence number written; guarded by this. */
+        private long sent;
+        private volatile boolean heartbeatDue;
+
+        Stream(AsyncContext async, ServletOutputStream out, long sent) {
+            this.async = async;
+            this.out = out;
+            this.sent = sent;
+        }
+
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(() -> {
+                    scheduled.set(false);
+                    drain();
+                });
+            }
+        }
+
+        @Override
+        public void onWritePossible() {
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            close();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            streams.remove(this);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+        /** Writes buffered changes until caught up or the connection cannot take more. */
+        private synchronized void drain() {
+            try {
+                boolean unflushed = false;
+                // Every write and flush is asynchronous; isReady() is false while one is in
+                // progress, and the container calls onWritePossible() when it completes.
+                while (out.isReady()) {
+                    Change change = next(sent);
+                    if (change != null) {
+                        out.write(change.message);
+                        sent = change.sequence;
+                        unflushed = true;
+                    } else if (heartbeatDue) {
+                        heartbeatDue = false;
+                        if (!unflushed) {
+                            out.write(HEARTBEAT);
+                            unflushed = true;
+                        }
+                    } else if (unflushed) {
+                        out.flush();
+                        unflushed = false;
+                    } else {
+                        return;
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+            }
+        }
+
+        private void close() {
+            if (streams.remove(this)) {
+                try {
+                    async.complete();
+                } catch (IllegalStateException e) {
+                    // Already completed by the container
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package eventreg2;
+
+/**
+ * Notified by {@link EventService} after an event write has succeeded.
+ * Lets other components keep derived state (seat counters, indexes, feeds) in sync
+ * without the service knowing about them. Implement only the callbacks you need.
+ */
+public interface EventChangeListener {
+
+    /** Called after a new event was saved; the event carries its generated ID. */
+    default void eventCreated(Event event) {}
+
+    /** Called after an existing event was updated. */
+    default void eventUpdated(Event event) {}
+
+    /** Called after an event and its registrations were deleted. */
+    default void eventDeleted(int eventId) {}
+}
@@ -0,0 +1,262 @@
+package eventreg2;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact binary encoding of event lists, served as {@value #MEDIA_TYPE} to clients
+ * that ask for it instead of JSON.
+ *
+ * <p>Layout: a version byte, the number of events as a varint, then one record per
+ * event. Each record starts with its length as a varint, so a reader can skip fields
+ * added by a later version, followed by:</p>
+ * <ul>
+ *   <li>eventId and capacity as unsigned varints,</li>
+ *   <li>a flags byte saying which of title, date, location and fee are present,</li>
+ *   <li>title and location as a varint byte length and UTF-8 bytes,</li>
+ *   <li>date as a zigzag varint of its epoch day,</li>
+ *   <li>fee as a varint scale and a zigzag varint of its unscaled value.</li>
+ * </ul>
+ * <p>Registered attendees are not part of the format; they are never filled in for
+ * events served by the API. Malformed input fails with {@link IllegalArgumentException}.</p>
+ */
+public final class EventCodec {
+
+    /** Media type used for content negotiation. */
+    public static final String MEDIA_TYPE = "application/x-eventreg-bin";
+
+    private static final int VERSION = 1;
+    private static final int HAS_TITLE = 1;
+    private static final int HAS_DATE = 2;
+    private static final int HAS_LOCATION = 4;
+    private static final int HAS_FEE = 8;
+
+    private EventCodec() {}
+
+    /**
+     * True if an Accept header asks for the binary format: it names {@value #MEDIA_TYPE}
+     * with a q above 0 and no JSON-matching range (application/json, application/* or
+     * *&#47;*) is weighted higher. Wildcards alone never select the binary format.
+     */
+    public static boolean accepts(String accept) {
+        if (accept == null) return false;
+        double binary = 0;
+        double json = 0;
+        for (String range : accept.split(",")) {
+            String[] parts = range.split(";");
+            String type = parts[0].trim().toLowerCase();
+            double q = quality(parts);
+            if (type.equals(MEDIA_TYPE)) {
+                binary = Math.max(binary, q);
+            } else if (type.equals("application/json") || type.equals("application/*") || type.equals("*/*")) {
+                json = Math.max(json, q);
+            }
+        }
+        return binary > 0 && binary >= json;
+    }
+
+    // The q parameter of a media range, 1 when absent and 0 when it does not parse
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String param = parts[i].trim();
+            if (param.length() > 1 && (param.charAt(0) == 'q' || param.charAt(0) == 'Q') && param.charAt(1) == '=') {
+                try {
+                    double q = Double.parseDouble(param.substring(2).trim());
+                    return q >= 0 && q <= 1 ? q : 0;
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /** True if a Content-Type header names the binary format. */
+    public static boolean isBinary(String contentType) {
+        return contentType != null && contentType.startsWith(MEDIA_TYPE);
+    }
+
+    public static byte[] encode(List<Event> events) {
+        Output out = new Output(events.size() * 48 + 8);
+        Output record = new Output(64);
+        out.write(VERSION);
+        out.writeVarint(events.size());
+        for (Event event : events) {
+            record.reset();
+            writeEvent(record, event);
+            out.writeVarint(record.size);
+            out.write(record.bytes, record.size);
+        }
+        return out.toByteArray();
+    }
+
+    public static List<Event> decode(byte[] bytes) {
+        Input in = new Input(bytes);
+        int version = in.read();
+        if (version != VERSION) throw new IllegalArgumentException("Unsupported version " + version);
+        int count = in.readLength();
+        List<Event> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = in.readLength();
+            int end = in.position + length;
+            in.limit = end;
+            events.add(readEvent(in));
+            in.position = end; // skip fields this version does not know
+            in.limit = bytes.length;
+        }
+        if (in.position != bytes.length) throw new IllegalArgumentException("Trailing bytes after " + count + " events");
+        return events;
+    }
+
+    private static void writeEvent(Output out, Event event) {
+        out.writeVarint(event.getEventId());
+        out.writeVarint(event.getCapacity());
+        int flags = (event.getTitle() != null ? HAS_TITLE : 0)
+            | (event.getDate() != null ? HAS_DATE : 0)
+            | (event.getLocation() != null ? HAS_LOCATION : 0)
+            | (event.getFee() != null ? HAS_FEE : 0);
+        out.write(flags);
+        if (event.getTitle() != null) out.writeString(event.getTitle());
+        if (event.getDate() != null) out.writeVarint(zigzag(event.getDate().toEpochDay()));
+        if (event.getLocation() != null) out.writeString(event.getLocation());
+        if (event.getFee() != null) {
+            BigDecimal fee = event.getFee();
+            BigInteger unscaled = fee.unscaledValue();
+            if (unscaled.bitLength() > 63) throw new IllegalArgumentException("Fee out of range: " + fee);
+            out.writeVarint(zigzag(fee.scale()));
+            out.writeVarint(zigzag(unscaled.longValue()));
+        }
+    }
+
+    private static Event readEvent(Input in) {
+        int eventId = (int) in.readVarint();
+        int capacity = (int) in.readVarint();
+        int flags = in.read();
+        String title = (flags & HAS_TITLE) != 0 ? in.readString() : null;
+        LocalDate date = null;
+        if ((flags & HAS_DATE) != 0) {
+            long epochDay = unzigzag(in.readVarint());
+            if (epochDay < LocalDate.MIN.toEpochDay() || epochDay > LocalDate.MAX.toEpochDay()) {
+                throw new IllegalArgumentException("Date out of range: " + epochDay);
+            }
+            date = LocalDate.ofEpochDay(epochDay);
+        }
+        String location = (flags & HAS_LOCATION) != 0 ? in.readString() : null;
+        BigDecimal fee = null;
+        if ((flags & HAS_FEE) != 0) {
+            int scale = (int) unzigzag(in.readVarint());
+            fee = BigDecimal.valueOf(unzigzag(in.readVarint()), scale);
+        }
+        return new Event(eventId, title, date, location, capacity, fee);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /** Growable byte buffer with varint and string writers. */
+    private static final class Output {
+        byte[] bytes;
+        int size;
+
+        Output(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        void write(int b) {
+            ensure(1);
+            bytes[size++] = (byte) b;
+        }
+
+        void write(byte[] source, int length) {
+            ensure(length);
+            System.arraycopy(source, 0, bytes, size, length);
+            size += length;
+        }
+
+        /** Ints are written as unsigned 32-bit values: negative ones take 5 bytes. */
+        void writeVarint(int value) {
+            writeVarint(value & 0xFFFFFFFFL);
+        }
+
+        void writeVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(utf8.length);
+            write(utf8, utf8.length);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+
+    /** Bounds-checked reader over a byte array. */
+    private static final class Input {
+        final byte[] bytes;
+        int position;
+        /** End of the record being read. */
+        int limit;
+
+        Input(byte[] bytes) {
+            this.bytes = bytes;
+            this.limit = bytes.length;
+        }
+
+        int read() {
+            if (position >= limit) throw new IllegalArgumentException("Truncated input at byte " + position);
+            return bytes[position++] & 0xFF;
+        }
+
+        long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = read();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IllegalArgumentException("Varint too long at byte " + position);
+        }
+
+        /** A length or count; each counted item takes at least a byte, so it cannot exceed what is left. */
+        int readLength() {
+            long length = readVarint();
+            if (length > limit - position) throw new IllegalArgumentException("Length out of range at byte " + position);
+            return (int) length;
+        }
+
+        String readString() {
+            int length = readLength();
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -5,169 +5,717 @@
 
 package eventreg2;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class EventDAO implements ICRUD<Event> {
-    
-    private Connection connection;
+
+    /** Receives events one at a time from {@link #streamAll(RowHandler)}. */
+    @FunctionalInterface
+    public interface RowHandler {
+        void accept(Event event) throws IOException;
+    }
+
+    /** Most IDs put into one "IN (...)" list. */
+    private static final int MAX_IN_LIST = 500;
+
+
+    /** Rows per round trip when streaming, per dialect; MySQL streams row by row with Integer.MIN_VALUE. */
+    private static final int STREAM_FETCH_SIZE = DatabaseConnection.getDialect().getStreamFetchSize();
+
+    // Per-method latency, errors and in-flight calls, reported at GET /metrics
+    private static final Metrics.Timer CREATE_TIMER = Metrics.timer("eventreg_dao_call", "method", "EventDAO.create");
+    private static final Metrics.Timer READ_ALL_TIMER = Metrics.timer("eventreg_dao_call", "method", "EventDAO.readAll");
+    private static final Metrics.Timer STREAM_ALL_TIMER = Metrics.timer("eventreg_dao_call", "method", "EventDAO.streamAll");
+    private static final Metrics.Timer READ_PAGE_TIMER = Metrics.timer("eventreg_dao_call", "method", "EventDAO.readPage");
+    private static final Metrics.Timer QUERY_TIMER = Metrics.timer("eventreg_dao_call", "method", "EventDAO.query");
+    private static final Metrics.Timer READ_TIMER = Metrics.timer("eventreg_dao_call", "method", "EventDAO.read");
+    private static final Metrics.Timer UPDATE_TIMER = Metrics.timer("eventreg_dao_call", "method", "EventDAO.update");
+    private static final Metrics.Timer DELETE_TIMER = Metrics.timer("eventreg_dao_call", "method", "EventDAO.delete");
+    private static final Metrics.Timer CREATE_ALL_TIMER = Metrics.timer("eventreg_dao_call", "method", "EventDAO.createAll");
+    private static final Metrics.Timer UPDATE_ALL_TIMER = Metrics.timer("eventreg_dao_call", "method", "EventDAO.updateAll");
+    private static final Metrics.Timer DELETE_ALL_TIMER = Metrics.timer("eventreg_dao_call", "method", "EventDAO.deleteAll");
+    private static final Metrics.Counter DELETED_EVENTS = Metrics.counter("eventreg_dao_deleted_rows_total", "table", "events");
+    private static final Metrics.Counter DELETED_REGISTRATIONS =
+        Metrics.counter("eventreg_dao_deleted_rows_total", "table", "registrations");
+    private static final Metrics.Counter DELETE_TRANSACTIONS =
+        Metrics.counter("eventreg_dao_transactions_total", "method", "EventDAO.deleteAll");
+
+    private static final String INSERT_SQL = "INSERT INTO events (title, event_date, location, capacity, fee) VALUES (?, ?, ?, ?, ?)";
+    private static final String SELECT_ALL_SQL = "SELECT * FROM events";
+    private static final String SELECT_ONE_SQL = "SELECT * FROM events WHERE event_id = ?";
+    private static final String UPDATE_SQL = "UPDATE events SET title = ?, event_date = ?, location = ?, capacity = ?, fee = ? WHERE event_id = ?";
+
+    /** Registration rows a single delete transaction aims to stay under, to keep lock hold time short. */
+    private final int registrationsPerChunk;
 
     public EventDAO() {
-        // The DAO uses the connection that established by DatabaseConnection
-        this.connection = DatabaseConnection.getConnection();
-        
+        // Each operation borrows its own connection from the DatabaseConnection pool
+        this(Integer.getInteger("eventreg.delete.registrationsPerChunk", 10_000));
+    }
+
+    EventDAO(int registrationsPerChunk) {
+        this.registrationsPerChunk = registrationsPerChunk;
     }
 
     // CREATE
     @Override
     public boolean create(Event event) throws SQLException {
-        if (connection == null) return false;
-
-        String sql = "INSERT INTO events (title, event_date, location, capacity, fee) VALUES (?, ?, ?, ?, ?)";
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            
-            // BINDING PARAMETERS: Use sequential integers like-1,2,3...
-            pstmt.setString(1, event.getTitle());
-            pstmt.setDate(2, Date.valueOf(event.getDate())); // Convert LocalDate to SQL Date
-            pstmt.setString(3, event.getLocation());
-            pstmt.setInt(4, event.getCapacity());
-            pstmt.setBigDecimal(5, event.getFee());
-            
-            int rowsAffected = pstmt.executeUpdate();
-            
-            // Send the generated ID back to the object
-            if (rowsAffected > 0) {
-                try (ResultSet rs = pstmt.getGeneratedKeys()) {
-                    if (rs.next()) {
-                        event.setEventId(rs.getInt(1)); 
-                        return true;
+        return CREATE_TIMER.time(() -> {
+            try (Connection connection = DatabaseConnection.getConnection()) {
+                if (connection == null) return false;
+
+                try (PreparedStatement pstmt = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+
+                    // BINDING PARAMETERS: Use sequential integers like-1,2,3...
+                    pstmt.setString(1, event.getTitle());
+                    pstmt.setDate(2, Date.valueOf(event.getDate())); // Convert LocalDate to SQL Date
+                    pstmt.setString(3, event.getLocation());
+                    pstmt.setInt(4, event.getCapacity());
+                    pstmt.setBigDecimal(5, event.getFee());
+
+                    int rowsAffected = pstmt.executeUpdate();
+
+                    // Send the generated ID back to the object
+                    if (rowsAffected > 0) {
+                        try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                            if (rs.next()) {
+                                event.setEventId(rs.getInt(1));
+                                return true;
+                            }
+                        }
                     }
+                    return false;
                 }
             }
-            return false;
-        }
+        });
     }
 
     // READ ALL
     @Override
     public List<Event> readAll() throws SQLException {
-        List<Event> events = new ArrayList<>();
-        if (connection == null) return events;
-
-        String sql = "SELECT * FROM events";
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            
-            while (rs.next()) {
-                // Construct a new Event object from the result set
-                Event event = new Event(
-                    rs.getInt("event_id"),
-                    rs.getString("title"),
-                    rs.getDate("event_date").toLocalDate(), 
-                    rs.getString("location"),
-                    rs.getInt("capacity"),
-                    rs.getBigDecimal("fee")
-                );
-                events.add(event);
+        return READ_ALL_TIMER.time(() -> {
+            List<Event> events = new ArrayList<>();
+
+            try (Connection connection = DatabaseConnection.getConnection()) {
+                if (connection == null) return events;
+
+                try (PreparedStatement pstmt = connection.prepareStatement(SELECT_ALL_SQL);
+                     ResultSet rs = pstmt.executeQuery()) {
+
+                    while (rs.next()) {
+                        events.add(toEvent(rs));
+                    }
+                }
             }
+            return events;
+        });
+    }
+
+    // READ ALL (streaming)
+    /**
+     * Streams every event to the handler without materializing the table in memory.
+     * Uses a forward-only, read-only cursor so the driver fetches rows incrementally.
+     * @param handler Receives each event as it is read.
+     * @return The number of events streamed.
+     * @throws SQLException if a database error occurs.
+     * @throws IOException if the handler fails to write an event.
+     */
+    public int streamAll(RowHandler handler) throws SQLException, IOException {
+        // The handler's IOException crosses the timed call unchecked and is unwrapped here
+        try {
+            return streamAllTimed(handler);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
-        return events;
+    }
+
+    private int streamAllTimed(RowHandler handler) throws SQLException {
+        return STREAM_ALL_TIMER.time(() -> {
+            String sql = "SELECT event_id, title, event_date, location, capacity, fee FROM events ORDER BY event_id";
+            int count = 0;
+            try (Connection connection = DatabaseConnection.getConnection()) {
+                if (connection == null) return count;
+
+                try (PreparedStatement pstmt = connection.prepareStatement(sql,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    pstmt.setFetchSize(STREAM_FETCH_SIZE);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            try {
+                                handler.accept(toEvent(rs));
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                            count++;
+                        }
+                    }
+                }
+            }
+            return count;
+        });
+    }
+
+    // READ PAGE
+    @Override
+    public Page<Event> readPage(String cursor, int limit) throws SQLException {
+        return READ_PAGE_TIMER.time(() -> {
+            EventQuery query = new EventQuery();
+            query.setCursor(cursor);
+            query.setLimit(limit);
+            return query(query);
+        });
+    }
+
+    /**
+     * Reads one page of events ordered by (event_date, event_id), applying the query's filters.
+     * The page continues after the query's cursor with a keyset seek, so every page is an
+     * index range scan on idx_events_date_id (or idx_events_location_date_id) and never an OFFSET.
+     * @param query Filters, page size and cursor.
+     * @return The events on the page and the cursor of the next page (null on the last one).
+     * @throws SQLException if a database error occurs.
+     */
+    public Page<Event> query(EventQuery query) throws SQLException {
+        return QUERY_TIMER.time(() -> {
+            StringBuilder sql = new StringBuilder(
+                "SELECT event_id, title, event_date, location, capacity, fee FROM events WHERE 1 = 1");
+            List<Object> params = new ArrayList<>();
+
+            if (query.getLocation() != null) {
+                sql.append(" AND location = ?");
+                params.add(query.getLocation());
+            }
+            if (query.getFromDate() != null) {
+                sql.append(" AND event_date >= ?");
+                params.add(Date.valueOf(query.getFromDate()));
+            }
+            if (query.getToDate() != null) {
+                sql.append(" AND event_date <= ?");
+                params.add(Date.valueOf(query.getToDate()));
+            }
+            if (query.getMinFee() != null) {
+                sql.append(" AND fee >= ?");
+                params.add(query.getMinFee());
+            }
+            if (query.getMaxFee() != null) {
+                sql.append(" AND fee <= ?");
+                params.add(query.getMaxFee());
+            }
+            if (query.getAfterDate() != null) {
+                // Seek past the last (event_date, event_id) of the previous page
+                Date afterDate = Date.valueOf(query.getAfterDate());
+                sql.append(" AND event_date >= ? AND (event_date > ? OR event_id > ?)");
+                params.add(afterDate);
+                params.add(afterDate);
+                params.add(query.getAfterId());
+            }
+            // Fetch one extra row to know whether another page follows
+            sql.append(" ORDER BY event_date, event_id LIMIT ?");
+            params.add(query.getLimit() + 1);
+
+            List<Event> events = new ArrayList<>();
+            try (Connection connection = DatabaseConnection.getConnection()) {
+                if (connection == null) return new Page<>(events, null);
+
+                try (PreparedStatement pstmt = connection.prepareStatement(sql.toString())) {
+                    for (int i = 0; i < params.size(); i++) {
+                        pstmt.setObject(i + 1, params.get(i));
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            events.add(toEvent(rs));
+                        }
+                    }
+                }
+            }
+
+            String nextCursor = null;
+            if (events.size() > query.getLimit()) {
+                events.remove(events.size() - 1);
+                nextCursor = EventQuery.cursorOf(events.get(events.size() - 1));
+            }
+            return new Page<>(events, nextCursor);
+        });
     }
 
     // READ ONE
     @Override
     public Event read(int id) throws SQLException {
-        if (connection == null) return null;
+        return READ_TIMER.time(() -> {
+            try (Connection connection = DatabaseConnection.getConnection()) {
+                if (connection == null) return null;
 
-        String sql = "SELECT * FROM events WHERE event_id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, id);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return new Event(
-                        rs.getInt("event_id"),
-                        rs.getString("title"),
-                        rs.getDate("event_date").toLocalDate(),
-                        rs.getString("location"),
-                        rs.getInt("capacity"),
-                        rs.getBigDecimal("fee")
-                    );
+                try (PreparedStatement pstmt = connection.prepareStatement(SELECT_ONE_SQL)) {
+                    pstmt.setInt(1, id);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (rs.next()) {
+                            return toEvent(rs);
+                        }
+                    }
                 }
             }
-        }
-        return null;
+            return null;
+        });
     }
 
     // UPDATE
     @Override
     public boolean update(Event event) throws SQLException {
-        if (connection == null) {
-            // If connection is null, throw an error instead of silently returning false
-            throw new SQLException("Database connection is not available in EventDAO.");
-        }
-        
-        String sql = "UPDATE events SET title = ?, event_date = ?, location = ?, capacity = ?, fee = ? WHERE event_id = ?";
+        return UPDATE_TIMER.time(() -> {
+            try (Connection connection = DatabaseConnection.getConnection()) {
+                if (connection == null) {
+                    // If connection is null, throw an error instead of silently returning false
+                    throw new SQLException("Database connection is not available in EventDAO.");
+                }
 
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            
-            // Title (String)
-            pstmt.setString(1, event.getTitle());
-            
-            // Date (LocalDate - CRITICAL NULL CHECK)
-            if (event.getDate() != null) {
-                pstmt.setDate(2, java.sql.Date.valueOf(event.getDate())); 
-            } else {
-                // Must use setNull if date is null
-                pstmt.setNull(2, java.sql.Types.DATE); 
-            }
-            
-            // Location (String)
-            pstmt.setString(3, event.getLocation());
-            
-            // Capacity (int)
-            pstmt.setInt(4, event.getCapacity());
-            
-            // Fee (BigDecimal - CRITICAL NULL CHECK)
-            if (event.getFee() != null) {
-                pstmt.setBigDecimal(5, event.getFee());
-            } else {
-                // Must use setNull if fee is null
-                pstmt.setNull(5, java.sql.Types.DECIMAL); 
-            }
-
-            // ID (WHERE clause - safe as it comes from the API path)
-            pstmt.setInt(6, event.getEventId()); 
-
-            return pstmt.executeUpdate() > 0;
-            
-        } catch (SQLException e) {
-            // Log the detailed error
-            System.err.println("❌ DAO SQL Error during Event Update: " + e.getMessage());
-            e.printStackTrace();
-            throw e; // Re-throw to service layer
-        }
+                try (PreparedStatement pstmt = connection.prepareStatement(UPDATE_SQL)) {
+
+                    // Title (String)
+                    pstmt.setString(1, event.getTitle());
+
+                    // Date (LocalDate - CRITICAL NULL CHECK)
+                    if (event.getDate() != null) {
+                        pstmt.setDate(2, java.sql.Date.valueOf(event.getDate()));
+                    } else {
+                        // Must use setNull if date is null
+                        pstmt.setNull(2, java.sql.Types.DATE);
+                    }
+
+                    // Location (String)
+                    pstmt.setString(3, event.getLocation());
+
+                    // Capacity (int)
+                    pstmt.setInt(4, event.getCapacity());
+
+                    // Fee (BigDecimal - CRITICAL NULL CHECK)
+                    if (event.getFee() != null) {
+                        pstmt.setBigDecimal(5, event.getFee());
+                    } else {
+                        // Must use setNull if fee is null
+                        pstmt.setNull(5, java.sql.Types.DECIMAL);
+                    }
+
+                    // ID (WHERE clause - safe as it comes from the API path)
+                    pstmt.setInt(6, event.getEventId());
+
+                    return pstmt.executeUpdate() > 0;
+                }
+            } catch (SQLException e) {
+                // Log the detailed error
+                System.err.println("❌ DAO SQL Error during Event Update: " + e.getMessage());
+                e.printStackTrace();
+                throw e; // Re-throw to service layer
+            }
+        });
     }
 
     // DELETE
-    // In EventDAO.java, inside the delete(int id) method:
+    /**
+     * Deletes an event together with its waitlist and registrations in one transaction.
+     */
     @Override
     public boolean delete(int id) throws SQLException {
-        if (connection == null) return false;
-        
-        // Example using a raw SQL statement to delete dependent registrations:
-        String deleteRegistrationsSql = "DELETE FROM registrations WHERE event_id = ?";
-        try (PreparedStatement pstmtReg = connection.prepareStatement(deleteRegistrationsSql)) {
-            pstmtReg.setInt(1, id);
-            pstmtReg.executeUpdate();
+        return DELETE_TIMER.time(() -> {
+            return deleteAll(List.of(id)).getSucceeded() == 1;
+        });
+    }
+
+    // CREATE MANY
+    @Override
+    public BatchResult createAll(List<Event> events) throws SQLException {
+        return CREATE_ALL_TIMER.time(() -> {
+            String[] errors = new String[events.size()];
+            List<Integer> batched = new ArrayList<>();
+            for (int i = 0; i < events.size(); i++) {
+                Event event = events.get(i);
+                if (event == null || event.getTitle() == null || event.getDate() == null) {
+                    errors[i] = "title and date are required";
+                } else {
+                    batched.add(i);
+                }
+            }
+
+            if (!batched.isEmpty()) {
+                try (Connection connection = DatabaseConnection.getConnection()) {
+                    if (connection == null) throw new SQLException("Database connection is not available in EventDAO.");
+
+                    connection.setAutoCommit(false);
+                    try (PreparedStatement pstmt = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                        for (int i : batched) {
+                            bindEvent(pstmt, events.get(i));
+                            pstmt.addBatch();
+                        }
+                        pstmt.executeBatch();
+
+                        // Generated keys come back in the order the rows were batched
+                        boolean keysMissing = false;
+                        try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                            for (int i : batched) {
+                                if (rs.next()) {
+                                    events.get(i).setEventId(rs.getInt(1));
+                                } else {
+                                    errors[i] = "No generated key returned";
+                                    keysMissing = true;
+                                }
+                            }
+                        }
+                        if (keysMissing) {
+                            // Without every ID the caller cannot tell which rows exist, so keep none
+                            connection.rollback();
+                            for (int i : batched) events.get(i).setEventId(0);
+                            markNotSaved(batched, errors);
+                        } else {
+                            connection.commit();
+                        }
+                    } catch (BatchUpdateException e) {
+                        connection.rollback();
+                        markBatchFailures(e, batched, errors);
+                    } catch (SQLException e) {
+                        connection.rollback();
+                        throw e;
+                    } finally {
+                        connection.setAutoCommit(true);
+                    }
+                }
+            }
+
+            BatchResult result = new BatchResult();
+            for (int i = 0; i < events.size(); i++) {
+                if (errors[i] != null) {
+                    result.failure(i, null, errors[i]);
+                } else {
+                    result.success(i, events.get(i).getEventId());
+                }
+            }
+            return result;
+        });
+    }
+
+    // UPDATE MANY
+    @Override
+    public BatchResult updateAll(List<Event> events) throws SQLException {
+        return UPDATE_ALL_TIMER.time(() -> {
+            String[] errors = new String[events.size()];
+            List<Integer> batched = new ArrayList<>();
+            for (int i = 0; i < events.size(); i++) {
+                Event event = events.get(i);
+                if (event == null || event.getEventId() <= 0) {
+                    errors[i] = "eventId is required";
+                } else {
+                    batched.add(i);
+                }
+            }
+
+            if (!batched.isEmpty()) {
+                try (Connection connection = DatabaseConnection.getConnection()) {
+                    if (connection == null) throw new SQLException("Database connection is not available in EventDAO.");
+
+                    connection.setAutoCommit(false);
+                    try (PreparedStatement pstmt = connection.prepareStatement(UPDATE_SQL)) {
+                        for (int i : batched) {
+                            bindEvent(pstmt, events.get(i));
+                            pstmt.setInt(6, events.get(i).getEventId());
+                            pstmt.addBatch();
+                        }
+                        int[] counts = pstmt.executeBatch();
+                        boolean missing = false;
+                        for (int k = 0; k < batched.size(); k++) {
+                            if (counts[k] == 0) {
+                                int i = batched.get(k);
+                                errors[i] = "Event ID " + events.get(i).getEventId() + " not found";
+                                missing = true;
+                            }
+                        }
+                        // The batch is one transaction: a missing event fails it like a constraint would
+                        if (missing) {
+                            connection.rollback();
+                            markNotSaved(batched, errors);
+                        } else {
+                            connection.commit();
+                        }
+                    } catch (BatchUpdateException e) {
+                        connection.rollback();
+                        markBatchFailures(e, batched, errors);
+                    } catch (SQLException e) {
+                        connection.rollback();
+                        throw e;
+                    } finally {
+                        connection.setAutoCommit(true);
+                    }
+                }
+            }
+
+            BatchResult result = new BatchResult();
+            for (int i = 0; i < events.size(); i++) {
+                Integer id = events.get(i) == null ? null : events.get(i).getEventId();
+                if (errors[i] != null) {
+                    result.failure(i, id, errors[i]);
+                } else {
+                    result.success(i, id);
+                }
+            }
+            return result;
+        });
+    }
+
+    // DELETE MANY
+    /**
+     * Deletes events with their waitlists and registrations using set-based statements.
+     * The IDs are split into chunks and each chunk is one transaction of three
+     * "WHERE event_id IN (...)" deletes. Chunks are sized by registration count, so a
+     * transaction locks at most about registrationsPerChunk registration rows.
+     *
+     * <p>An event with more registrations than that is first closed (its capacity set to 0,
+     * so no seat can be claimed) and its waitlist and registrations are removed in
+     * LIMIT-ed transactions of registrationsPerChunk rows each; the event row then goes
+     * with the next chunk. If that chunk fails, the event stays closed with some of its
+     * registrations gone (EventService re-announces it to its listeners), and deleting it
+     * again finishes the job.
+     *
+     * <p>Each chunk locks the rows it is about to delete and reports only those as deleted,
+     * so an ID removed by someone else in the meantime comes back as not found.
+     */
+    @Override
+    public BatchResult deleteAll(List<Integer> ids) throws SQLException {
+        return DELETE_ALL_TIMER.time(() -> {
+            long start = System.nanoTime();
+            Map<Integer, Integer> registrationCounts = new LinkedHashMap<>();
+            Set<Integer> deletedIds = new HashSet<>();
+            Map<Integer, String> failedIds = new HashMap<>();
+            int transactions = 0;
+            int deletedRegistrations = 0;
+
+            try (Connection connection = DatabaseConnection.getConnection()) {
+                if (connection == null) throw new SQLException("Database connection is not available in EventDAO.");
+
+                // How many registrations each of the IDs has, to plan the chunks
+                List<Integer> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+                for (int from = 0; from < distinct.size(); from += MAX_IN_LIST) {
+                    List<Integer> part = distinct.subList(from, Math.min(distinct.size(), from + MAX_IN_LIST));
+                    String sql = "SELECT e.event_id, COUNT(r.user_id) FROM events e "
+                        + "LEFT JOIN registrations r ON r.event_id = e.event_id "
+                        + "WHERE e.event_id IN " + placeholders(part.size()) + " GROUP BY e.event_id";
+                    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                        bindIds(pstmt, part);
+                        try (ResultSet rs = pstmt.executeQuery()) {
+                            while (rs.next()) {
+                                registrationCounts.put(rs.getInt(1), rs.getInt(2));
+                            }
+                        }
+                    }
+                }
+
+                // Drain events too large for one chunk in bounded transactions
+                for (Map.Entry<Integer, Integer> entry : registrationCounts.entrySet()) {
+                    if (entry.getValue() <= registrationsPerChunk) continue;
+                    int id = entry.getKey();
+                    try {
+                        if (closeEvent(connection, id)) {
+                            int waiting = deleteLimited(connection, "DELETE FROM waitlist WHERE event_id = ? LIMIT ?", id);
+                            int drained = deleteLimited(connection, "DELETE FROM registrations WHERE event_id = ? LIMIT ?", id);
+                            deletedRegistrations += drained;
+                            // One to close, then one per LIMIT round of each table
+                            transactions += 3 + waiting / registrationsPerChunk + drained / registrationsPerChunk;
+                        }
+                        entry.setValue(0);
+                    } catch (SQLException e) {
+                        failedIds.put(id, e.getMessage());
+                    }
+                }
+
+                Map<Integer, Integer> remaining = new LinkedHashMap<>(registrationCounts);
+                remaining.keySet().removeAll(failedIds.keySet());
+                for (List<Integer> chunk : chunkByRegistrations(remaining)) {
+                    connection.setAutoCommit(false);
+                    try {
+                        List<Integer> locked = lockEvents(connection, chunk);
+                        int registrations = 0;
+                        if (!locked.isEmpty()) {
+                            deleteIn(connection, "DELETE FROM waitlist WHERE event_id IN ", locked);
+                            registrations = deleteIn(connection, "DELETE FROM registrations WHERE event_id IN ", locked);
+                            int events = deleteIn(connection, "DELETE FROM events WHERE event_id IN ", locked);
+                            if (events != locked.size()) {
+                                throw new SQLException("Deleted " + events + " of " + locked.size() + " locked events");
+                            }
+                        }
+                        connection.commit();
+                        deletedIds.addAll(locked);
+                        deletedRegistrations += registrations;
+                    } catch (SQLException e) {
+                        connection.rollback();
+                        for (int id : chunk) failedIds.put(id, e.getMessage());
+                    } finally {
+                        connection.setAutoCommit(true);
+                    }
+                    transactions++;
+                }
+            }
+
+            BatchResult result = new BatchResult();
+            for (int i = 0; i < ids.size(); i++) {
+                int id = ids.get(i);
+                if (deletedIds.contains(id)) {
+                    result.success(i, id);
+                } else if (failedIds.containsKey(id)) {
+                    result.failure(i, id, failedIds.get(id));
+                } else {
+                    result.failure(i, id, "Event ID " + id + " not found");
+                }
+            }
+            result.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+            DELETED_EVENTS.add(deletedIds.size());
+            DELETED_REGISTRATIONS.add(deletedRegistrations);
+            DELETE_TRANSACTIONS.add(transactions);
+            return result;
+        });
+    }
+
+    /** Groups event IDs so each group stays under the registration and IN-list limits. */
+    private List<List<Integer>> chunkByRegistrations(Map<Integer, Integer> registrationCounts) {
+        List<List<Integer>> chunks = new ArrayList<>();
+        List<Integer> chunk = new ArrayList<>();
+        long rows = 0;
+        for (Map.Entry<Integer, Integer> entry : registrationCounts.entrySet()) {
+            boolean full = rows + entry.getValue() > registrationsPerChunk || chunk.size() == MAX_IN_LIST;
+            if (!chunk.isEmpty() && full) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                rows = 0;
+            }
+            chunk.add(entry.getKey());
+            rows += entry.getValue();
         }
+        if (!chunk.isEmpty()) chunks.add(chunk);
+        return chunks;
+    }
+
+    // Capacity 0 makes every seat claim fail, so no registration arrives while the event drains
+    private static boolean closeEvent(Connection connection, int id) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement("UPDATE events SET capacity = 0 WHERE event_id = ?")) {
+            pstmt.setInt(1, id);
+            return pstmt.executeUpdate() == 1;
+        }
+    }
 
-        // delete the main event row
-        String sql = "DELETE FROM events WHERE event_id = ?";
+    // Repeats an auto-committed "... LIMIT ?" delete until a round removes fewer rows than the limit
+    private int deleteLimited(Connection connection, String sql, int id) throws SQLException {
+        int total = 0;
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setInt(1, id);
-            return pstmt.executeUpdate() > 0;
+            pstmt.setInt(2, registrationsPerChunk);
+            int deleted;
+            do {
+                deleted = pstmt.executeUpdate();
+                total += deleted;
+            } while (deleted == registrationsPerChunk);
+        }
+        return total;
+    }
+
+    // Locks the chunk's event rows that still exist and returns their IDs
+    private static List<Integer> lockEvents(Connection connection, List<Integer> ids) throws SQLException {
+        List<Integer> locked = new ArrayList<>();
+        String sql = "SELECT event_id FROM events WHERE event_id IN " + placeholders(ids.size()) + " FOR UPDATE";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            bindIds(pstmt, ids);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    locked.add(rs.getInt(1));
+                }
+            }
+        }
+        return locked;
+    }
+
+    private static int deleteIn(Connection connection, String sqlPrefix, List<Integer> ids) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement(sqlPrefix + placeholders(ids.size()))) {
+            bindIds(pstmt, ids);
+            return pstmt.executeUpdate();
+        }
+    }
+
+    // "(?, ?, ?)" with n placeholders
+    private static String placeholders(int n) {
+        StringBuilder sql = new StringBuilder("(");
+        for (int i = 0; i < n; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.append(")").toString();
+    }
+
+    private static void bindIds(PreparedStatement pstmt, List<Integer> ids) throws SQLException {
+        for (int i = 0; i < ids.size(); i++) {
+            pstmt.setInt(i + 1, ids.get(i));
+        }
+    }
+
+    // Binds title, date, location, capacity and fee to parameters 1-5
+    private static void bindEvent(PreparedStatement pstmt, Event event) throws SQLException {
+        pstmt.setString(1, event.getTitle());
+        if (event.getDate() != null) {
+            pstmt.setDate(2, Date.valueOf(event.getDate()));
+        } else {
+            pstmt.setNull(2, Types.DATE);
+        }
+        pstmt.setString(3, event.getLocation());
+        pstmt.setInt(4, event.getCapacity());
+        if (event.getFee() != null) {
+            pstmt.setBigDecimal(5, event.getFee());
+        } else {
+            pstmt.setNull(5, Types.DECIMAL);
+        }
+    }
+
+    /**
+     * Reports which items of a failed (and rolled back) batch caused the failure.
+     * Drivers either mark failed items with EXECUTE_FAILED or stop at the first failure.
+     */
+    // Items of a rolled-back batch that have no error of their own
+    private static void markNotSaved(List<Integer> batched, String[] errors) {
+        for (int i : batched) {
+            if (errors[i] == null) errors[i] = "Not saved: another item in the batch failed";
         }
-    }   
-}
\ No newline at end of file
+    }
+
+    private static void markBatchFailures(BatchUpdateException e, List<Integer> batched, String[] errors) {
+        int[] counts = e.getUpdateCounts() == null ? new int[0] : e.getUpdateCounts();
+        for (int k = 0; k < batched.size(); k++) {
+            boolean culprit = k < counts.length ? counts[k] == Statement.EXECUTE_FAILED : k == counts.length;
+            errors[batched.get(k)] = culprit
+                ? e.getMessage()
+                : "Not saved: another item in the batch failed";
+        }
+    }
+
+    // Construct a new Event object from the current result set row
+    private static Event toEvent(ResultSet rs) throws SQLException {
+        return new Event(
+            rs.getInt("event_id"),
+            rs.getString("title"),
+            rs.getDate("event_date").toLocalDate(),
+            rs.getString("location"),
+            rs.getInt("capacity"),
+            rs.getBigDecimal("fee")
+        );
+    }
+
+    /**
+     * Prepares the fixed statements of this DAO on a connection, so the pool's statement
+     * cache holds them before the first request. Statements built per call are not included.
+     */
+    static void prepareStatements(Connection connection) throws SQLException {
+        connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS).close();
+        for (String sql : new String[] {SELECT_ALL_SQL, SELECT_ONE_SQL, UPDATE_SQL}) {
+            connection.prepareStatement(sql).close();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package eventreg2;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+
+/**
+ * Writes every event straight from the database cursor to an output stream.
+ * Each row is encoded and written as soon as it is read, so memory use does not
+ * grow with the number of events.
+ */
+public class EventExporter {
+
+    /** Output formats supported by the export endpoint. */
+    public enum Format {
+        /** A single JSON array. */
+        JSON("application/json"),
+        /** One JSON object per line (newline-delimited JSON). */
+        NDJSON("application/x-ndjson");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() { return contentType; }
+    }
+
+    private final Gson gson;
+    private final EventDAO eventDAO;
+
+    public EventExporter(Gson gson, EventDAO eventDAO) {
+        this.gson = gson;
+        this.eventDAO = eventDAO;
+    }
+
+    /**
+     * Streams all events to the output in the given format.
+     * The stream is flushed but not closed.
+     * @return The number of events written.
+     */
+    public int export(OutputStream out, Format format) throws SQLException, IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 8192);
+        int count;
+        if (format == Format.NDJSON) {
+            count = eventDAO.streamAll(event -> {
+                gson.toJson(event, Event.class, writer);
+                writer.write('\n');
+            });
+        } else {
+            JsonWriter json = gson.newJsonWriter(writer);
+            json.beginArray();
+            count = eventDAO.streamAll(event -> gson.toJson(event, Event.class, json));
+            json.endArray();
+            json.flush();
+        }
+        writer.flush();
+        return count;
+    }
+}
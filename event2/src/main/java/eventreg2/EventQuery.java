@@ -0,0 +1,73 @@
+package eventreg2;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * Filters and position for a keyset-paginated event listing.
+ * Events are ordered by (event_date, event_id); the cursor holds the last pair seen,
+ * so the next page starts with an index seek instead of an OFFSET scan.
+ */
+public class EventQuery {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    private LocalDate fromDate;
+    private LocalDate toDate;
+    private String location;
+    private BigDecimal minFee;
+    private BigDecimal maxFee;
+    private int limit = DEFAULT_LIMIT;
+
+    // Keyset position decoded from the cursor (exclusive)
+    private LocalDate afterDate;
+    private int afterId;
+
+    public LocalDate getFromDate() { return fromDate; }
+    public LocalDate getToDate() { return toDate; }
+    public String getLocation() { return location; }
+    public BigDecimal getMinFee() { return minFee; }
+    public BigDecimal getMaxFee() { return maxFee; }
+    public int getLimit() { return limit; }
+    public LocalDate getAfterDate() { return afterDate; }
+    public int getAfterId() { return afterId; }
+
+    public void setFromDate(LocalDate fromDate) { this.fromDate = fromDate; }
+    public void setToDate(LocalDate toDate) { this.toDate = toDate; }
+    public void setLocation(String location) { this.location = location; }
+    public void setMinFee(BigDecimal minFee) { this.minFee = minFee; }
+    public void setMaxFee(BigDecimal maxFee) { this.maxFee = maxFee; }
+
+    /** Sets the page size, clamped to 1..MAX_LIMIT. */
+    public void setLimit(int limit) { this.limit = Math.max(1, Math.min(MAX_LIMIT, limit)); }
+
+    /**
+     * Continues after the position encoded in a cursor from a previous page.
+     * @param cursor The opaque cursor, or null/empty to start from the beginning.
+     * @throws IllegalArgumentException if the cursor is malformed.
+     */
+    public void setCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            afterDate = null;
+            afterId = 0;
+            return;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int split = decoded.indexOf(':');
+            afterDate = LocalDate.parse(decoded.substring(0, split));
+            afterId = Integer.parseInt(decoded.substring(split + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    /** Encodes the keyset position of an event as an opaque cursor. */
+    public static String cursorOf(Event event) {
+        String raw = event.getDate() + ":" + event.getEventId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
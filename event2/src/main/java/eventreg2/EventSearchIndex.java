@@ -0,0 +1,391 @@
+package eventreg2;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over the words of event titles and locations, for
+ * type-ahead search without a {@code LIKE '%x%'} scan of the events table.
+ *
+ * <p>Text is lowercased, stripped of accents and split on anything that is not a
+ * letter or digit. Each event gets a dense document number, and every word keeps a
+ * posting list of document numbers per field. A query matches events that contain
+ * every query word; the last word also matches as a prefix unless the query ends
+ * with a space, so "jav" finds "Java". Words are looked up in a sorted dictionary,
+ * so a prefix is one range of it.</p>
+ *
+ * <p>Scoring is term-at-a-time into per-document arrays: rarer words count more,
+ * a title match counts twice a location match and a prefix match a bit less than
+ * an exact one. Ties go to the earlier event. Date and fee filters only look at
+ * events that matched every word. Dates, fees and IDs are copied into primitive
+ * arrays next to the documents, so ranking and filtering thousands of matches does
+ * not chase pointers through the events. The scratch arrays are pooled, so a query
+ * allocates little beyond its result.</p>
+ *
+ * <p>The index listens to {@link EventService} for created, updated and deleted
+ * events and is filled with {@link #load} at startup. Reads share a lock and
+ * writes take it exclusively, so a query always sees a whole event or none of it.</p>
+ */
+public class EventSearchIndex implements EventChangeListener {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    private static final float TITLE_WEIGHT = 2f;
+    private static final float LOCATION_WEIGHT = 1f;
+    private static final float PREFIX_FACTOR = 0.75f;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final String[] NO_WORDS = new String[0];
+    /** Day number of an event without a date; sorts after every real date. */
+    private static final int NO_DATE = Integer.MAX_VALUE;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Term> terms = new TreeMap<>();
+    private final HashMap<Integer, Integer> docByEventId = new HashMap<>();
+    private Doc[] docs = new Doc[1024];
+    private int[] eventIds = new int[1024];
+    private int[] days = new int[1024];
+    /** Fee as a double for filtering, NaN without a fee. */
+    private double[] fees = new double[1024];
+    /** Document numbers below this have been handed out; freed ones are reused first. */
+    private int docLimit;
+    private int[] freeDocs = new int[16];
+    private int freeCount;
+
+    private final ConcurrentLinkedQueue<Scratch> scratches = new ConcurrentLinkedQueue<>();
+
+    /** Replaces the index contents with the given events, e.g. everything in the table at startup. */
+    public void load(Collection<Event> events) {
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            docByEventId.clear();
+            Arrays.fill(docs, 0, docLimit, null);
+            docLimit = 0;
+            freeCount = 0;
+            for (Event event : events) {
+                add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void eventCreated(Event event) {
+        lock.writeLock().lock();
+        try {
+            remove(event.getEventId());
+            add(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void eventUpdated(Event event) {
+        eventCreated(event);
+    }
+
+    @Override
+    public void eventDeleted(int eventId) {
+        lock.writeLock().lock();
+        try {
+            remove(eventId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Number of events in the index. */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docByEventId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the events matching every word of the text, best first.
+     * @param text Words to look for; the last one also matches as a prefix
+     *             unless the text ends with whitespace.
+     * @param filter Date and fee bounds and the result limit; its location and cursor are ignored.
+     */
+    public List<Event> search(String text, EventQuery filter) {
+        String[] words = tokenize(text);
+        if (words.length == 0) return Collections.emptyList();
+        boolean lastIsPrefix = !Character.isWhitespace(text.charAt(text.length() - 1));
+        int limit = Math.max(1, Math.min(MAX_LIMIT, filter.getLimit()));
+
+        lock.readLock().lock();
+        try {
+            QueryWord[] query = new QueryWord[words.length];
+            for (int i = 0; i < words.length; i++) {
+                query[i] = resolve(words[i], lastIsPrefix && i == words.length - 1);
+                if (query[i].frequency == 0) return Collections.emptyList();
+            }
+            // Rarest word first: only its matches are candidates for the rest
+            Arrays.sort(query, (a, b) -> Integer.compare(a.frequency, b.frequency));
+
+            Scratch scratch = borrow();
+            try {
+                for (int i = 0; i < query.length; i++) {
+                    score(query[i], i, scratch);
+                }
+                return top(scratch, query.length, filter, limit);
+            } finally {
+                scratch.clear();
+                scratches.offer(scratch);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Lowercased, accent-free words of the text, in order, without duplicates. */
+    static String[] tokenize(String text) {
+        if (text == null || text.isEmpty()) return NO_WORDS;
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+            .toLowerCase(Locale.ROOT);
+        Set<String> words = new LinkedHashSet<>();
+        for (String word : SEPARATORS.split(folded)) {
+            if (!word.isEmpty()) words.add(word);
+        }
+        return words.toArray(NO_WORDS);
+    }
+
+    // --- Updates, under the write lock ---
+
+    private void add(Event event) {
+        int doc = freeCount > 0 ? freeDocs[--freeCount] : docLimit++;
+        if (doc == docs.length) {
+            docs = Arrays.copyOf(docs, doc * 2);
+            eventIds = Arrays.copyOf(eventIds, doc * 2);
+            days = Arrays.copyOf(days, doc * 2);
+            fees = Arrays.copyOf(fees, doc * 2);
+        }
+        Doc entry = new Doc(event, tokenize(event.getTitle()), tokenize(event.getLocation()));
+        docs[doc] = entry;
+        eventIds[doc] = event.getEventId();
+        days[doc] = event.getDate() == null ? NO_DATE : (int) event.getDate().toEpochDay();
+        fees[doc] = event.getFee() == null ? Double.NaN : event.getFee().doubleValue();
+        docByEventId.put(event.getEventId(), doc);
+        for (String word : entry.titleWords) {
+            terms.computeIfAbsent(word, w -> new Term()).title.add(doc);
+        }
+        for (String word : entry.locationWords) {
+            terms.computeIfAbsent(word, w -> new Term()).location.add(doc);
+        }
+    }
+
+    private void remove(int eventId) {
+        Integer doc = docByEventId.remove(eventId);
+        if (doc == null) return;
+        Doc entry = docs[doc];
+        for (String word : entry.titleWords) {
+            Term term = terms.get(word);
+            term.title.remove(doc);
+            if (term.isEmpty()) terms.remove(word);
+        }
+        for (String word : entry.locationWords) {
+            Term term = terms.get(word);
+            term.location.remove(doc);
+            if (term.isEmpty()) terms.remove(word);
+        }
+        docs[doc] = null;
+        if (freeCount == freeDocs.length) freeDocs = Arrays.copyOf(freeDocs, freeCount * 2);
+        freeDocs[freeCount++] = doc;
+    }
+
+    // --- Queries, under the read lock ---
+
+    /** Looks up the dictionary entries a query word matches. */
+    private QueryWord resolve(String word, boolean prefix) {
+        Term exact = terms.get(word);
+        Collection<Term> expanded = prefix
+            ? terms.subMap(word, true, word + Character.MAX_VALUE, false).values()
+            : Collections.emptyList();
+        int frequency = exact == null ? 0 : exact.frequency();
+        for (Term term : expanded) {
+            if (term != exact) frequency += term.frequency();
+        }
+        float rarity = (float) Math.log(1 + (double) docByEventId.size() / Math.max(1, frequency));
+        return new QueryWord(exact, expanded, frequency, rarity);
+    }
+
+    /**
+     * Adds one query word's score to every document that matched all words before it.
+     * Postings are walked best match first, so each document is scored once per word
+     * with its best match: exact title, prefix title, exact location, prefix location.
+     */
+    private void score(QueryWord word, int position, Scratch scratch) {
+        float exactTitle = word.rarity * TITLE_WEIGHT;
+        float exactLocation = word.rarity * LOCATION_WEIGHT;
+        if (word.exact != null) scratch.add(word.exact.title, position, exactTitle);
+        for (Term term : word.expanded) scratch.add(term.title, position, exactTitle * PREFIX_FACTOR);
+        if (word.exact != null) scratch.add(word.exact.location, position, exactLocation);
+        for (Term term : word.expanded) scratch.add(term.location, position, exactLocation * PREFIX_FACTOR);
+    }
+
+    /** The best {@code limit} documents that matched all words and pass the filter, best first. */
+    private List<Event> top(Scratch scratch, int wordCount, EventQuery filter, int limit) {
+        float[] scores = scratch.scores;
+        boolean byDate = filter.getFromDate() != null || filter.getToDate() != null;
+        int fromDay = filter.getFromDate() == null ? Integer.MIN_VALUE : (int) filter.getFromDate().toEpochDay();
+        int toDay = filter.getToDate() == null ? NO_DATE - 1 : (int) filter.getToDate().toEpochDay();
+        boolean byFee = filter.getMinFee() != null || filter.getMaxFee() != null;
+        double minFee = filter.getMinFee() == null ? Double.NEGATIVE_INFINITY : filter.getMinFee().doubleValue();
+        double maxFee = filter.getMaxFee() == null ? Double.POSITIVE_INFINITY : filter.getMaxFee().doubleValue();
+
+        // Worst of the kept documents on top
+        PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1, (a, b) -> rank(scores, a, b));
+        for (int i = 0; i < scratch.touchedCount; i++) {
+            int doc = scratch.touched[i];
+            if (scratch.hits[doc] != wordCount) continue;
+            if (byDate && (days[doc] < fromDay || days[doc] > toDay)) continue;
+            // Written so that a missing fee (NaN) fails both bounds
+            if (byFee && !(fees[doc] >= minFee && fees[doc] <= maxFee)) continue;
+            if (best.size() == limit) {
+                if (rank(scores, doc, best.peek()) <= 0) continue;
+                best.poll();
+            }
+            best.offer(doc);
+        }
+        Event[] results = new Event[best.size()];
+        for (int i = results.length - 1; i >= 0; i--) {
+            results[i] = docs[best.poll()].event;
+        }
+        return Arrays.asList(results);
+    }
+
+    /** Positive if document a ranks above b: a higher score, then an earlier date, then a lower ID. */
+    private int rank(float[] scores, int a, int b) {
+        int order = Float.compare(scores[a], scores[b]);
+        if (order != 0) return order;
+        order = Integer.compare(days[b], days[a]);
+        return order != 0 ? order : Integer.compare(eventIds[b], eventIds[a]);
+    }
+
+    private Scratch borrow() {
+        Scratch scratch = scratches.poll();
+        if (scratch == null) scratch = new Scratch();
+        scratch.ensureCapacity(docLimit);
+        return scratch;
+    }
+
+    /** An indexed event and the distinct words of its fields. */
+    private static final class Doc {
+        final Event event;
+        final String[] titleWords;
+        final String[] locationWords;
+
+        Doc(Event event, String[] titleWords, String[] locationWords) {
+            this.event = event;
+            this.titleWords = titleWords;
+            this.locationWords = locationWords;
+        }
+    }
+
+    /** Dictionary entry: the documents containing a word, per field. */
+    private static final class Term {
+        final Postings title = new Postings();
+        final Postings location = new Postings();
+
+        int frequency() { return title.size + location.size; }
+
+        boolean isEmpty() { return title.size == 0 && location.size == 0; }
+    }
+
+    /** Unordered document numbers; scoring does not need them sorted. */
+    private static final class Postings {
+        int[] docs = new int[4];
+        int size;
+
+        void add(int doc) {
+            if (size == docs.length) docs = Arrays.copyOf(docs, size * 2);
+            docs[size++] = doc;
+        }
+
+        void remove(int doc) {
+            for (int i = 0; i < size; i++) {
+                if (docs[i] == doc) {
+                    docs[i] = docs[--size];
+                    return;
+                }
+            }
+        }
+    }
+
+    /** A query word resolved against the dictionary. */
+    private static final class QueryWord {
+        final Term exact;
+        final Collection<Term> expanded;
+        final int frequency;
+        final float rarity;
+
+        QueryWord(Term exact, Collection<Term> expanded, int frequency, float rarity) {
+            this.exact = exact;
+            this.expanded = expanded;
+            this.frequency = frequency;
+            this.rarity = rarity;
+        }
+    }
+
+    /**
+     * Per-query accumulators indexed by document number. {@code hits[doc]} counts the
+     * query words the document matched so far; only documents that matched the first
+     * word are recorded in {@code touched}, and only those are cleared afterwards.
+     */
+    private static final class Scratch {
+        int[] hits = new int[0];
+        float[] scores = new float[0];
+        int[] touched = new int[64];
+        int touchedCount;
+
+        void ensureCapacity(int docs) {
+            if (hits.length < docs) {
+                hits = new int[docs];
+                scores = new float[docs];
+            }
+        }
+
+        void add(Postings postings, int position, float weight) {
+            int[] docs = postings.docs;
+            for (int i = 0, n = postings.size; i < n; i++) {
+                int doc = docs[i];
+                // Skips documents that missed an earlier word or already scored this one
+                if (hits[doc] != position) continue;
+                if (position == 0) {
+                    if (touchedCount == touched.length) touched = Arrays.copyOf(touched, touchedCount * 2);
+                    touched[touchedCount++] = doc;
+                }
+                hits[doc] = position + 1;
+                scores[doc] += weight;
+            }
+        }
+
+        void clear() {
+            for (int i = 0; i < touchedCount; i++) {
+                hits[touched[i]] = 0;
+                scores[touched[i]] = 0;
+            }
+            touchedCount = 0;
+        }
+    }
+}
@@ -3,11 +3,21 @@ package eventreg2;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 public class EventService {
     
     private EventDAO eventDAO;
 
+    /** Components notified after each successful event write. */
+    private final List<EventChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    /** Read-through cache in front of the DAO; every write below invalidates it. */
+    private final EventCache cache = new EventCache(
+        Long.getLong("eventreg.cache.ttlMs", 30_000),
+        Integer.getInteger("eventreg.cache.maxSize", 10_000));
+
     public EventService() {
         this.eventDAO = new EventDAO();
     }
@@ -15,8 +25,12 @@ public class EventService {
     
     public boolean updateEvent(Event event) {
         try {
-            return eventDAO.update(event); 
+            boolean updated = eventDAO.update(event); 
+            cache.invalidate(event.getEventId());
+            if (updated) fire(listener -> listener.eventUpdated(event));
+            return updated;
         } catch (SQLException e) {
+            cache.invalidate(event.getEventId());
             System.err.println("Service Error during Event Update: " + e.getMessage());
             e.printStackTrace(); 
             return false;
@@ -26,8 +40,8 @@ public class EventService {
     //R: Reads a single event by ID 
     public Event getEventById(int id) {
         try {
-            // Calls the read method from the evendao file
-            return eventDAO.read(id);
+            // Served from the cache, falling back to the read method from the evendao file
+            return cache.get(id, () -> eventDAO.read(id));
         } catch (SQLException e) {
             System.err.println("Service Error reading event ID " + id + ": " + e.getMessage());
             return null;
@@ -37,21 +51,34 @@ public class EventService {
     // Add other CRUD methods here 
     public List<Event> getAllEvents() {
         try {
-            return eventDAO.readAll();
+            return cache.getAll(eventDAO::readAll);
         } catch (SQLException e) {
             System.err.println("Service Error reading all events: " + e.getMessage());
             return new ArrayList<>();
         }
     }
 
+    // Reads one keyset page of events; pages go straight to the database, not the cache
+    public Page<Event> queryEvents(EventQuery query) {
+        try {
+            return eventDAO.query(query);
+        } catch (SQLException e) {
+            System.err.println("Service Error querying events: " + e.getMessage());
+            return new Page<>(new ArrayList<>(), null);
+        }
+    }
 
         
         // C: Creates a new event by calling the DAO.
         public boolean createEvent(Event event) {
             try {
                 // Calls the create method from the DAO
-                return eventDAO.create(event); 
+                boolean created = eventDAO.create(event); 
+                cache.invalidate(event.getEventId());
+                if (created) fire(listener -> listener.eventCreated(event));
+                return created;
             } catch (SQLException e) {
+                cache.invalidate(event.getEventId());
                 System.err.println("Service Error creating event: " + e.getMessage());
                 // Handle constraint violations or other SQL errors
                 e.printStackTrace();
@@ -64,11 +91,117 @@ public class EventService {
          
         public boolean deleteEvent(int id) {
             try {
-                return eventDAO.delete(id); 
+                boolean deleted = eventDAO.delete(id); 
+                cache.invalidate(id);
+                if (deleted) {
+                    fire(listener -> listener.eventDeleted(id));
+                } else {
+                    announceSurvivors(List.of(id));
+                }
+                return deleted;
             } catch (SQLException e) {
+                cache.invalidate(id);
+                announceSurvivors(List.of(id));
                 System.err.println("Service Error deleting event ID " + id + ": " + e.getMessage());
                 e.printStackTrace();
                 return false;
             }
         }
+
+        // Batch variants: each call is one database transaction, then the cache is dropped once
+
+        public BatchResult createEvents(List<Event> events) {
+            try {
+                BatchResult result = eventDAO.createAll(events);
+                cache.invalidateAll();
+                for (BatchResult.Item item : result.getItems()) {
+                    if (item.isSuccess()) fire(listener -> listener.eventCreated(events.get(item.getIndex())));
+                }
+                return result;
+            } catch (SQLException e) {
+                System.err.println("Service Error creating events in batch: " + e.getMessage());
+                return failedBatch(events.size(), e.getMessage());
+            }
+        }
+
+        public BatchResult updateEvents(List<Event> events) {
+            try {
+                BatchResult result = eventDAO.updateAll(events);
+                cache.invalidateAll();
+                for (BatchResult.Item item : result.getItems()) {
+                    if (item.isSuccess()) fire(listener -> listener.eventUpdated(events.get(item.getIndex())));
+                }
+                return result;
+            } catch (SQLException e) {
+                cache.invalidateAll();
+                System.err.println("Service Error updating events in batch: " + e.getMessage());
+                return failedBatch(events.size(), e.getMessage());
+            }
+        }
+
+        public BatchResult deleteEvents(List<Integer> ids) {
+            try {
+                BatchResult result = eventDAO.deleteAll(ids);
+                cache.invalidateAll();
+                List<Integer> failed = new ArrayList<>();
+                for (BatchResult.Item item : result.getItems()) {
+                    if (item.isSuccess()) {
+                        fire(listener -> listener.eventDeleted(item.getId()));
+                    } else {
+                        failed.add(item.getId());
+                    }
+                }
+                announceSurvivors(failed);
+                return result;
+            } catch (SQLException e) {
+                cache.invalidateAll();
+                announceSurvivors(ids);
+                System.err.println("Service Error deleting events in batch: " + e.getMessage());
+                return failedBatch(ids.size(), e.getMessage());
+            }
+        }
+
+        /**
+         * A delete that failed part way may have closed an event (capacity 0) before giving
+         * up, so listeners holding its old capacity are told about whatever is left of it.
+         */
+        private void announceSurvivors(List<Integer> ids) {
+            for (int id : ids) {
+                try {
+                    Event event = eventDAO.read(id);
+                    if (event != null) fire(listener -> listener.eventUpdated(event));
+                } catch (SQLException e) {
+                    System.err.println("Service Error re-reading event ID " + id + ": " + e.getMessage());
+                }
+            }
+        }
+
+        private static BatchResult failedBatch(int size, String message) {
+            BatchResult result = new BatchResult();
+            for (int i = 0; i < size; i++) {
+                result.failure(i, null, message);
+            }
+            return result;
+        }
+
+        /** Registers a component to be told about event creates, updates and deletes. */
+        public void addListener(EventChangeListener listener) {
+            listeners.add(listener);
+        }
+
+        // A failing listener must not undo or fail a write that already committed
+        private void fire(Consumer<EventChangeListener> notification) {
+            for (EventChangeListener listener : listeners) {
+                try {
+                    notification.accept(listener);
+                } catch (RuntimeException e) {
+                    System.err.println("Event listener failed: " + e.getMessage());
+                }
+            }
+        }
+
+        /** Hit/miss/eviction counters of the event cache. */
+        public EventCache getCache() {
+            return cache;
+        }
 }
\ No newline at end of file
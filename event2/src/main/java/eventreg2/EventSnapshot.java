@@ -0,0 +1,100 @@
+package eventreg2;
+
+import com.google.gson.Gson;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keeps the encoding (JSON unless another encoder is given) of the full event list ready to send.
+ *
+ * <p>The snapshot is tied to the list instance returned by {@link EventService#getAllEvents()}.
+ * That instance only changes when the event cache is invalidated by a write or expires,
+ * so in steady state every GET /api/events reuses the same bytes and ETag.</p>
+ */
+public class EventSnapshot {
+
+    /** One encoded version of the event list. */
+    public static final class Snapshot {
+        private final List<Event> source;
+        private final long version;
+        private final byte[] bytes;
+        private final String etag;
+
+        private Snapshot(List<Event> source, long version, byte[] bytes, String etag) {
+            this.source = source;
+            this.version = version;
+            this.bytes = bytes;
+            this.etag = etag;
+        }
+
+        public long getVersion() { return version; }
+        public byte[] getBytes() { return bytes; }
+        public String getETag() { return etag; }
+
+        /**
+         * Checks an If-None-Match header against this snapshot's ETag.
+         * @param ifNoneMatch The raw header value, possibly a list or "*".
+         * @return true if the client already has this version.
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) return false;
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*")) return true;
+                if (tag.startsWith("W/")) tag = tag.substring(2);
+                if (tag.equals(etag)) return true;
+            }
+            return false;
+        }
+    }
+
+    private final Function<List<Event>, byte[]> encoder;
+    private volatile Snapshot current;
+    private long version;
+
+    public EventSnapshot(Gson gson) {
+        this(events -> gson.toJson(events).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** @param encoder Encodes the event list, e.g. {@link EventCodec#encode}. */
+    public EventSnapshot(Function<List<Event>, byte[]> encoder) {
+        this.encoder = encoder;
+    }
+
+    /**
+     * Returns the snapshot for the given event list, encoding it only if the list changed.
+     * @param events The list currently served by the event cache.
+     */
+    public Snapshot get(List<Event> events) {
+        Snapshot snapshot = current;
+        if (snapshot != null && snapshot.source == events) {
+            return snapshot;
+        }
+        synchronized (this) {
+            snapshot = current;
+            if (snapshot == null || snapshot.source != events) {
+                byte[] bytes = encoder.apply(events);
+                snapshot = new Snapshot(events, ++version, bytes, etagOf(bytes));
+                current = snapshot;
+            }
+            return snapshot;
+        }
+    }
+
+    /** Strong ETag from the content hash, so an unchanged reload keeps the same tag. */
+    private static String etagOf(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            StringBuilder tag = new StringBuilder("\"");
+            for (int i = 0; i < 16; i++) {
+                tag.append(String.format("%02x", digest[i]));
+            }
+            return tag.append('"').toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
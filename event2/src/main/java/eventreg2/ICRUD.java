@@ -28,6 +28,15 @@ public interface ICRUD<T> {
      */
     List<T> readAll() throws SQLException;
 
+    /**
+     * Retrieves one page of records in a stable order without loading the whole table.
+     * @param cursor The opaque cursor returned with the previous page, or null for the first page.
+     * @param limit The maximum number of records on the page.
+     * @return The records and the cursor of the next page.
+     * @throws SQLException if a database error occurs.
+     */
+    Page<T> readPage(String cursor, int limit) throws SQLException;
+
     /**
      * Finds a single record by its ID.
      * @param id The unique database ID.
@@ -51,4 +60,30 @@ public interface ICRUD<T> {
      * @throws SQLException if a database error occurs.
      */
     boolean delete(int id) throws SQLException;
-}
\ No newline at end of file
+
+    /**
+     * Saves many new records in one transaction using JDBC batching. Items that fail
+     * validation are skipped; if any other item fails, none of them is saved.
+     * @param items The objects to be saved; generated IDs are set on them in order.
+     * @return The outcome of each item, in the order given.
+     * @throws SQLException if the database is unavailable.
+     */
+    BatchResult createAll(List<T> items) throws SQLException;
+
+    /**
+     * Updates many existing records in one transaction using JDBC batching. Items that fail
+     * validation are skipped; if any other item fails (e.g. it does not exist), none is updated.
+     * @param items The objects with updated information.
+     * @return The outcome of each item, in the order given.
+     * @throws SQLException if the database is unavailable.
+     */
+    BatchResult updateAll(List<T> items) throws SQLException;
+
+    /**
+     * Removes many records by ID in one transaction.
+     * @param ids The IDs of the records to delete.
+     * @return The outcome of each ID, in the order given.
+     * @throws SQLException if the database is unavailable.
+     */
+    BatchResult deleteAll(List<Integer> ids) throws SQLException;
+}
@@ -0,0 +1,94 @@
+package eventreg2;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when the server is too busy to take on more database work.
+ *
+ * <p>It is overloaded when more than {@code maxDbWaiting} threads are queued for a
+ * database connection, or when the p99 request latency of the last second is above
+ * {@code maxP99Millis}. The p99 comes from the difference between two snapshots of
+ * a {@link Metrics.Histogram} taken a second apart, so the request path pays
+ * nothing extra for it. Either threshold can be disabled with 0.</p>
+ *
+ * <p>The histogram should only hold requests that are normally short and bound by
+ * the database; a full export or a password hash is slow by design and says nothing
+ * about overload. A second with fewer than {@code minSamples} requests is ignored,
+ * so at low traffic one slow request cannot shed everything for the next second.</p>
+ */
+public class LoadShedder {
+
+    private final ConnectionPool pool;
+    private final Metrics.Histogram latency;
+    private final int maxDbWaiting;
+    private final long maxP99Nanos;
+    private final int minSamples;
+
+    private long[] previous;
+    private volatile long recentP99Nanos;
+    private volatile long recentSamples;
+
+    /**
+     * @param pool Connection pool whose waiting count is watched.
+     * @param latency Latency histogram of the requests being protected.
+     * @param maxDbWaiting Threads waiting for a connection above which requests are shed.
+     * @param maxP99Millis Recent p99 latency above which requests are shed.
+     * @param minSamples Requests a second needs before its p99 is trusted.
+     */
+    public LoadShedder(ConnectionPool pool, Metrics.Histogram latency, int maxDbWaiting, long maxP99Millis,
+            int minSamples) {
+        this.pool = pool;
+        this.latency = latency;
+        this.maxDbWaiting = maxDbWaiting;
+        this.maxP99Nanos = TimeUnit.MILLISECONDS.toNanos(maxP99Millis);
+        this.minSamples = minSamples;
+        this.previous = latency.snapshot();
+    }
+
+    /**
+     * Starts taking the p99 once a second. Until then (as in tests) it is only updated
+     * when {@link #sample} is called.
+     * @return This load shedder.
+     */
+    public LoadShedder start() {
+        if (maxP99Nanos > 0) {
+            ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "load-shedder");
+                t.setDaemon(true);
+                return t;
+            });
+            sampler.scheduleAtFixedRate(this::sample, 1, 1, TimeUnit.SECONDS);
+        }
+        return this;
+    }
+
+    /** True if new database-bound requests should be turned away. */
+    public boolean isOverloaded() {
+        if (maxDbWaiting > 0 && pool.getWaitingCount() > maxDbWaiting) return true;
+        return maxP99Nanos > 0 && recentSamples >= minSamples && recentP99Nanos > maxP99Nanos;
+    }
+
+    /** The p99 latency of requests finished in the last second, in nanoseconds. */
+    public long getRecentP99Nanos() {
+        return recentP99Nanos;
+    }
+
+    /** The number of requests the last p99 was taken over. */
+    public long getRecentSamples() {
+        return recentSamples;
+    }
+
+    /** Takes the p99 of the requests recorded since the previous call. */
+    void sample() {
+        long[] current = latency.snapshot();
+        long[] window = new long[current.length];
+        for (int i = 0; i < current.length; i++) {
+            window[i] = current[i] - previous[i];
+        }
+        previous = current;
+        recentSamples = Metrics.Histogram.total(window);
+        recentP99Nanos = Metrics.Histogram.valueAt(window, 0.99);
+    }
+}
@@ -0,0 +1,314 @@
+package eventreg2;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * In-process metrics: counters, gauges and latency timers, rendered in the
+ * Prometheus text exposition format by {@link #render()} (served at GET /metrics).
+ *
+ * <p>Timers and counters are created once, up front, and kept in static fields by
+ * the code that records into them. Recording is then only a few atomic increments
+ * (LongAdder and AtomicLongArray), with no locks and no allocation, so measuring a
+ * request does not change how long it takes.</p>
+ */
+public final class Metrics {
+
+    private static final List<Timer> timers = new CopyOnWriteArrayList<>();
+    private static final List<Counter> counters = new CopyOnWriteArrayList<>();
+    private static final List<Gauge> gauges = new CopyOnWriteArrayList<>();
+
+    /** Quantiles reported for every timer. */
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private Metrics() {
+    }
+
+    /**
+     * Returns the timer of one operation, creating it on first use.
+     * @param family Metric name prefix, e.g. "eventreg_http_request".
+     * @param label Label name distinguishing operations, e.g. "route".
+     * @param value Label value, e.g. "GET /api/events".
+     */
+    public static synchronized Timer timer(String family, String label, String value) {
+        for (Timer timer : timers) {
+            if (timer.family.equals(family) && timer.labels.equals(labels(label, value))) return timer;
+        }
+        Timer timer = new Timer(family, labels(label, value));
+        timers.add(timer);
+        return timer;
+    }
+
+    /** Returns a counter, creating it on first use. Label may be null for an unlabelled counter. */
+    public static synchronized Counter counter(String name, String label, String value) {
+        String labels = label == null ? "" : labels(label, value);
+        for (Counter counter : counters) {
+            if (counter.name.equals(name) && counter.labels.equals(labels)) return counter;
+        }
+        Counter counter = new Counter(name, labels);
+        counters.add(counter);
+        return counter;
+    }
+
+    /** Registers a gauge whose value is read from the supplier at scrape time. */
+    public static void gauge(String name, String help, LongSupplier value) {
+        gauges.add(new Gauge(name, help, value));
+    }
+
+    /** Renders every metric in the Prometheus text format (version 0.0.4). */
+    public static String render() {
+        StringBuilder out = new StringBuilder(4096);
+        // Lines of one metric family must be contiguous, so group by name
+        List<Timer> timers = new ArrayList<>(Metrics.timers);
+        timers.sort(Comparator.comparing(timer -> timer.family));
+        List<Counter> counters = new ArrayList<>(Metrics.counters);
+        counters.sort(Comparator.comparing(counter -> counter.name));
+
+        String family = null;
+        for (Timer timer : timers) {
+            if (!timer.family.equals(family)) {
+                family = timer.family;
+                out.append("# TYPE ").append(family).append("_duration_seconds summary\n");
+            }
+            timer.renderSummary(out);
+        }
+        family = null;
+        for (Timer timer : timers) {
+            if (!timer.family.equals(family)) {
+                family = timer.family;
+                out.append("# TYPE ").append(family).append("_errors_total counter\n");
+            }
+            out.append(family).append("_errors_total{").append(timer.labels).append("} ")
+               .append(timer.errors.sum()).append('\n');
+        }
+        family = null;
+        for (Timer timer : timers) {
+            if (!timer.family.equals(family)) {
+                family = timer.family;
+                out.append("# TYPE ").append(family).append("_in_flight gauge\n");
+            }
+            out.append(family).append("_in_flight{").append(timer.labels).append("} ")
+               .append(timer.inFlight.sum()).append('\n');
+        }
+        String name = null;
+        for (Counter counter : counters) {
+            if (!counter.name.equals(name)) {
+                name = counter.name;
+                out.append("# TYPE ").append(name).append(" counter\n");
+            }
+            out.append(name);
+            if (!counter.labels.isEmpty()) out.append('{').append(counter.labels).append('}');
+            out.append(' ').append(counter.count.sum()).append('\n');
+        }
+        for (Gauge gauge : gauges) {
+            out.append("# HELP ").append(gauge.name).append(' ').append(gauge.help).append('\n');
+            out.append("# TYPE ").append(gauge.name).append(" gauge\n");
+            out.append(gauge.name).append(' ').append(gauge.value.getAsLong()).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static String labels(String label, String value) {
+        return label + "=\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    /**
+     * Latency, error count and in-flight count of one operation.
+     * Use as {@code long start = timer.start(); try { ... } catch (Throwable e) { timer.error(); throw e; }
+     * finally { timer.stop(start); }}.
+     */
+    public static final class Timer {
+        private final String family;
+        private final String labels;
+        private final Histogram histogram = new Histogram();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder inFlight = new LongAdder();
+
+        Timer(String family, String labels) {
+            this.family = family;
+            this.labels = labels;
+        }
+
+        /** Marks an operation as started. @return The start timestamp to pass to {@link #stop(long)}. */
+        public long start() {
+            inFlight.increment();
+            return System.nanoTime();
+        }
+
+        /** Records the latency of an operation begun with {@link #start()}. */
+        public void stop(long startNanos) {
+            histogram.record(System.nanoTime() - startNanos);
+            inFlight.decrement();
+        }
+
+        /** Counts a failed operation; call in addition to {@link #stop(long)}. */
+        public void error() {
+            errors.increment();
+        }
+
+        /** Runs a database call as one timed operation, counted as an error if it throws. */
+        public <T> T time(SqlCall<T> call) throws SQLException {
+            long start = start();
+            try {
+                return call.call();
+            } catch (Throwable e) {
+                error();
+                throw e;
+            } finally {
+                stop(start);
+            }
+        }
+
+        public Histogram getHistogram() { return histogram; }
+
+        public long getErrorCount() { return errors.sum(); }
+
+        public long getInFlight() { return inFlight.sum(); }
+
+        private void renderSummary(StringBuilder out) {
+            String name = family + "_duration_seconds";
+            long[] counts = histogram.snapshot();
+            for (double q : QUANTILES) {
+                out.append(name).append('{').append(labels).append(",quantile=\"").append(q).append("\"} ")
+                   .append(seconds(Histogram.valueAt(counts, q))).append('\n');
+            }
+            out.append(name).append("_sum{").append(labels).append("} ")
+               .append(seconds(histogram.getSum())).append('\n');
+            out.append(name).append("_count{").append(labels).append("} ")
+               .append(Histogram.total(counts)).append('\n');
+        }
+
+        private static String seconds(long nanos) {
+            return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+        }
+    }
+
+    /** A database call timed by {@link Timer#time}. */
+    @FunctionalInterface
+    public interface SqlCall<T> {
+        T call() throws SQLException;
+    }
+
+    /** A monotonically increasing count. */
+    public static final class Counter {
+        private final String name;
+        private final String labels;
+        private final LongAdder count = new LongAdder();
+
+        Counter(String name, String labels) {
+            this.name = name;
+            this.labels = labels;
+        }
+
+        public void increment() {
+            count.increment();
+        }
+
+        public void add(long n) {
+            count.add(n);
+        }
+
+        public long get() {
+            return count.sum();
+        }
+    }
+
+    private static final class Gauge {
+        final String name;
+        final String help;
+        final LongSupplier value;
+
+        Gauge(String name, String help, LongSupplier value) {
+            this.name = name;
+            this.help = help;
+            this.value = value;
+        }
+    }
+
+    /**
+     * A log-linear latency histogram in nanoseconds, in the style of HdrHistogram.
+     *
+     * <p>Values below 32 get a bucket each; above that every power of two is split into
+     * 16 equal buckets, so a reported quantile is at most 1/16 (6.25%) above the true
+     * value. Values up to 2^40 ns (about 18 minutes) fit in 592 buckets; larger ones
+     * land in one overflow bucket.</p>
+     */
+    public static final class Histogram {
+        private static final int SUB_BITS = 4;
+        private static final int SUB_COUNT = 1 << SUB_BITS;
+        private static final int MAX_EXPONENT = 40;
+        static final int BUCKETS = (MAX_EXPONENT - SUB_BITS) * SUB_COUNT + SUB_COUNT + 1;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAdder sum = new LongAdder();
+
+        public void record(long nanos) {
+            if (nanos < 0) nanos = 0;
+            counts.incrementAndGet(bucketOf(nanos));
+            sum.add(nanos);
+        }
+
+        /** Sum of all recorded values in nanoseconds. */
+        public long getSum() {
+            return sum.sum();
+        }
+
+        /** The value at quantile q (0..1) in nanoseconds, 0 if nothing was recorded. */
+        public long valueAt(double q) {
+            return valueAt(snapshot(), q);
+        }
+
+        public long getCount() {
+            return total(snapshot());
+        }
+
+        long[] snapshot() {
+            long[] copy = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                copy[i] = counts.get(i);
+            }
+            return copy;
+        }
+
+        static long total(long[] counts) {
+            long total = 0;
+            for (long c : counts) total += c;
+            return total;
+        }
+
+        static long valueAt(long[] counts, double q) {
+            long total = total(counts);
+            if (total == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(q * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return highestValueIn(i);
+            }
+            return highestValueIn(counts.length - 1);
+        }
+
+        static int bucketOf(long value) {
+            if (value < 2 * SUB_COUNT) return (int) value;
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            if (exponent >= MAX_EXPONENT) return BUCKETS - 1;
+            int shift = exponent - SUB_BITS;
+            return shift * SUB_COUNT + (int) (value >>> shift);
+        }
+
+        /** The largest value that falls into bucket i. */
+        static long highestValueIn(int bucket) {
+            if (bucket < 2 * SUB_COUNT) return bucket;
+            int shift = bucket / SUB_COUNT - 1;
+            long mantissa = bucket % SUB_COUNT + SUB_COUNT;
+            return ((mantissa + 1) << shift) - 1;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package eventreg2;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing.
+ * @param <T> The type of record on the page.
+ */
+public class Page<T> {
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    public Page(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() { return items; }
+
+    /** Opaque cursor for the next page, or null if this is the last page. */
+    public String getNextCursor() { return nextCursor; }
+}
@@ -0,0 +1,233 @@
+package eventreg2;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Hashes and verifies passwords with PBKDF2-HMAC-SHA256.
+ *
+ * <p>Stored hashes look like {@code pbkdf2$sha256$<iterations>$<salt>$<hash>} (Base64),
+ * so the cost can be raised later: {@link Verification#needsRehash()} tells the caller
+ * to store a fresh hash after a successful login. Values without that prefix are
+ * legacy plaintext passwords; they still verify (in constant time) and always need a
+ * rehash.</p>
+ *
+ * <p>Hashing is deliberately slow, so it runs on a small executor of its own (one
+ * thread per core by default) with a bounded queue; when the queue is full the returned
+ * future fails with {@link RejectedExecutionException} (it is never thrown). A
+ * successful verification is remembered for a short time, keyed by a fast digest of
+ * the password and stored hash, so a client logging in again skips PBKDF2.</p>
+ */
+public class PasswordHasher {
+
+    private static final String PREFIX = "pbkdf2$sha256$";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int KEY_BITS = 256;
+
+    /** Result of checking a password against a stored hash. */
+    public static final class Verification {
+        private final boolean matches;
+        private final boolean needsRehash;
+
+        Verification(boolean matches, boolean needsRehash) {
+            this.matches = matches;
+            this.needsRehash = needsRehash;
+        }
+
+        public boolean matches() { return matches; }
+
+        /** True if the password matched but is stored in plaintext or with a different cost. */
+        public boolean needsRehash() { return needsRehash; }
+    }
+
+    private static final class CachedVerification {
+        final byte[] digest;
+        final long expiresAt;
+
+        CachedVerification(byte[] digest, long expiresAt) {
+            this.digest = digest;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final int iterations;
+    private final long cacheTtlMillis;
+    private final int cacheMaxSize;
+    private final ThreadPoolExecutor executor;
+    private final SecureRandom random = new SecureRandom();
+    /** Random per-process key mixed into cache digests, so they are useless outside this JVM. */
+    private final byte[] cacheKey = new byte[32];
+    private final ConcurrentHashMap<String, CachedVerification> verified = new ConcurrentHashMap<>();
+    private final LongAdder cacheHits = new LongAdder();
+
+    /**
+     * @param iterations PBKDF2 iterations for new hashes.
+     * @param threads Threads hashing in parallel.
+     * @param queueSize Hash requests that may wait for a thread before new ones are rejected.
+     * @param cacheTtlMillis How long a successful verification is remembered (0 disables the cache).
+     * @param cacheMaxSize Most users remembered at once.
+     */
+    public PasswordHasher(int iterations, int threads, int queueSize, long cacheTtlMillis, int cacheMaxSize) {
+        this.iterations = iterations;
+        this.cacheTtlMillis = cacheTtlMillis;
+        this.cacheMaxSize = cacheMaxSize;
+        random.nextBytes(cacheKey);
+
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), r -> {
+                    Thread t = new Thread(r, "password-hasher-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /** Hashes a password on the hashing executor. */
+    public CompletableFuture<String> hash(String password) {
+        try {
+            return CompletableFuture.supplyAsync(() -> encode(password), executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Verifies a user's password on the hashing executor, or straight from the cache
+     * if the same password was verified against the same stored hash recently.
+     */
+    public CompletableFuture<Verification> verify(String username, String password, String stored) {
+        if (password == null || stored == null) {
+            return CompletableFuture.completedFuture(new Verification(false, false));
+        }
+        CachedVerification cached = verified.get(username);
+        if (cached != null && cached.expiresAt > System.currentTimeMillis()
+                && MessageDigest.isEqual(cached.digest, cacheDigest(password, stored))) {
+            cacheHits.increment();
+            return CompletableFuture.completedFuture(new Verification(true, needsRehash(stored)));
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                Verification result = check(password, stored);
+                if (result.matches()) remember(username, password, stored);
+                return result;
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /** Hashes a password on the calling thread. */
+    public String encode(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + iterations + "$" + base64.encodeToString(salt) + "$"
+                + base64.encodeToString(pbkdf2(password, salt, iterations));
+    }
+
+    /** Verifies a password on the calling thread, without the cache. */
+    public Verification check(String password, String stored) {
+        if (!stored.startsWith(PREFIX)) {
+            // Legacy plaintext password
+            boolean matches = MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8),
+                    stored.getBytes(StandardCharsets.UTF_8));
+            return new Verification(matches, matches);
+        }
+        String[] parts = stored.substring(PREFIX.length()).split("\\$");
+        if (parts.length != 3) return new Verification(false, false);
+        try {
+            int storedIterations = Integer.parseInt(parts[0]);
+            Base64.Decoder base64 = Base64.getDecoder();
+            byte[] salt = base64.decode(parts[1]);
+            byte[] expected = base64.decode(parts[2]);
+            boolean matches = MessageDigest.isEqual(expected, pbkdf2(password, salt, storedIterations));
+            return new Verification(matches, matches && storedIterations != iterations);
+        } catch (IllegalArgumentException e) {
+            return new Verification(false, false);
+        }
+    }
+
+    /** True if a stored value is a PBKDF2 hash rather than a legacy plaintext password. */
+    public static boolean isHash(String stored) {
+        return stored.startsWith(PREFIX);
+    }
+
+    /** True if a stored value is plaintext or was hashed with a different cost. */
+    public boolean needsRehash(String stored) {
+        return !stored.startsWith(PREFIX + iterations + "$");
+    }
+
+    public int getIterations() { return iterations; }
+
+    /** Hash requests waiting for a thread. */
+    public int getQueueDepth() { return executor.getQueue().size(); }
+
+    public long getCacheHitCount() { return cacheHits.sum(); }
+
+    private void remember(String username, String password, String stored) {
+        if (cacheTtlMillis <= 0 || username == null) return;
+        long now = System.currentTimeMillis();
+        if (verified.size() >= cacheMaxSize) {
+            // Drop expired entries; if that frees nothing, skip caching rather than grow
+            for (Iterator<Map.Entry<String, CachedVerification>> it = verified.entrySet().iterator(); it.hasNext();) {
+                if (it.next().getValue().expiresAt <= now) it.remove();
+            }
+            if (verified.size() >= cacheMaxSize) return;
+        }
+        verified.put(username, new CachedVerification(cacheDigest(password, stored), now + cacheTtlMillis));
+    }
+
+    private byte[] cacheDigest(String password, String stored) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            sha256.update(cacheKey);
+            sha256.update(stored.getBytes(StandardCharsets.UTF_8));
+            sha256.update((byte) 0);
+            return sha256.digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, KEY_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    /**
+     * Prints the hash of a password, e.g. for -Deventreg.admin.passwordHash:
+     * {@code java -cp <classpath> eventreg2.PasswordHasher <password>}. The cost is
+     * taken from -Deventreg.password.iterations like the server's.
+     */
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.err.println("Usage: java eventreg2.PasswordHasher <password>");
+            System.exit(2);
+        }
+        PasswordHasher hasher = new PasswordHasher(Integer.getInteger("eventreg.password.iterations", 310_000), 1, 1, 0, 0);
+        System.out.println(hasher.encode(args[0]));
+    }
+}
@@ -0,0 +1,107 @@
+package eventreg2;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-client token buckets, one table per route class.
+ *
+ * <p>Each bucket is a single {@link AtomicLong} updated with compare-and-set, using the
+ * "generic cell rate" form of a token bucket: instead of a token count it stores the
+ * time at which the bucket will be full again. A request is admitted if that time is
+ * no more than {@code burst} intervals ahead, and pushes it one interval further.
+ * No locks, and no background refill.</p>
+ *
+ * <p>A bucket that has refilled completely holds no information, so idle clients are
+ * dropped by a sweep every 10 seconds, on a background thread so no request pays for
+ * walking the table. Once the table holds {@code maxClients}, new clients are hashed
+ * onto {@value #OVERFLOW_BUCKETS} shared overflow buckets until a sweep frees space,
+ * so memory stays bounded no matter how many addresses show up. The trade-off: until
+ * then, clients sharing an overflow bucket share one client's budget, so a noisy one
+ * can get the others in its bucket a 429 for up to one sweep interval. Hashing limits
+ * that to about 1/{@value #OVERFLOW_BUCKETS} of the new clients.</p>
+ */
+public class RateLimiter {
+
+    private static final int OVERFLOW_BUCKETS = 64;
+    private static final long SWEEP_INTERVAL_SECONDS = 10;
+
+    /** One sweeper thread for every limiter. */
+    private static final ScheduledExecutorService SWEEPER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "ratelimit-sweeper");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final int maxClients;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * @param perSecond Sustained requests per second allowed per client.
+     * @param burst Requests a client may make at once after being idle.
+     * @param maxClients Most clients tracked at once.
+     */
+    public RateLimiter(double perSecond, int burst, int maxClients) {
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / perSecond);
+        this.burstNanos = intervalNanos * Math.max(0, burst - 1);
+        this.maxClients = maxClients;
+    }
+
+    /**
+     * Registers this limiter with the sweeper thread; without it idle clients are only
+     * dropped by calling {@link #sweep}.
+     * @return This limiter.
+     */
+    public RateLimiter start() {
+        SWEEPER.scheduleWithFixedDelay(() -> sweep(System.nanoTime()),
+            SWEEP_INTERVAL_SECONDS, SWEEP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        return this;
+    }
+
+    /**
+     * Takes one token from the client's bucket.
+     * @return 0 if admitted, otherwise how many nanoseconds until a token is available.
+     */
+    public long tryAcquire(String client) {
+        return tryAcquire(client, System.nanoTime());
+    }
+
+    long tryAcquire(String client, long now) {
+        AtomicLong bucket = buckets.get(client);
+        if (bucket == null) {
+            if (buckets.size() >= maxClients) client = overflowKey(client);
+            bucket = buckets.computeIfAbsent(client, key -> new AtomicLong(now));
+        }
+
+        while (true) {
+            long full = bucket.get();
+            long start = Math.max(full, now);
+            long wait = start - now - burstNanos;
+            if (wait > 0) return wait;
+            if (bucket.compareAndSet(full, start + intervalNanos)) return 0;
+        }
+    }
+
+    /** Number of clients currently tracked. */
+    public int size() {
+        return buckets.size();
+    }
+
+    /**
+     * Drops buckets that have refilled completely; a new bucket behaves the same.
+     * A request racing with the removal may get one extra token, which is harmless.
+     */
+    void sweep(long now) {
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+    }
+
+    /** The shared bucket a client is counted against while the table is full. */
+    static String overflowKey(String client) {
+        return "*" + Math.floorMod(client.hashCode(), OVERFLOW_BUCKETS);
+    }
+}
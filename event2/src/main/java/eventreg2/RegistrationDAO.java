@@ -2,8 +2,14 @@ package eventreg2;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Data Access Object (DAO) for handling the many-to-many relationship 
@@ -12,11 +18,64 @@ import java.sql.SQLIntegrityConstraintViolationException;
  */
 public class RegistrationDAO {
 
-    private Connection connection;
+    /** Capacity of an event and the users already registered for it. */
+    public static class SeatSnapshot {
+        private final int capacity;
+        private final List<Integer> userIds;
+
+        public SeatSnapshot(int capacity, List<Integer> userIds) {
+            this.capacity = capacity;
+            this.userIds = userIds;
+        }
+
+        public int getCapacity() { return capacity; }
+        public List<Integer> getUserIds() { return userIds; }
+    }
+
+    private static final String INSERT_SQL = "INSERT INTO registrations (user_id, event_id, registration_date) VALUES (?, ?, NOW())";
+    private static final String CLAIM_SEAT_SQL = "UPDATE events SET registered_count = registered_count + 1 "
+            + "WHERE event_id = ? AND registered_count < capacity";
+    private static final String CLAIM_SEATS_SQL = "UPDATE events SET registered_count = registered_count + ? "
+            + "WHERE event_id = ? AND registered_count + ? <= capacity";
+    private static final String RECONCILE_SQL = "UPDATE events SET registered_count = "
+            + "(SELECT COUNT(*) FROM registrations WHERE event_id = ?) WHERE event_id = ?";
+    private static final String CAPACITY_SQL = "SELECT capacity FROM events WHERE event_id = ?";
+    private static final String USERS_SQL = "SELECT user_id FROM registrations WHERE event_id = ?";
+    private static final String CANCEL_SQL = "DELETE FROM registrations WHERE user_id = ? AND event_id = ?";
+    private static final String RELEASE_SEAT_SQL = "UPDATE events SET registered_count = registered_count - 1 "
+            + "WHERE event_id = ? AND registered_count > 0";
+    private static final String JOIN_WAITLIST_SQL = "INSERT INTO waitlist (event_id, user_id, joined_at) VALUES (?, ?, NOW())";
+    private static final String LEAVE_WAITLIST_SQL = "DELETE FROM waitlist WHERE event_id = ? AND user_id = ?";
+    private static final String LOAD_WAITLIST_SQL = "SELECT user_id FROM waitlist WHERE event_id = ? ORDER BY seq";
+
+    // Per-method latency, errors and in-flight calls, reported at GET /metrics
+    private static final Metrics.Timer REGISTER_TIMER = Metrics.timer("eventreg_dao_call", "method", "RegistrationDAO.register");
+    private static final Metrics.Timer REGISTER_WITHIN_CAPACITY_TIMER = Metrics.timer("eventreg_dao_call", "method", "RegistrationDAO.registerWithinCapacity");
+    private static final Metrics.Timer REGISTER_GROUP_TIMER = Metrics.timer("eventreg_dao_call", "method", "RegistrationDAO.registerGroup");
+    private static final Metrics.Timer LOAD_SEATS_TIMER = Metrics.timer("eventreg_dao_call", "method", "RegistrationDAO.loadSeats");
+    private static final Metrics.Timer FOR_EACH_REGISTRATION_TIMER = Metrics.timer("eventreg_dao_call", "method", "RegistrationDAO.forEachRegistration");
+    private static final Metrics.Timer CANCEL_TIMER = Metrics.timer("eventreg_dao_call", "method", "RegistrationDAO.cancel");
+    private static final Metrics.Timer JOIN_WAITLIST_TIMER = Metrics.timer("eventreg_dao_call", "method", "RegistrationDAO.joinWaitlist");
+    private static final Metrics.Timer LEAVE_WAITLIST_TIMER = Metrics.timer("eventreg_dao_call", "method", "RegistrationDAO.leaveWaitlist");
+    private static final Metrics.Timer LOAD_WAITLIST_TIMER = Metrics.timer("eventreg_dao_call", "method", "RegistrationDAO.loadWaitlist");
+    private static final Metrics.Timer PROMOTE_TIMER = Metrics.timer("eventreg_dao_call", "method", "RegistrationDAO.promote");
+
+    /** Receives registrations streamed by {@link #forEachRegistration}. */
+    @FunctionalInterface
+    public interface RegistrationSink {
+        void accept(int userId, int eventId);
+    }
+
+    /** Told about every committed registration change; null if there is no audit log. */
+    private final AuditLog audit;
 
     public RegistrationDAO() {
-        // Aggregation: Uses the centralized connection established by DatabaseConnection
-        this.connection = DatabaseConnection.getConnection();
+        this(null);
+    }
+
+    public RegistrationDAO(AuditLog audit) {
+        // Aggregation: Borrows pooled connections from the centralized DatabaseConnection
+        this.audit = audit;
     }
 
     /**
@@ -28,29 +87,437 @@ public class RegistrationDAO {
      * @throws SQLException If a database access error or constraint violation occurs (e.g., invalid IDs).
      */
     public boolean register(int userId, int eventId) throws SQLException {
-        if (connection == null) return false;
-
-        // SQL to insert the link into the registration table
-        // 'NOW()' sets the registration_date to the current timestamp.
-        String sql = "INSERT INTO registrations (user_id, event_id, registration_date) VALUES (?, ?, NOW())";
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, userId);
-            pstmt.setInt(2, eventId);
-            
-            // executeUpdate returns the number of rows affected (should be 1 for success)
-            int rowsAffected = pstmt.executeUpdate();
-            
-            return rowsAffected > 0;
-            
-        } catch (SQLIntegrityConstraintViolationException e) {
-            // This handles two cases:
-            // 1. Duplicate entry (user_id, event_id) primary key violation (User already registered)
-            // 2. Foreign key violation (User or Event ID does not exist)
-            System.err.println("Registration failed due to constraint: " + e.getMessage());
-            // Throw the exception again to be handled by the EventAPI route
-            throw e;
+        return REGISTER_TIMER.time(() -> {
+            // SQL to insert the link into the registration table
+            // 'NOW()' sets the registration_date to the current timestamp.
+            try (Connection connection = DatabaseConnection.getConnection()) {
+                if (connection == null) return false;
+
+                try (PreparedStatement pstmt = connection.prepareStatement(INSERT_SQL)) {
+                    pstmt.setInt(1, userId);
+                    pstmt.setInt(2, eventId);
+
+                    // executeUpdate returns the number of rows affected (should be 1 for success)
+                    int rowsAffected = pstmt.executeUpdate();
+                    if (rowsAffected > 0) audit(AuditLog.Type.REGISTERED, userId, eventId);
+
+                    return rowsAffected > 0;
+                }
+            } catch (SQLIntegrityConstraintViolationException e) {
+                // This handles two cases:
+                // 1. Duplicate entry (user_id, event_id) primary key violation (User already registered)
+                // 2. Foreign key violation (User or Event ID does not exist)
+                System.err.println("Registration failed due to constraint: " + e.getMessage());
+                // Throw the exception again to be handled by the EventAPI route
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * Registers an attendee only if the event still has a free seat.
+     * The seat is claimed by incrementing events.registered_count under a
+     * "registered_count &lt; capacity" guard in the same transaction as the insert,
+     * so concurrent registrations can never push the count past the capacity.
+     * @param userId The ID of the user (attendee) to register.
+     * @param eventId The ID of the event the user is registering for.
+     * @return true if registered, false if the event is full or does not exist.
+     * @throws SQLIntegrityConstraintViolationException if the user is already registered or does not exist.
+     * @throws SQLException If a database access error occurs.
+     */
+    public boolean registerWithinCapacity(int userId, int eventId) throws SQLException {
+        return REGISTER_WITHIN_CAPACITY_TIMER.time(() -> {
+            try (Connection connection = DatabaseConnection.getConnection()) {
+                if (connection == null) return false;
+
+                connection.setAutoCommit(false);
+                try {
+                    try (PreparedStatement claim = connection.prepareStatement(CLAIM_SEAT_SQL)) {
+                        claim.setInt(1, eventId);
+                        if (claim.executeUpdate() == 0) {
+                            connection.rollback();
+                            return false;
+                        }
+                    }
+                    try (PreparedStatement insert = connection.prepareStatement(INSERT_SQL)) {
+                        insert.setInt(1, userId);
+                        insert.setInt(2, eventId);
+                        insert.executeUpdate();
+                    }
+                    connection.commit();
+                    audit(AuditLog.Type.REGISTERED, userId, eventId);
+                    return true;
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            }
+        });
+    }
+
+    /**
+     * Registers many users for many events in one transaction: one guarded seat claim
+     * per event (as in {@link #promote}) and a single multi-row INSERT for all rows.
+     * Used by the {@link RegistrationWriter} to commit a whole group at once.
+     * @param usersByEvent The users to register, keyed by event ID.
+     * @return true if every row was registered; false (with nothing written) if any
+     *         event lacks enough free seats or does not exist.
+     * @throws SQLIntegrityConstraintViolationException if any row is a duplicate or names
+     *         a missing user; nothing is written.
+     * @throws SQLException If a database access error occurs.
+     */
+    public boolean registerGroup(Map<Integer, List<Integer>> usersByEvent) throws SQLException {
+        return REGISTER_GROUP_TIMER.time(() -> {
+            if (usersByEvent.isEmpty()) return true;
+
+            StringBuilder insertSql = new StringBuilder("INSERT INTO registrations (user_id, event_id, registration_date) VALUES ");
+            int rows = 0;
+            for (List<Integer> userIds : usersByEvent.values()) {
+                for (int i = 0; i < userIds.size(); i++) {
+                    insertSql.append(rows++ == 0 ? "(?, ?, NOW())" : ", (?, ?, NOW())");
+                }
+            }
+
+            try (Connection connection = DatabaseConnection.getConnection()) {
+                if (connection == null) throw new SQLException("Database connection is not available in RegistrationDAO.");
+
+                connection.setAutoCommit(false);
+                try {
+                    try (PreparedStatement claim = connection.prepareStatement(CLAIM_SEATS_SQL)) {
+                        for (Map.Entry<Integer, List<Integer>> entry : usersByEvent.entrySet()) {
+                            claim.setInt(1, entry.getValue().size());
+                            claim.setInt(2, entry.getKey());
+                            claim.setInt(3, entry.getValue().size());
+                            if (claim.executeUpdate() == 0) {
+                                connection.rollback();
+                                return false;
+                            }
+                        }
+                    }
+                    try (PreparedStatement insert = connection.prepareStatement(insertSql.toString())) {
+                        int param = 1;
+                        for (Map.Entry<Integer, List<Integer>> entry : usersByEvent.entrySet()) {
+                            for (int userId : entry.getValue()) {
+                                insert.setInt(param++, userId);
+                                insert.setInt(param++, entry.getKey());
+                            }
+                        }
+                        insert.executeUpdate();
+                    }
+                    connection.commit();
+                    for (Map.Entry<Integer, List<Integer>> entry : usersByEvent.entrySet()) {
+                        for (int userId : entry.getValue()) audit(AuditLog.Type.REGISTERED, userId, entry.getKey());
+                    }
+                    return true;
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            }
+        });
+    }
+
+    /**
+     * Loads the capacity of an event and who is registered for it, and resets
+     * events.registered_count to the real number of registrations.
+     * @param eventId The event to load.
+     * @return The seat snapshot, or null if the event does not exist.
+     * @throws SQLException If a database access error occurs.
+     */
+    public SeatSnapshot loadSeats(int eventId) throws SQLException {
+        return LOAD_SEATS_TIMER.time(() -> {
+            try (Connection connection = DatabaseConnection.getConnection()) {
+                if (connection == null) throw new SQLException("Database connection is not available in RegistrationDAO.");
+
+                connection.setAutoCommit(false);
+                try {
+                    try (PreparedStatement reconcile = connection.prepareStatement(RECONCILE_SQL)) {
+                        reconcile.setInt(1, eventId);
+                        reconcile.setInt(2, eventId);
+                        if (reconcile.executeUpdate() == 0) {
+                            connection.rollback();
+                            return null;
+                        }
+                    }
+
+                    int capacity;
+                    try (PreparedStatement pstmt = connection.prepareStatement(CAPACITY_SQL)) {
+                        pstmt.setInt(1, eventId);
+                        try (ResultSet rs = pstmt.executeQuery()) {
+                            rs.next();
+                            capacity = rs.getInt(1);
+                        }
+                    }
+
+                    List<Integer> userIds = new ArrayList<>();
+                    try (PreparedStatement pstmt = connection.prepareStatement(USERS_SQL)) {
+                        pstmt.setInt(1, eventId);
+                        try (ResultSet rs = pstmt.executeQuery()) {
+                            while (rs.next()) {
+                                userIds.add(rs.getInt(1));
+                            }
+                        }
+                    }
+                    connection.commit();
+                    return new SeatSnapshot(capacity, userIds);
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            }
+        });
+    }
+
+    /**
+     * Streams every registration to the sink, ordered by event and then user so that
+     * loading the {@link RegistrationIndex} only ever appends to its arrays.
+     * @throws SQLException If a database access error occurs.
+     */
+    public void forEachRegistration(RegistrationSink sink) throws SQLException {
+        FOR_EACH_REGISTRATION_TIMER.time(() -> {
+            String sql = "SELECT user_id, event_id FROM registrations ORDER BY event_id, user_id";
+            try (Connection connection = DatabaseConnection.getConnection()) {
+                if (connection == null) throw new SQLException("Database connection is not available in RegistrationDAO.");
+
+                try (PreparedStatement pstmt = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    pstmt.setFetchSize(DatabaseConnection.getDialect().getStreamFetchSize());
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            sink.accept(rs.getInt(1), rs.getInt(2));
+                        }
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Cancels a registration and frees its seat in one transaction.
+     * @return true if the user was registered for the event.
+     * @throws SQLException If a database access error occurs.
+     */
+    public boolean cancel(int userId, int eventId) throws SQLException {
+        return CANCEL_TIMER.time(() -> {
+            try (Connection connection = DatabaseConnection.getConnection()) {
+                if (connection == null) return false;
+
+                connection.setAutoCommit(false);
+                try {
+                    try (PreparedStatement delete = connection.prepareStatement(CANCEL_SQL)) {
+                        delete.setInt(1, userId);
+                        delete.setInt(2, eventId);
+                        if (delete.executeUpdate() == 0) {
+                            connection.rollback();
+                            return false;
+                        }
+                    }
+                    try (PreparedStatement release = connection.prepareStatement(RELEASE_SEAT_SQL)) {
+                        release.setInt(1, eventId);
+                        release.executeUpdate();
+                    }
+                    connection.commit();
+                    audit(AuditLog.Type.CANCELLED, userId, eventId);
+                    return true;
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            }
+        });
+    }
+
+    /**
+     * Adds a user to the end of an event's waitlist.
+     * @throws SQLIntegrityConstraintViolationException if the user is already waiting or does not exist.
+     * @throws SQLException If a database access error occurs.
+     */
+    public void joinWaitlist(int userId, int eventId) throws SQLException {
+        JOIN_WAITLIST_TIMER.time(() -> {
+            try (Connection connection = DatabaseConnection.getConnection()) {
+                if (connection == null) throw new SQLException("Database connection is not available in RegistrationDAO.");
+
+                try (PreparedStatement pstmt = connection.prepareStatement(JOIN_WAITLIST_SQL)) {
+                    pstmt.setInt(1, eventId);
+                    pstmt.setInt(2, userId);
+                    pstmt.executeUpdate();
+                }
+                audit(AuditLog.Type.WAITLIST_JOINED, userId, eventId);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Removes a user from an event's waitlist.
+     * @return true if the user was waiting.
+     */
+    public boolean leaveWaitlist(int userId, int eventId) throws SQLException {
+        return LEAVE_WAITLIST_TIMER.time(() -> {
+            try (Connection connection = DatabaseConnection.getConnection()) {
+                if (connection == null) return false;
+
+                try (PreparedStatement pstmt = connection.prepareStatement(LEAVE_WAITLIST_SQL)) {
+                    pstmt.setInt(1, eventId);
+                    pstmt.setInt(2, userId);
+                    if (pstmt.executeUpdate() == 0) return false;
+                }
+                audit(AuditLog.Type.WAITLIST_LEFT, userId, eventId);
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Loads an event's waitlist in join order.
+     * @return The waiting user IDs, first in line first.
+     */
+    public List<Integer> loadWaitlist(int eventId) throws SQLException {
+        return LOAD_WAITLIST_TIMER.time(() -> {
+            List<Integer> userIds = new ArrayList<>();
+            try (Connection connection = DatabaseConnection.getConnection()) {
+                if (connection == null) throw new SQLException("Database connection is not available in RegistrationDAO.");
+
+                try (PreparedStatement pstmt = connection.prepareStatement(LOAD_WAITLIST_SQL)) {
+                    pstmt.setInt(1, eventId);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            userIds.add(rs.getInt(1));
+                        }
+                    }
+                }
+            }
+            return userIds;
+        });
+    }
+
+    /**
+     * Moves a batch of waitlisted users into registrations in one transaction.
+     * Users who can no longer be promoted are dropped first, so one stale entry cannot
+     * fail the batch on every retry: a user already registered for the event (e.g. two
+     * concurrent requests both registered and waitlisted them) loses their waitlist row,
+     * and a user without a waitlist row any more (they left) is skipped. The rest move
+     * with three set-based statements: claim all their seats at once, insert every
+     * registration in a single multi-row INSERT, and delete them from the waitlist.
+     * @param eventId The event whose seats freed up.
+     * @param userIds The users to promote, in waitlist order.
+     * @return The users promoted, in waitlist order, which may be fewer than asked or none;
+     *         or null if the event no longer has enough free seats for them.
+     * @throws SQLException If a database access error or constraint violation occurs.
+     */
+    public List<Integer> promote(int eventId, List<Integer> userIds) throws SQLException {
+        return PROMOTE_TIMER.time(() -> {
+            if (userIds.isEmpty()) return userIds;
+
+            StringBuilder inList = new StringBuilder("(");
+            for (int i = 0; i < userIds.size(); i++) {
+                inList.append(i == 0 ? "?" : ", ?");
+            }
+            inList.append(")");
+            String deleteSql = "DELETE FROM waitlist WHERE event_id = ? AND user_id IN " + inList;
+            String dropRegisteredSql = deleteSql
+                + " AND EXISTS (SELECT 1 FROM registrations r WHERE r.event_id = waitlist.event_id AND r.user_id = waitlist.user_id)";
+            // Locks the rows still waiting, so a concurrent leave cannot slip between select and insert
+            String waitingSql = "SELECT user_id FROM waitlist WHERE event_id = ? AND user_id IN " + inList + " FOR UPDATE";
+
+            try (Connection connection = DatabaseConnection.getConnection()) {
+                if (connection == null) return null;
+
+                connection.setAutoCommit(false);
+                try {
+                    try (PreparedStatement drop = connection.prepareStatement(dropRegisteredSql)) {
+                        bindEventAndUsers(drop, eventId, userIds);
+                        drop.executeUpdate();
+                    }
+                    Set<Integer> waiting = new HashSet<>();
+                    try (PreparedStatement select = connection.prepareStatement(waitingSql)) {
+                        bindEventAndUsers(select, eventId, userIds);
+                        try (ResultSet rs = select.executeQuery()) {
+                            while (rs.next()) waiting.add(rs.getInt(1));
+                        }
+                    }
+                    List<Integer> promoted = new ArrayList<>(waiting.size());
+                    for (int userId : userIds) {
+                        if (waiting.contains(userId)) promoted.add(userId);
+                    }
+                    if (promoted.isEmpty()) {
+                        connection.commit();
+                        return promoted;
+                    }
+
+                    try (PreparedStatement claim = connection.prepareStatement(CLAIM_SEATS_SQL)) {
+                        claim.setInt(1, promoted.size());
+                        claim.setInt(2, eventId);
+                        claim.setInt(3, promoted.size());
+                        if (claim.executeUpdate() == 0) {
+                            connection.rollback();
+                            return null;
+                        }
+                    }
+                    StringBuilder insertSql = new StringBuilder("INSERT INTO registrations (user_id, event_id, registration_date) VALUES ");
+                    for (int i = 0; i < promoted.size(); i++) {
+                        insertSql.append(i == 0 ? "(?, ?, NOW())" : ", (?, ?, NOW())");
+                    }
+                    try (PreparedStatement insert = connection.prepareStatement(insertSql.toString())) {
+                        int param = 1;
+                        for (int userId : promoted) {
+                            insert.setInt(param++, userId);
+                            insert.setInt(param++, eventId);
+                        }
+                        insert.executeUpdate();
+                    }
+                    try (PreparedStatement delete = connection.prepareStatement(deleteSql)) {
+                        bindEventAndUsers(delete, eventId, userIds);
+                        delete.executeUpdate();
+                    }
+                    connection.commit();
+                    for (int userId : promoted) audit(AuditLog.Type.PROMOTED, userId, eventId);
+                    return promoted;
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            }
+        });
+    }
+
+    /** Binds the event ID, then each user ID, from the first parameter on. */
+    private static void bindEventAndUsers(PreparedStatement statement, int eventId, List<Integer> userIds) throws SQLException {
+        statement.setInt(1, eventId);
+        int param = 2;
+        for (int userId : userIds) {
+            statement.setInt(param++, userId);
+        }
+    }
+
+    private void audit(AuditLog.Type type, int userId, int eventId) {
+        if (audit != null) audit.record(type, eventId, userId, null);
+    }
+
+    /**
+     * Tells a duplicate registration apart from a missing user or event.
+     * @return true if the constraint violation was a primary key (already registered) clash.
+     */
+    public static boolean isDuplicate(SQLException e) {
+        // MySQL reports duplicates as error 1062; H2 and others use SQLState 23505
+        return e.getErrorCode() == 1062 || "23505".equals(e.getSQLState());
+    }
+
+    /** Prepares the fixed statements above on a connection, for the startup warm-up ({@link StartupWarmup}). */
+    static void prepareStatements(Connection connection) throws SQLException {
+        for (String sql : new String[] {INSERT_SQL, CLAIM_SEAT_SQL, CLAIM_SEATS_SQL, RECONCILE_SQL, CAPACITY_SQL,
+                USERS_SQL, CANCEL_SQL, RELEASE_SEAT_SQL, JOIN_WAITLIST_SQL, LEAVE_WAITLIST_SQL, LOAD_WAITLIST_SQL}) {
+            connection.prepareStatement(sql).close();
         }
     }
-}
\ No newline at end of file
+}
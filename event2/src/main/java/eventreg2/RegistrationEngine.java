@@ -0,0 +1,265 @@
+package eventreg2;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admits registrations for an event without ever exceeding its capacity.
+ *
+ * <p>Each event gets an in-memory seat counter, loaded from the registrations table
+ * the first time the event is touched, and who is registered for it is kept in a
+ * {@link RegistrationIndex}. Duplicates and sold-out events are rejected from
+ * memory without a query; a seat
+ * that is reserved in memory is then claimed in the database with a guarded
+ * counter update (see {@link RegistrationDAO#registerWithinCapacity}), which stays
+ * correct even if several servers share the database.</p>
+ */
+public class RegistrationEngine implements EventChangeListener {
+
+    /** Outcome of a registration attempt. */
+    public enum Result {
+        REGISTERED,
+        ALREADY_REGISTERED,
+        SOLD_OUT,
+        EVENT_NOT_FOUND,
+        USER_NOT_FOUND,
+        FAILED,
+        /** The group-commit queue is full; the client should retry later. */
+        BUSY
+    }
+
+    /** Seat counter of one event. */
+    static final class Seats {
+        volatile int capacity;
+        final AtomicInteger taken;
+
+        Seats(RegistrationDAO.SeatSnapshot snapshot) {
+            this.capacity = snapshot.getCapacity();
+            this.taken = new AtomicInteger(snapshot.getUserIds().size());
+        }
+
+        boolean tryReserve() {
+            while (true) {
+                int current = taken.get();
+                if (current >= capacity) return false;
+                if (taken.compareAndSet(current, current + 1)) return true;
+            }
+        }
+
+        void release() {
+            taken.decrementAndGet();
+        }
+
+        int available() {
+            return Math.max(0, capacity - taken.get());
+        }
+    }
+
+    private final RegistrationDAO registrationDAO;
+    private final ConcurrentHashMap<Integer, Seats> seatsByEvent = new ConcurrentHashMap<>();
+
+    /** Registered users of each event, including seats still being committed. */
+    private final RegistrationIndex index;
+
+    /** Group-commit pipeline used by {@link #registerAsync}, or null to write each row itself. */
+    private final RegistrationWriter writer;
+
+    public RegistrationEngine(RegistrationDAO registrationDAO) {
+        this(registrationDAO, null);
+    }
+
+    public RegistrationEngine(RegistrationDAO registrationDAO, RegistrationWriter writer) {
+        this(registrationDAO, writer, new RegistrationIndex());
+    }
+
+    public RegistrationEngine(RegistrationDAO registrationDAO, RegistrationWriter writer, RegistrationIndex index) {
+        this.registrationDAO = registrationDAO;
+        this.writer = writer;
+        this.index = index;
+    }
+
+    /**
+     * Registers a user for an event if a seat is free.
+     * @param userId The user to register.
+     * @param eventId The event to register for.
+     * @return The outcome; only REGISTERED means a seat was taken.
+     */
+    public Result register(int userId, int eventId) {
+        Seats seats;
+        try {
+            seats = seatsFor(eventId);
+        } catch (SQLException e) {
+            System.err.println("Registration Error loading seats for event ID " + eventId + ": " + e.getMessage());
+            return Result.FAILED;
+        }
+        if (seats == null) return Result.EVENT_NOT_FOUND;
+
+        // Fast path: both checks are answered from memory
+        if (!index.add(userId, eventId)) return Result.ALREADY_REGISTERED;
+        if (!seats.tryReserve()) {
+            index.remove(userId, eventId);
+            return Result.SOLD_OUT;
+        }
+
+        try {
+            if (registrationDAO.registerWithinCapacity(userId, eventId)) {
+                return Result.REGISTERED;
+            }
+            // The database disagrees with our counter (e.g. another server took the seat)
+            rollback(seats, userId, eventId);
+            seatsByEvent.remove(eventId, seats);
+            return Result.SOLD_OUT;
+        } catch (SQLIntegrityConstraintViolationException e) {
+            seats.release();
+            if (RegistrationDAO.isDuplicate(e)) {
+                return Result.ALREADY_REGISTERED;
+            }
+            index.remove(userId, eventId);
+            return Result.USER_NOT_FOUND;
+        } catch (SQLException e) {
+            rollback(seats, userId, eventId);
+            System.err.println("Registration Error for user " + userId + " and event ID " + eventId + ": " + e.getMessage());
+            return Result.FAILED;
+        }
+    }
+
+    /**
+     * Registers a user like {@link #register}, but hands the database write to the
+     * group-commit {@link RegistrationWriter} when one is configured. Duplicates and
+     * sold-out events are still answered from memory without queueing.
+     * @return A future completed with the outcome once the write is committed.
+     */
+    public CompletableFuture<Result> registerAsync(int userId, int eventId) {
+        if (writer == null) {
+            return CompletableFuture.completedFuture(register(userId, eventId));
+        }
+
+        Seats seats;
+        try {
+            seats = seatsFor(eventId);
+        } catch (SQLException e) {
+            System.err.println("Registration Error loading seats for event ID " + eventId + ": " + e.getMessage());
+            return CompletableFuture.completedFuture(Result.FAILED);
+        }
+        if (seats == null) return CompletableFuture.completedFuture(Result.EVENT_NOT_FOUND);
+
+        if (!index.add(userId, eventId)) return CompletableFuture.completedFuture(Result.ALREADY_REGISTERED);
+        if (!seats.tryReserve()) {
+            index.remove(userId, eventId);
+            return CompletableFuture.completedFuture(Result.SOLD_OUT);
+        }
+
+        return writer.submit(userId, eventId).thenApply(outcome -> {
+            switch (outcome) {
+                case REGISTERED:
+                    return Result.REGISTERED;
+                case DUPLICATE:
+                    seats.release();
+                    return Result.ALREADY_REGISTERED;
+                case USER_NOT_FOUND:
+                    rollback(seats, userId, eventId);
+                    return Result.USER_NOT_FOUND;
+                case SOLD_OUT:
+                    rollback(seats, userId, eventId);
+                    seatsByEvent.remove(eventId, seats);
+                    return Result.SOLD_OUT;
+                case REJECTED:
+                    rollback(seats, userId, eventId);
+                    return Result.BUSY;
+                default:
+                    rollback(seats, userId, eventId);
+                    return Result.FAILED;
+            }
+        });
+    }
+
+    /**
+     * Cancels a registration and frees its seat.
+     * @return true if the user was registered for the event.
+     */
+    public boolean cancel(int userId, int eventId) throws SQLException {
+        if (!registrationDAO.cancel(userId, eventId)) return false;
+        Seats seats = seatsByEvent.get(eventId);
+        if (index.remove(userId, eventId) && seats != null) {
+            seats.release();
+        }
+        return true;
+    }
+
+    /** @return true if the user holds a seat for the event. */
+    public boolean isRegistered(int userId, int eventId) throws SQLException {
+        Seats seats = seatsFor(eventId);
+        return seats != null && index.contains(userId, eventId);
+    }
+
+    /**
+     * Reserves up to max free seats in memory, e.g. for a waitlist promotion.
+     * The caller must either {@link #confirm} or {@link #releaseSeats} them.
+     * @return The number of seats reserved.
+     */
+    public int reserveSeats(int eventId, int max) throws SQLException {
+        Seats seats = seatsFor(eventId);
+        if (seats == null) return 0;
+        int reserved = 0;
+        while (reserved < max && seats.tryReserve()) reserved++;
+        return reserved;
+    }
+
+    /** Gives back seats reserved with {@link #reserveSeats} that were not used. */
+    public void releaseSeats(int eventId, int count) {
+        Seats seats = seatsByEvent.get(eventId);
+        if (seats != null) {
+            for (int i = 0; i < count; i++) seats.release();
+        }
+    }
+
+    /** Records users whose reserved seats were committed to the database. */
+    public void confirm(int eventId, List<Integer> userIds) {
+        for (int userId : userIds) index.add(userId, eventId);
+    }
+
+    /**
+     * Free seats of an event according to the in-memory counter.
+     * @return The number of free seats, or -1 if the event does not exist.
+     */
+    public int availableSeats(int eventId) throws SQLException {
+        Seats seats = seatsFor(eventId);
+        return seats == null ? -1 : seats.available();
+    }
+
+    @Override
+    public void eventUpdated(Event event) {
+        Seats seats = seatsByEvent.get(event.getEventId());
+        if (seats != null) {
+            seats.capacity = event.getCapacity();
+        }
+    }
+
+    @Override
+    public void eventDeleted(int eventId) {
+        seatsByEvent.remove(eventId);
+        index.removeEvent(eventId);
+    }
+
+    /** Returns the seat state of an event, loading and reconciling it on first use. */
+    Seats seatsFor(int eventId) throws SQLException {
+        Seats seats = seatsByEvent.get(eventId);
+        if (seats != null) return seats;
+
+        RegistrationDAO.SeatSnapshot snapshot = registrationDAO.loadSeats(eventId);
+        if (snapshot == null) return null;
+        Seats loaded = new Seats(snapshot);
+        for (int userId : snapshot.getUserIds()) index.add(userId, eventId);
+        Seats existing = seatsByEvent.putIfAbsent(eventId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private void rollback(Seats seats, int userId, int eventId) {
+        seats.release();
+        index.remove(userId, eventId);
+    }
+}
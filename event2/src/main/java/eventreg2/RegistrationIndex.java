@@ -0,0 +1,156 @@
+package eventreg2;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of who is registered for what, in both directions: the users of
+ * each event and the events of each user.
+ *
+ * <p>Each side keeps one sorted {@code int[]} per event or user, so a registration
+ * costs two 4-byte slots instead of a boxed Integer plus a hash node per set. Counts
+ * are O(1), membership is a binary search, and attendee pages are keyset pages over
+ * the sorted user IDs. Adding or removing shifts the tail of one array, which for an
+ * event with 100k attendees is a copy of a few hundred kilobytes.</p>
+ *
+ * <p>{@link RegistrationEngine} updates the index as it admits and cancels
+ * registrations, and it is loaded from the registrations table with {@link #load}
+ * at startup. It only sees writes made through this process.</p>
+ */
+public class RegistrationIndex {
+
+    /** Feeds every registration in the database to the sink. */
+    @FunctionalInterface
+    public interface RegistrationSource {
+        void forEach(RegistrationDAO.RegistrationSink sink) throws SQLException;
+    }
+
+    private static final int[] EMPTY = new int[0];
+
+    private final ConcurrentHashMap<Integer, SortedInts> usersByEvent = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, SortedInts> eventsByUser = new ConcurrentHashMap<>();
+
+    /** Adds every registration from the source, e.g. a full scan of the table at startup. */
+    public int load(RegistrationSource source) throws SQLException {
+        int[] count = new int[1];
+        source.forEach((userId, eventId) -> {
+            if (add(userId, eventId)) count[0]++;
+        });
+        return count[0];
+    }
+
+    /**
+     * Records a registration.
+     * @return false if the user was already registered for the event.
+     */
+    public boolean add(int userId, int eventId) {
+        if (!usersByEvent.computeIfAbsent(eventId, id -> new SortedInts()).add(userId)) return false;
+        eventsByUser.computeIfAbsent(userId, id -> new SortedInts()).add(eventId);
+        return true;
+    }
+
+    /**
+     * Forgets a registration.
+     * @return true if the user was registered for the event.
+     */
+    public boolean remove(int userId, int eventId) {
+        SortedInts users = usersByEvent.get(eventId);
+        if (users == null || !users.remove(userId)) return false;
+        SortedInts events = eventsByUser.get(userId);
+        if (events != null) events.remove(eventId);
+        return true;
+    }
+
+    /** Forgets every registration of a deleted event. */
+    public void removeEvent(int eventId) {
+        SortedInts users = usersByEvent.remove(eventId);
+        if (users == null) return;
+        for (int userId : users.page(Integer.MIN_VALUE, Integer.MAX_VALUE)) {
+            SortedInts events = eventsByUser.get(userId);
+            if (events != null) events.remove(eventId);
+        }
+    }
+
+    public boolean contains(int userId, int eventId) {
+        SortedInts users = usersByEvent.get(eventId);
+        return users != null && users.contains(userId);
+    }
+
+    /** Number of users registered for the event. */
+    public int attendeeCount(int eventId) {
+        SortedInts users = usersByEvent.get(eventId);
+        return users == null ? 0 : users.size();
+    }
+
+    /**
+     * A page of an event's attendees in ascending user ID order.
+     * @param afterUserId Only users with a greater ID; the last ID of the previous page.
+     * @param limit Most users returned.
+     */
+    public int[] attendees(int eventId, int afterUserId, int limit) {
+        SortedInts users = usersByEvent.get(eventId);
+        if (users == null || afterUserId == Integer.MAX_VALUE) return EMPTY;
+        return users.page(afterUserId + 1, limit);
+    }
+
+    /** The events a user is registered for, in ascending event ID order. */
+    public int[] eventsOf(int userId) {
+        SortedInts events = eventsByUser.get(userId);
+        return events == null ? EMPTY : events.page(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /** Number of registrations held. */
+    public long size() {
+        long size = 0;
+        for (SortedInts users : usersByEvent.values()) size += users.size();
+        return size;
+    }
+
+    /** A growable sorted set of ints. */
+    private static final class SortedInts {
+        private int[] values = EMPTY;
+        private int size;
+
+        synchronized boolean add(int value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) return false;
+            index = -index - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.max(4, size + (size >> 1)));
+            }
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = value;
+            size++;
+            return true;
+        }
+
+        synchronized boolean remove(int value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index < 0) return false;
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+            size--;
+            // Give memory back once an event has lost most of its attendees
+            if (size < values.length >> 2) {
+                values = size == 0 ? EMPTY : Arrays.copyOf(values, size + (size >> 1));
+            }
+            return true;
+        }
+
+        synchronized boolean contains(int value) {
+            return Arrays.binarySearch(values, 0, size, value) >= 0;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        /** Up to limit values, starting at the first one not below from. */
+        synchronized int[] page(int from, int limit) {
+            int index = Arrays.binarySearch(values, 0, size, from);
+            if (index < 0) index = -index - 1;
+            int end = (int) Math.min(size, (long) index + limit);
+            return index >= end ? EMPTY : Arrays.copyOfRange(values, index, end);
+        }
+    }
+}
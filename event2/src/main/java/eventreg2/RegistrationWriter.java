@@ -0,0 +1,196 @@
+package eventreg2;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group-commits registrations: callers queue (user, event) rows and a single writer
+ * thread commits whatever has queued up as one transaction with a multi-row INSERT,
+ * instead of one transaction (and one log flush) per registration.
+ *
+ * <p>The writer collects rows until it has {@code maxBatchSize} of them, the oldest
+ * has waited {@code maxDelayMillis}, or no new row arrived for a moment, then calls
+ * {@link RegistrationDAO#registerGroup}.
+ * If that fails on a constraint (a duplicate or a missing user) or a seat claim, the
+ * group is retried row by row so every caller still learns its own outcome. The
+ * queue is bounded: when it is full, {@link #submit} waits up to the submit timeout
+ * and then completes with {@link Outcome#REJECTED}.</p>
+ */
+public class RegistrationWriter {
+
+    /** Outcome of one queued registration. */
+    public enum Outcome {
+        REGISTERED,
+        DUPLICATE,
+        USER_NOT_FOUND,
+        SOLD_OUT,
+        FAILED,
+        /** The queue stayed full for the whole submit timeout. */
+        REJECTED
+    }
+
+    private static final class Pending {
+        final int userId;
+        final int eventId;
+        final CompletableFuture<Outcome> result = new CompletableFuture<>();
+
+        Pending(int userId, int eventId) {
+            this.userId = userId;
+            this.eventId = eventId;
+        }
+    }
+
+    /** How long the writer waits for another row before committing what it has. */
+    private static final long LINGER_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    private final RegistrationDAO registrationDAO;
+    private final BlockingQueue<Pending> queue;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final long submitTimeoutMillis;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private final Metrics.Timer groupTimer = Metrics.timer("eventreg_registration_group", "writer", "commit");
+    private final Metrics.Counter committedRows = Metrics.counter("eventreg_registration_group_rows_total", null, null);
+    private final Metrics.Counter fallbacks = Metrics.counter("eventreg_registration_group_fallbacks_total", null, null);
+
+    /**
+     * Creates the writer and starts its thread.
+     * @param queueCapacity Registrations that may wait before submitters are held back.
+     * @param maxBatchSize Most rows committed in one transaction.
+     * @param maxDelayMillis Longest a row waits for its group to fill up.
+     * @param submitTimeoutMillis Longest {@link #submit} waits for room in a full queue.
+     */
+    public RegistrationWriter(RegistrationDAO registrationDAO, int queueCapacity, int maxBatchSize,
+                              long maxDelayMillis, long submitTimeoutMillis) {
+        this.registrationDAO = registrationDAO;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.submitTimeoutMillis = submitTimeoutMillis;
+        this.writer = new Thread(this::run, "registration-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues a registration. The seat must already be reserved in the
+     * {@link RegistrationEngine}; the database claim is repeated here.
+     * @return A future completed once the row's group is committed (or has failed).
+     */
+    public CompletableFuture<Outcome> submit(int userId, int eventId) {
+        Pending pending = new Pending(userId, eventId);
+        try {
+            if (!running || !queue.offer(pending, submitTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                pending.result.complete(Outcome.REJECTED);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.result.complete(Outcome.REJECTED);
+        }
+        return pending.result;
+    }
+
+    /** Number of registrations waiting to be written. */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /** Stops accepting registrations, writes those already queued and stops the thread. */
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writer.join();
+    }
+
+    private void run() {
+        List<Pending> group = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                group.add(first);
+
+                // Keep collecting while rows keep arriving, until the group is full or the
+                // first row has waited maxDelay. Rows that arrive during the commit form the next group.
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (group.size() < maxBatchSize) {
+                    if (queue.drainTo(group, maxBatchSize - group.size()) > 0) continue;
+                    long remaining = Math.min(deadline - System.nanoTime(), LINGER_NANOS);
+                    if (remaining <= 0) break;
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    group.add(next);
+                }
+                write(group);
+            } catch (InterruptedException e) {
+                running = false;
+            } catch (RuntimeException e) {
+                System.err.println("Registration writer error: " + e.getMessage());
+                group.forEach(pending -> pending.result.complete(Outcome.FAILED));
+            } finally {
+                group.clear();
+            }
+        }
+        // A submit that raced with shutdown
+        Pending left;
+        while ((left = queue.poll()) != null) {
+            left.result.complete(Outcome.REJECTED);
+        }
+    }
+
+    /** Commits a group in one transaction, falling back to one transaction per row. */
+    private void write(List<Pending> group) {
+        Map<Integer, List<Integer>> usersByEvent = new LinkedHashMap<>();
+        for (Pending pending : group) {
+            usersByEvent.computeIfAbsent(pending.eventId, id -> new ArrayList<>()).add(pending.userId);
+        }
+
+        long start = groupTimer.start();
+        try {
+            if (registrationDAO.registerGroup(usersByEvent)) {
+                committedRows.add(group.size());
+                group.forEach(pending -> pending.result.complete(Outcome.REGISTERED));
+                return;
+            }
+        } catch (SQLIntegrityConstraintViolationException e) {
+            // Some row is a duplicate or names a missing user; find out which below
+        } catch (SQLException e) {
+            groupTimer.error();
+            System.err.println("Registration writer: group of " + group.size() + " failed: " + e.getMessage());
+            group.forEach(pending -> pending.result.complete(Outcome.FAILED));
+            return;
+        } finally {
+            groupTimer.stop(start);
+        }
+
+        fallbacks.increment();
+        for (Pending pending : group) {
+            pending.result.complete(writeOne(pending));
+        }
+    }
+
+    private Outcome writeOne(Pending pending) {
+        try {
+            if (registrationDAO.registerWithinCapacity(pending.userId, pending.eventId)) {
+                committedRows.increment();
+                return Outcome.REGISTERED;
+            }
+            return Outcome.SOLD_OUT;
+        } catch (SQLIntegrityConstraintViolationException e) {
+            return RegistrationDAO.isDuplicate(e) ? Outcome.DUPLICATE : Outcome.USER_NOT_FOUND;
+        } catch (SQLException e) {
+            System.err.println("Registration writer: user " + pending.userId + " for event ID "
+                + pending.eventId + " failed: " + e.getMessage());
+            return Outcome.FAILED;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package eventreg2;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Issues and validates self-contained, HMAC-signed session tokens.
+ *
+ * <p>A token is {@code base64url(payload).base64url(HMAC-SHA256(payload))}, where the
+ * payload holds a format byte, a random token ID, the expiry time, the user ID and the
+ * username. Validation
+ * recomputes the MAC, checks the expiry and looks the ID up in an in-memory
+ * revocation list, so it never needs the database. Revoked IDs are kept only until
+ * their token would have expired anyway.</p>
+ *
+ * <p>The signing key comes from {@code -Deventreg.session.secret} (Base64); without it
+ * a random key is generated at startup and tokens do not survive a restart.</p>
+ */
+public class SessionTokens {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder BASE64 = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder BASE64_DECODER = Base64.getUrlDecoder();
+    /** First payload byte; tokens in an older layout are rejected rather than misread. */
+    private static final byte FORMAT = 2;
+    /** Format, token ID, expiry and user ID. */
+    private static final int HEADER_BYTES = 1 + 8 + 8 + 4;
+
+    /** Who a valid token belongs to. */
+    public static final class Session {
+        private final long tokenId;
+        private final long expiresAt;
+        private final int userId;
+        private final String username;
+
+        Session(long tokenId, long expiresAt, int userId, String username) {
+            this.tokenId = tokenId;
+            this.expiresAt = expiresAt;
+            this.userId = userId;
+            this.username = username;
+        }
+
+        public String getUsername() { return username; }
+
+        /** The users.user_id the token was issued for. */
+        public int getUserId() { return userId; }
+
+        /** Expiry in epoch milliseconds. */
+        public long getExpiresAt() { return expiresAt; }
+    }
+
+    private final SecretKeySpec key;
+    private final long ttlMillis;
+    private final SecureRandom random = new SecureRandom();
+    /** Mac instances are not thread-safe, so each thread keeps its own. */
+    private final ThreadLocal<Mac> macs;
+
+    /** Revoked token IDs and when their tokens expire. */
+    private final ConcurrentHashMap<Long, Long> revoked = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweep = new AtomicLong();
+
+    /**
+     * @param secret HMAC key, or null to generate a random one.
+     * @param ttlMillis How long an issued token stays valid.
+     */
+    public SessionTokens(byte[] secret, long ttlMillis) {
+        if (secret == null) {
+            secret = new byte[32];
+            random.nextBytes(secret);
+        }
+        this.key = new SecretKeySpec(secret, ALGORITHM);
+        this.ttlMillis = ttlMillis;
+        this.macs = ThreadLocal.withInitial(this::newMac);
+        newMac(); // fail at startup, not on the first request, if HMAC is unavailable
+    }
+
+    /** Issues a token for a user who has just logged in. */
+    public String issue(String username, int userId) {
+        long tokenId = random.nextLong();
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        byte[] name = username.getBytes(StandardCharsets.UTF_8);
+        byte[] payload = ByteBuffer.allocate(HEADER_BYTES + name.length)
+            .put(FORMAT).putLong(tokenId).putLong(expiresAt).putInt(userId).put(name).array();
+        return BASE64.encodeToString(payload) + "." + BASE64.encodeToString(sign(payload));
+    }
+
+    /**
+     * Checks a token's signature, expiry and revocation.
+     * @return The session, or null if the token is malformed, forged, expired or revoked.
+     */
+    public Session validate(String token) {
+        if (token == null) return null;
+        int dot = token.indexOf('.');
+        if (dot <= 0) return null;
+
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = BASE64_DECODER.decode(token.substring(0, dot));
+            signature = BASE64_DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (payload.length < HEADER_BYTES || !MessageDigest.isEqual(signature, sign(payload))) return null;
+
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        if (buffer.get() != FORMAT) return null;
+        long tokenId = buffer.getLong();
+        long expiresAt = buffer.getLong();
+        int userId = buffer.getInt();
+        if (expiresAt <= System.currentTimeMillis() || revoked.containsKey(tokenId)) return null;
+        return new Session(tokenId, expiresAt, userId,
+            new String(payload, HEADER_BYTES, payload.length - HEADER_BYTES, StandardCharsets.UTF_8));
+    }
+
+    /** Revokes a session (logout) until its token expires. */
+    public void revoke(Session session) {
+        revoked.put(session.tokenId, session.expiresAt);
+        evictExpired();
+    }
+
+    /** Number of revoked tokens still remembered. */
+    public int getRevokedCount() {
+        return revoked.size();
+    }
+
+    /** Drops revoked IDs whose tokens have expired; runs at most once a minute. */
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        long due = nextSweep.get();
+        if (now < due || !nextSweep.compareAndSet(due, now + 60_000)) return;
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+    }
+
+    private byte[] sign(byte[] payload) {
+        return macs.get().doFinal(payload);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+}
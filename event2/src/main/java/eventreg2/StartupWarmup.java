@@ -0,0 +1,83 @@
+package eventreg2;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Work done once at startup, before the server accepts traffic, so the first requests
+ * after a deploy do not pay for connecting, statement preparation, class loading and
+ * interpreted Gson and codec code.
+ *
+ * <p>{@link EventAPI} runs it (unless -Deventreg.warmup.enabled=false) and only then
+ * reports ready at GET /api/ready.</p>
+ *
+ * <p>The classes loaded by a warm-up can also be kept in an AppCDS archive to cut JVM
+ * startup itself. Create it with a training run that exits once warm, then start from
+ * it with the same classpath, which may only list jars (the packaged event2 jar, not
+ * target/classes):</p>
+ * <pre>
+ * java -XX:ArchiveClassesAtExit=eventreg.jsa -Deventreg.warmup.exit=true -cp ... eventreg2.EventAPI
+ * java -XX:SharedArchiveFile=eventreg.jsa -cp ... eventreg2.EventAPI
+ * </pre>
+ * <p>or let the JVM do both with
+ * {@code -XX:+AutoCreateSharedArchive -XX:SharedArchiveFile=eventreg.jsa}.</p>
+ */
+public final class StartupWarmup {
+
+    private static final Type EVENT_LIST_TYPE = new TypeToken<List<Event>>() {}.getType();
+
+    private StartupWarmup() {}
+
+    /**
+     * Opens up to count pool connections at once and prepares the fixed statements of
+     * every DAO on each, so they are in each connection's statement cache.
+     * @return The number of connections prepared.
+     */
+    static int prepareStatements(int count) throws SQLException {
+        List<Connection> connections = new ArrayList<>();
+        try {
+            for (int i = 0; i < count; i++) {
+                Connection connection = DatabaseConnection.getConnection();
+                if (connection == null) break;
+                connections.add(connection);
+                EventDAO.prepareStatements(connection);
+                UserDAO.prepareStatements(connection);
+                RegistrationDAO.prepareStatements(connection);
+            }
+            return connections.size();
+        } finally {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * Round-trips events and users through the JSON and binary encodings the API uses,
+     * enough times for the JIT to compile the hot paths.
+     * @param events Real events to include; synthetic ones are added so an empty table still warms up.
+     */
+    static void serialization(Gson gson, List<Event> events, int iterations) {
+        List<Event> sample = new ArrayList<>(events.subList(0, Math.min(events.size(), 100)));
+        for (int i = sample.size(); i < 100; i++) {
+            sample.add(new Event(i + 1, "Warm-up event " + i, LocalDate.of(2026, 1, 1).plusDays(i),
+                i % 3 == 0 ? null : "Room " + i, 50 + i, i % 2 == 0 ? null : BigDecimal.valueOf(i * 125, 2)));
+        }
+        User user = new User("Warm Up", "warmup@example.com");
+        user.setUsername("warmup");
+
+        for (int i = 0; i < iterations; i++) {
+            String json = gson.toJson(sample, EVENT_LIST_TYPE);
+            List<Event> parsed = gson.fromJson(json, EVENT_LIST_TYPE);
+            EventCodec.decode(EventCodec.encode(parsed));
+            gson.fromJson(gson.toJson(user, User.class), User.class);
+        }
+    }
+}
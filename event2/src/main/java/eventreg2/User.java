@@ -5,6 +5,7 @@ public class User {
     private String email;
     private String username; // Added for login
     private String password; // Added for login
+    private transient int userId; // Set when loaded from the database; not part of the JSON
 
     // Constructor for the demo in Main.java
     public User(String name, String email) {
@@ -16,6 +17,7 @@ public class User {
     public User() {}
 
     public String getName() { return name; }
+    public String getEmail() { return email; }
     
     // This fixes the error for login
     public String getUserType() {
@@ -27,4 +29,6 @@ public class User {
     public void setUsername(String username) { this.username = username; }
     public String getPassword() { return password; }
     public void setPassword(String password) { this.password = password; }
+    public int getUserId() { return userId; }
+    public void setUserId(int userId) { this.userId = userId; }
 }
\ No newline at end of file
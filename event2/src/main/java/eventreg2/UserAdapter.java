@@ -0,0 +1,60 @@
+package eventreg2;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+
+/**
+ * Streaming JSON mapping for {@link User}, replacing Gson's reflective one.
+ * Same field names and order as the reflective mapping; null fields are left out.
+ */
+public class UserAdapter extends TypeAdapter<User> {
+
+    @Override
+    public void write(JsonWriter out, User user) throws IOException {
+        if (user == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        if (user.getName() != null) out.name("name").value(user.getName());
+        if (user.getEmail() != null) out.name("email").value(user.getEmail());
+        if (user.getUsername() != null) out.name("username").value(user.getUsername());
+        if (user.getPassword() != null) out.name("password").value(user.getPassword());
+        out.endObject();
+    }
+
+    @Override
+    public User read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        String name = null;
+        String email = null;
+        String username = null;
+        String password = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            String field = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (field) {
+                case "name": name = in.nextString(); break;
+                case "email": email = in.nextString(); break;
+                case "username": username = in.nextString(); break;
+                case "password": password = in.nextString(); break;
+                default: in.skipValue();
+            }
+        }
+        in.endObject();
+        User user = new User(name, email);
+        user.setUsername(username);
+        user.setPassword(password);
+        return user;
+    }
+}
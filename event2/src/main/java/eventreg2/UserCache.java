@@ -0,0 +1,187 @@
+package eventreg2;
+
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * In-memory username lookups for {@link UserDAO}, so logins rarely need a query.
+ *
+ * <p>Found users are kept for a short TTL in a bounded map. Unknown usernames are
+ * answered by a {@link UsernameFilter} holding every username in the database: if the
+ * filter has never seen a name, no such user exists and the lookup returns without a
+ * query, which keeps credential-stuffing traffic off the database.</p>
+ *
+ * <p>The filter is built from a full username scan when {@link #refreshEvery} starts
+ * and rebuilt on that interval, which also picks up users created by other processes.
+ * Until the first scan finishes every name counts as possibly present. Names saved in
+ * this process are added to the filter at once, and also remembered until the next
+ * rebuild has them, since the scan may run before their insert commits.</p>
+ *
+ * <p>Both the map and the filter key users by {@link UsernameFilter#normalize}, which
+ * matches the case-insensitive comparison of the users.username column in MySQL, so
+ * "Alice" finds, and invalidates, the entry for "alice" as the query would.</p>
+ */
+public class UserCache {
+
+    /** Feeds every username in the database to the sink. */
+    @FunctionalInterface
+    public interface UsernameSource {
+        void forEach(Consumer<String> sink) throws SQLException;
+    }
+
+    private static final class Entry {
+        final User user;
+        final long expiresAt;
+
+        Entry(User user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final long ttlMillis;
+    private final int maxSize;
+    private final int expectedUsers;
+    private final ConcurrentHashMap<String, Entry> users = new ConcurrentHashMap<>();
+    /** Bumped by every invalidation, so a lookup that raced with one is not cached. */
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile UsernameFilter filter;
+    private volatile int scannedUsers;
+    /** Names saved here, and when, until a rebuild started after that has them. */
+    private final ConcurrentHashMap<String, Long> recentlyAdded = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder filtered = new LongAdder();
+
+    /**
+     * @param ttlMillis How long a found user is kept (0 disables the user map, not the filter).
+     * @param maxSize Most users kept at once.
+     * @param expectedUsers Usernames the filter is sized for; it grows to twice the count of the last scan.
+     */
+    public UserCache(long ttlMillis, int maxSize, int expectedUsers) {
+        this.ttlMillis = ttlMillis;
+        this.maxSize = maxSize;
+        this.expectedUsers = expectedUsers;
+    }
+
+    /**
+     * Builds the username filter now (on a background thread) and rebuilds it on the
+     * given interval.
+     */
+    public void refreshEvery(UsernameSource source, long intervalMillis) {
+        ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "user-filter-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        refresher.scheduleWithFixedDelay(() -> {
+            try {
+                rebuild(source);
+            } catch (SQLException e) {
+                System.err.println("Username filter refresh failed: " + e.getMessage());
+            }
+        }, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /** Replaces the filter with one built from a full scan of the usernames. */
+    public void rebuild(UsernameSource source) throws SQLException {
+        long start = System.currentTimeMillis();
+        UsernameFilter next = new UsernameFilter(Math.max(expectedUsers, 2 * scannedUsers));
+        AtomicInteger count = new AtomicInteger();
+        source.forEach(username -> {
+            next.add(username);
+            count.incrementAndGet();
+        });
+        scannedUsers = count.get();
+
+        recentlyAdded.keySet().forEach(next::add);
+        filter = next;
+        // Names added while swapping went into the old filter; older ones were committed before the scan
+        recentlyAdded.forEach((username, addedAt) -> {
+            if (addedAt >= start) {
+                next.add(username);
+            } else {
+                recentlyAdded.remove(username, addedAt);
+            }
+        });
+    }
+
+    /** False only if no user with this name exists. */
+    public boolean mightExist(String username) {
+        // The filter normalizes the name itself
+        UsernameFilter current = filter;
+        if (current == null || current.mightContain(username)) return true;
+        filtered.increment();
+        return false;
+    }
+
+    /** A cached user, or null if unknown or expired. */
+    public User get(String username) {
+        Entry entry = users.get(UsernameFilter.normalize(username));
+        if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+            hits.increment();
+            return entry.user;
+        }
+        misses.increment();
+        return null;
+    }
+
+    /** Current generation; read it before querying and pass it to {@link #put}. */
+    public long generation() {
+        return generation.get();
+    }
+
+    /** Caches a user loaded from the database, unless a save or invalidation happened since {@code loadedAt}. */
+    public void put(String username, User user, long loadedAt) {
+        if (ttlMillis <= 0 || generation.get() != loadedAt) return;
+        long now = System.currentTimeMillis();
+        if (users.size() >= maxSize) {
+            // Drop expired entries; if that frees nothing, skip caching rather than grow
+            for (Iterator<Map.Entry<String, Entry>> it = users.entrySet().iterator(); it.hasNext();) {
+                if (it.next().getValue().expiresAt <= now) it.remove();
+            }
+            if (users.size() >= maxSize) return;
+        }
+        Entry entry = new Entry(user, now + ttlMillis);
+        String key = UsernameFilter.normalize(username);
+        users.put(key, entry);
+        // An invalidation between the check above and the put may have missed this entry
+        if (generation.get() != loadedAt) users.remove(key, entry);
+    }
+
+    /**
+     * Records a username about to be saved, so the filter lets lookups for it through.
+     * Call before the insert: a failed insert only costs one false positive.
+     */
+    public void added(String username) {
+        recentlyAdded.put(UsernameFilter.normalize(username), System.currentTimeMillis());
+        UsernameFilter current = filter;
+        if (current != null) current.add(username);
+        invalidate(username);
+    }
+
+    /** Forgets a cached user, e.g. after its password changed. */
+    public void invalidate(String username) {
+        generation.incrementAndGet();
+        users.remove(UsernameFilter.normalize(username));
+    }
+
+    public long getHitCount() { return hits.sum(); }
+    public long getMissCount() { return misses.sum(); }
+
+    /** Lookups answered "no such user" by the filter, without a query. */
+    public long getFilteredCount() { return filtered.sum(); }
+
+    public int size() { return users.size(); }
+}
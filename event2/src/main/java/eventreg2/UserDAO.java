@@ -1,13 +1,34 @@
 package eventreg2;
 
 import java.sql.*;
+import java.util.function.Consumer;
 
 public class UserDAO {
+
+    // Per-method latency, errors and in-flight calls, reported at GET /metrics
+    private static final Metrics.Timer FIND_TIMER = Metrics.timer("eventreg_dao_call", "method", "UserDAO.findByUsername");
+
+    private static final String INSERT_SQL = "INSERT INTO users (username, password, name) VALUES (?, ?, ?)";
+    private static final String FIND_SQL = "SELECT username, password, user_id FROM users WHERE username = ?";
+    private static final String UPDATE_PASSWORD_SQL = "UPDATE users SET password = ? WHERE username = ?";
+
+    /** Optional lookup cache; null queries the database every time. */
+    private final UserCache cache;
+
+    public UserDAO() {
+        this(null);
+    }
+
+    public UserDAO(UserCache cache) {
+        this.cache = cache;
+    }
+
     // This method saves a new user to your database
     public void saveUser(User user) throws SQLException {
-        String sql = "INSERT INTO users (username, password, name) VALUES (?, ?, ?)";
+        // Before the insert, so the username filter never rejects a user that exists
+        if (cache != null) cache.added(user.getUsername());
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
             stmt.setString(1, user.getUsername());
             stmt.setString(2, user.getPassword());
             stmt.setString(3, user.getName());
@@ -15,20 +36,65 @@ public class UserDAO {
         }
     }
 
-    // This method finds a user by username to check their password
+    // This method finds a user by username to check their password.
+    // Reads only columns idx_users_username_password covers (InnoDB secondary indexes also
+    // hold the primary key), so it never touches the table rows.
     public User findByUsername(String username) throws SQLException {
-        String sql = "SELECT * FROM users WHERE username = ?";
+        if (username == null) return null;
+        if (cache != null) {
+            if (!cache.mightExist(username)) return null;
+            User cached = cache.get(username);
+            if (cached != null) return cached;
+        }
+        long generation = cache != null ? cache.generation() : 0;
+
+        return FIND_TIMER.time(() -> {
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(FIND_SQL)) {
+                stmt.setString(1, username);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) return null;
+                    User user = new User();
+                    user.setUsername(rs.getString(1));
+                    user.setPassword(rs.getString(2));
+                    user.setUserId(rs.getInt(3));
+                    if (cache != null) cache.put(username, user, generation);
+                    return user;
+                }
+            }
+        });
+    }
+
+    // Feeds every username to the sink, for building the username filter
+    public void forEachUsername(Consumer<String> sink) throws SQLException {
+        String sql = "SELECT username FROM users";
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, username);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                User user = new User();
-                user.setUsername(rs.getString("username"));
-                user.setPassword(rs.getString("password"));
-                return user;
+             PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(DatabaseConnection.getDialect().getStreamFetchSize());
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    sink.accept(rs.getString(1));
+                }
             }
         }
-        return null;
     }
-}
\ No newline at end of file
+
+    // Replaces a user's stored password hash, e.g. after a rehash on login
+    public boolean updatePassword(String username, String passwordHash) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_PASSWORD_SQL)) {
+            stmt.setString(1, passwordHash);
+            stmt.setString(2, username);
+            return stmt.executeUpdate() > 0;
+        } finally {
+            if (cache != null) cache.invalidate(username);
+        }
+    }
+
+    // Prepares the statements above on a connection for the startup warm-up
+    static void prepareStatements(Connection connection) throws SQLException {
+        for (String sql : new String[] {INSERT_SQL, FIND_SQL, UPDATE_PASSWORD_SQL}) {
+            connection.prepareStatement(sql).close();
+        }
+    }
+}
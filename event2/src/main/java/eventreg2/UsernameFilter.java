@@ -0,0 +1,91 @@
+package eventreg2;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.regex.Pattern;
+
+/**
+ * Bloom filter of usernames: {@link #mightContain} is never false for a name that was
+ * added, and is wrongly true for about 1% of other names at the expected size.
+ * Names are compared in their {@link #normalize normalized} form, the way the
+ * users.username column compares them. Adds are lock-free and may run concurrently
+ * with lookups.
+ */
+public class UsernameFilter {
+
+    private static final int HASHES = 7;
+    /** Bits per expected name for a 1% false positive rate: -ln(0.01) / ln(2)^2. */
+    private static final double BITS_PER_NAME = 9.6;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+
+    /** @param expectedNames Names the filter is sized for; more still work, with more false positives. */
+    public UsernameFilter(int expectedNames) {
+        long bits = Math.max(1024, (long) Math.ceil(expectedNames * BITS_PER_NAME));
+        this.words = new AtomicLongArray((int) ((bits + 63) / 64));
+        this.bitCount = words.length() * 64L;
+    }
+
+    public void add(String username) {
+        long h1 = hash(normalize(username));
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            if ((words.get(word) & mask) == 0) {
+                words.accumulateAndGet(word, mask, (current, set) -> current | set);
+            }
+        }
+    }
+
+    public boolean mightContain(String username) {
+        long h1 = hash(normalize(username));
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Folds a username the way MySQL's default collations compare the users.username
+     * column: case and accents do not count, and neither do trailing spaces under the
+     * PAD SPACE collations, so "Alice " and "alice" are the same user. Folding more than
+     * the column does only adds false positives; folding less would reject real users.
+     */
+    static String normalize(String username) {
+        int end = username.length();
+        while (end > 0 && username.charAt(end - 1) == ' ') end--;
+        boolean folded = true;
+        for (int i = 0; i < end && folded; i++) {
+            char c = username.charAt(i);
+            folded = c < 0x80 && (c < 'A' || c > 'Z');
+        }
+        String trimmed = end == username.length() ? username : username.substring(0, end);
+        if (folded) return trimmed;
+        return MARKS.matcher(Normalizer.normalize(trimmed, Normalizer.Form.NFD)).replaceAll("")
+            .toLowerCase(Locale.ROOT);
+    }
+
+    /** 64-bit FNV-1a over the characters, then mixed so all bits depend on every character. */
+    private static long hash(String username) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < username.length(); i++) {
+            h ^= username.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    /** SplitMix64 finalizer. */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,87 @@
+package eventreg2;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import spark.embeddedserver.jetty.JettyServerFactory;
+
+/**
+ * A Jetty thread pool that runs every task on a new virtual thread.
+ *
+ * <p>Selected with {@code -Deventreg.server.threads=virtual}. Route handlers block on
+ * JDBC; on a virtual thread that parks only the virtual thread, so a spike of
+ * registrations no longer queues behind a fixed number of platform threads. The
+ * number of requests using the database at once is bounded by the connection pool's
+ * fair semaphore ({@code eventreg.pool.maxSize} permits, waiting at most
+ * {@code eventreg.pool.borrowTimeoutMs}), not by the thread count.</p>
+ */
+public class VirtualThreadPool extends AbstractLifeCycle implements ThreadPool {
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("http-virtual-", 0).factory());
+    private final AtomicInteger running = new AtomicInteger();
+
+    /** Spark server factory whose Jetty server uses a VirtualThreadPool. */
+    public static JettyServerFactory serverFactory() {
+        return new JettyServerFactory() {
+            @Override
+            public Server create(int maxThreads, int minThreads, int threadTimeoutMillis) {
+                return new Server(new VirtualThreadPool());
+            }
+
+            @Override
+            public Server create(ThreadPool threadPool) {
+                return new Server(threadPool != null ? threadPool : new VirtualThreadPool());
+            }
+        };
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        executor.execute(() -> {
+            running.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                running.decrementAndGet();
+            }
+        });
+    }
+
+    @Override
+    public void join() throws InterruptedException {
+        while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+            // Keep waiting until the pool is stopped
+        }
+    }
+
+    /** Number of tasks currently running, each on its own virtual thread. */
+    @Override
+    public int getThreads() {
+        return running.get();
+    }
+
+    /** Virtual threads are never kept idle. */
+    @Override
+    public int getIdleThreads() {
+        return 0;
+    }
+
+    /** A new virtual thread is always available. */
+    @Override
+    public boolean isLowOnThreads() {
+        return false;
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        executor.shutdown();
+        if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+}
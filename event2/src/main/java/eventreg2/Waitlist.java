@@ -0,0 +1,185 @@
+package eventreg2;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Waitlists for sold-out events, promoted in FIFO order when seats free up.
+ *
+ * <p>Each event's waitlist is persisted in the waitlist table and mirrored in a
+ * {@link WaitlistQueue} for O(log n) position lookups. When a registration is
+ * cancelled or an event's capacity is raised, a promotion is queued on a single
+ * background worker. The worker reserves the free seats in the
+ * {@link RegistrationEngine} and moves users over in batches, each batch being a
+ * handful of set-based statements (see {@link RegistrationDAO#promote}).</p>
+ */
+public class Waitlist implements EventChangeListener {
+
+    /** Returned by {@link #join} for a user who already holds a seat. */
+    public static final int ALREADY_REGISTERED = 0;
+    /** Returned by {@link #join} when the event does not exist (e.g. it was just deleted). */
+    public static final int EVENT_NOT_FOUND = -1;
+    /** Returned by {@link #join} when the waitlist row names a user that does not exist. */
+    public static final int USER_NOT_FOUND = -2;
+
+    private static final int PROMOTION_BATCH_SIZE = Integer.getInteger("eventreg.waitlist.batchSize", 500);
+
+    private final RegistrationDAO registrationDAO;
+    private final RegistrationEngine registrationEngine;
+    private final ConcurrentHashMap<Integer, WaitlistQueue> queues = new ConcurrentHashMap<>();
+
+    /** Events with a promotion queued but not started, so bursts of cancellations coalesce. */
+    private final Set<Integer> pendingPromotions = ConcurrentHashMap.newKeySet();
+    private final ExecutorService promoter = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "waitlist-promoter");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public Waitlist(RegistrationDAO registrationDAO, RegistrationEngine registrationEngine) {
+        this.registrationDAO = registrationDAO;
+        this.registrationEngine = registrationEngine;
+    }
+
+    /**
+     * Puts a user at the end of an event's waitlist.
+     * @return The user's 1-based position (their existing one if already waiting),
+     *         {@link #ALREADY_REGISTERED} if they hold a seat, {@link #EVENT_NOT_FOUND}
+     *         or {@link #USER_NOT_FOUND}.
+     * @throws SQLException if a database error occurs.
+     */
+    public int join(int userId, int eventId) throws SQLException {
+        WaitlistQueue queue = queueFor(eventId);
+        if (queue == null) return EVENT_NOT_FOUND;
+
+        int position = queue.position(userId);
+        if (position > 0) return position;
+        // The caller checked before trying to register; a concurrent request may have registered them since
+        if (registrationEngine.isRegistered(userId, eventId)) return ALREADY_REGISTERED;
+
+        try {
+            registrationDAO.joinWaitlist(userId, eventId);
+        } catch (SQLIntegrityConstraintViolationException e) {
+            // Not a duplicate: the foreign key to users (or to an event deleted just now) failed
+            if (!RegistrationDAO.isDuplicate(e)) return USER_NOT_FOUND;
+        }
+        position = queue.add(userId);
+        // A seat may have freed up while the user was joining
+        schedulePromotion(eventId);
+        return position;
+    }
+
+    /**
+     * Takes a user off an event's waitlist.
+     * @return true if the user was waiting.
+     */
+    public boolean leave(int userId, int eventId) throws SQLException {
+        boolean removed = registrationDAO.leaveWaitlist(userId, eventId);
+        WaitlistQueue queue = queues.get(eventId);
+        if (queue != null) removed |= queue.remove(userId);
+        return removed;
+    }
+
+    /**
+     * @return The user's 1-based position, or -1 if not waiting.
+     */
+    public int position(int userId, int eventId) throws SQLException {
+        WaitlistQueue queue = queueFor(eventId);
+        return queue == null ? -1 : queue.position(userId);
+    }
+
+    /** @return The number of users waiting for the event. */
+    public int size(int eventId) throws SQLException {
+        WaitlistQueue queue = queueFor(eventId);
+        return queue == null ? 0 : queue.size();
+    }
+
+    /** @return true if anyone is waiting, in which case new registrations must queue behind them. */
+    public boolean hasWaiting(int eventId) throws SQLException {
+        return size(eventId) > 0;
+    }
+
+    /** Queues a background promotion for the event unless one is already pending. */
+    public void schedulePromotion(int eventId) {
+        if (pendingPromotions.add(eventId)) {
+            promoter.execute(() -> {
+                pendingPromotions.remove(eventId);
+                promote(eventId);
+            });
+        }
+    }
+
+    @Override
+    public void eventUpdated(Event event) {
+        // A capacity increase may have freed seats
+        schedulePromotion(event.getEventId());
+    }
+
+    @Override
+    public void eventDeleted(int eventId) {
+        queues.remove(eventId);
+    }
+
+    /** Fills free seats from the front of the waitlist, one batch at a time. */
+    private void promote(int eventId) {
+        try {
+            WaitlistQueue queue = queueFor(eventId);
+            if (queue == null) return;
+
+            while (true) {
+                List<Integer> batch = queue.peek(PROMOTION_BATCH_SIZE);
+                if (batch.isEmpty()) return;
+
+                int reserved = registrationEngine.reserveSeats(eventId, batch.size());
+                if (reserved == 0) return;
+                batch = batch.subList(0, reserved);
+
+                List<Integer> promoted;
+                try {
+                    promoted = registrationDAO.promote(eventId, batch);
+                } catch (SQLException e) {
+                    registrationEngine.releaseSeats(eventId, reserved);
+                    throw e;
+                }
+                if (promoted == null) {
+                    registrationEngine.releaseSeats(eventId, reserved);
+                    return;
+                }
+                // Seats reserved for users the DAO dropped (already registered, or gone) go back
+                if (promoted.size() < reserved) {
+                    registrationEngine.releaseSeats(eventId, reserved - promoted.size());
+                }
+
+                registrationEngine.confirm(eventId, promoted);
+                for (int userId : batch) {
+                    queue.remove(userId);
+                }
+                System.out.println("Waitlist: promoted " + promoted.size() + " users for event ID " + eventId
+                    + (promoted.size() < batch.size() ? ", dropped " + (batch.size() - promoted.size()) + " no longer waiting" : ""));
+            }
+        } catch (SQLException e) {
+            System.err.println("Waitlist Error promoting users for event ID " + eventId + ": " + e.getMessage());
+        }
+    }
+
+    /** Returns the event's queue, loading it from the waitlist table on first use. */
+    private WaitlistQueue queueFor(int eventId) throws SQLException {
+        WaitlistQueue queue = queues.get(eventId);
+        if (queue != null) return queue;
+
+        // Make sure the event exists before caching an empty queue for it
+        if (registrationEngine.availableSeats(eventId) < 0) return null;
+
+        WaitlistQueue loaded = new WaitlistQueue();
+        for (int userId : registrationDAO.loadWaitlist(eventId)) {
+            loaded.add(userId);
+        }
+        WaitlistQueue existing = queues.putIfAbsent(eventId, loaded);
+        return existing != null ? existing : loaded;
+    }
+}
@@ -0,0 +1,112 @@
+package eventreg2;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FIFO waitlist of one event with O(log n) position lookups.
+ *
+ * <p>Users get consecutive ticket slots in join order. A Fenwick (binary indexed) tree
+ * over the slots counts who is still waiting, so a user's position is the number of
+ * waiting users up to and including their slot. Leaving or being promoted only clears
+ * the slot; the arrays are compacted when they have to grow.</p>
+ */
+public class WaitlistQueue {
+
+    private int[] users = new int[16];
+    private boolean[] waiting = new boolean[16];
+    private int[] tree = new int[17];
+    private final Map<Integer, Integer> slotOf = new HashMap<>();
+    private int head;
+    private int tail;
+
+    /**
+     * Appends a user to the end of the waitlist.
+     * @return The user's 1-based position; unchanged if the user was already waiting.
+     */
+    public synchronized int add(int userId) {
+        Integer existing = slotOf.get(userId);
+        if (existing != null) return prefix(existing);
+
+        if (tail == users.length) grow();
+        users[tail] = userId;
+        waiting[tail] = true;
+        update(tail, 1);
+        slotOf.put(userId, tail);
+        tail++;
+        return prefix(tail - 1);
+    }
+
+    /**
+     * @return The user's 1-based position, or -1 if the user is not waiting.
+     */
+    public synchronized int position(int userId) {
+        Integer slot = slotOf.get(userId);
+        return slot == null ? -1 : prefix(slot);
+    }
+
+    /** Removes a user wherever they are in the queue. */
+    public synchronized boolean remove(int userId) {
+        Integer slot = slotOf.remove(userId);
+        if (slot == null) return false;
+        waiting[slot] = false;
+        update(slot, -1);
+        while (head < tail && !waiting[head]) head++;
+        return true;
+    }
+
+    /** Returns (without removing) up to max users from the front of the queue, in order. */
+    public synchronized List<Integer> peek(int max) {
+        List<Integer> front = new ArrayList<>(Math.min(max, slotOf.size()));
+        for (int slot = head; slot < tail && front.size() < max; slot++) {
+            if (waiting[slot]) front.add(users[slot]);
+        }
+        return front;
+    }
+
+    public synchronized int size() {
+        return slotOf.size();
+    }
+
+    /** Count of waiting users in slots 0..slot. */
+    private int prefix(int slot) {
+        int sum = 0;
+        for (int i = slot + 1; i > 0; i -= i & -i) sum += tree[i];
+        return sum;
+    }
+
+    private void update(int slot, int delta) {
+        for (int i = slot + 1; i < tree.length; i += i & -i) tree[i] += delta;
+    }
+
+    /** Drops cleared slots and doubles the capacity if still needed, rebuilding the tree in O(n). */
+    private void grow() {
+        int count = slotOf.size();
+        int capacity = count * 2 >= users.length ? users.length * 2 : users.length;
+        int[] newUsers = new int[capacity];
+        boolean[] newWaiting = new boolean[capacity];
+        int next = 0;
+        for (int slot = head; slot < tail; slot++) {
+            if (waiting[slot]) {
+                newUsers[next] = users[slot];
+                newWaiting[next] = true;
+                slotOf.put(users[slot], next);
+                next++;
+            }
+        }
+        users = newUsers;
+        waiting = newWaiting;
+        head = 0;
+        tail = next;
+
+        // Linear-time Fenwick construction
+        tree = new int[capacity + 1];
+        for (int i = 1; i <= capacity; i++) {
+            tree[i] += waiting[i - 1] ? 1 : 0;
+            int parent = i + (i & -i);
+            if (parent <= capacity) tree[parent] += tree[i];
+        }
+    }
+}
@@ -0,0 +1,51 @@
+-- Schema created by DatabaseConnection when -Deventreg.db.initSchema is on (the default for
+-- embedded H2) and the events table does not exist yet. Kept to SQL that MySQL and H2 (in
+-- MySQL mode) both accept, one statement per ";". Same tables and indexes as
+-- src/mysql/create3tables.sql, which also inserts sample data.
+
+CREATE TABLE users (
+    user_id INT AUTO_INCREMENT PRIMARY KEY,
+    username VARCHAR(50) UNIQUE NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    name VARCHAR(100),
+    email VARCHAR(100) UNIQUE,
+    user_type VARCHAR(50) NOT NULL DEFAULT 'Standard User'
+);
+
+CREATE INDEX idx_users_username_password ON users (username, password);
+
+CREATE TABLE events (
+    event_id INT AUTO_INCREMENT PRIMARY KEY,
+    title VARCHAR(255) NOT NULL,
+    event_date DATE NOT NULL,
+    location VARCHAR(255),
+    capacity INT,
+    fee DECIMAL(10, 2),
+    registered_count INT NOT NULL DEFAULT 0
+);
+
+CREATE INDEX idx_events_date_id ON events (event_date, event_id);
+CREATE INDEX idx_events_location_date_id ON events (location, event_date, event_id);
+
+CREATE TABLE registrations (
+    user_id INT NOT NULL,
+    event_id INT NOT NULL,
+    registration_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (user_id, event_id),
+    FOREIGN KEY (user_id) REFERENCES users(user_id),
+    FOREIGN KEY (event_id) REFERENCES events(event_id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_registrations_event ON registrations (event_id, user_id);
+
+CREATE TABLE waitlist (
+    seq BIGINT AUTO_INCREMENT PRIMARY KEY,
+    event_id INT NOT NULL,
+    user_id INT NOT NULL,
+    joined_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE (event_id, user_id),
+    FOREIGN KEY (user_id) REFERENCES users(user_id),
+    FOREIGN KEY (event_id) REFERENCES events(event_id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_waitlist_event_seq ON waitlist (event_id, seq);
@@ -1,16 +1,23 @@
 -- 1. DROP (Delete) existing tables if they exist, to ensure a clean start.
 --    (Optional, but recommended if you are restarting development)
+DROP TABLE IF EXISTS waitlist;
 DROP TABLE IF EXISTS registrations;
 DROP TABLE IF EXISTS events;
 DROP TABLE IF EXISTS users;
 
 
--- 2. CREATE the USERS table (Base table for User.java and Attendee.java)
+-- 2. CREATE the USERS table (Base table for User.java and Attendee.java, and UserDAO logins)
 CREATE TABLE users (
     user_id INT AUTO_INCREMENT PRIMARY KEY,
-    name VARCHAR(255) NOT NULL,
-    email VARCHAR(255) UNIQUE NOT NULL,
-    user_type VARCHAR(50) NOT NULL DEFAULT 'Standard User'
+    username VARCHAR(50) UNIQUE NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    name VARCHAR(100),
+    email VARCHAR(100) UNIQUE,
+    user_type VARCHAR(50) NOT NULL DEFAULT 'Standard User',
+
+    -- Covers UserDAO.findByUsername (SELECT username, password ... WHERE username = ?),
+    -- so a login lookup is answered from the index alone
+    INDEX idx_users_username_password (username, password)
 );
 
 -- 3. CREATE the EVENTS table (Main table for Event.java)
@@ -20,9 +27,16 @@ CREATE TABLE events (
     event_date DATE NOT NULL,
     location VARCHAR(255),
     capacity INT,
-    fee DECIMAL(10, 2)
+    fee DECIMAL(10, 2),
+    -- Seats taken; only incremented while it is below capacity (RegistrationDAO.registerWithinCapacity)
+    registered_count INT NOT NULL DEFAULT 0
 );
 
+-- Keyset pagination indexes for EventDAO.query: pages are ordered by (event_date, event_id)
+-- and continue with a seek past the last pair, so each page is an index range scan.
+CREATE INDEX idx_events_date_id ON events (event_date, event_id);
+CREATE INDEX idx_events_location_date_id ON events (location, event_date, event_id);
+
 -- 4. CREATE the REGISTRATIONS table (The linking table for RegistrationDAO.java)
 --    This table implements the Many-to-Many relationship between Users and Events.
 CREATE TABLE registrations (
@@ -30,20 +44,31 @@ CREATE TABLE registrations (
     event_id INT NOT NULL,
     registration_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     
-    -- Foreign keys link back to the primary tables
+    -- Foreign keys link back to the primary tables; deleting an event also removes its registrations
     FOREIGN KEY (user_id) REFERENCES users(user_id),
-    FOREIGN KEY (event_id) REFERENCES events(event_id),
+    FOREIGN KEY (event_id) REFERENCES events(event_id) ON DELETE CASCADE,
     
     -- Prevents a user from registering for the same event more than once
-    PRIMARY KEY (user_id, event_id) 
+    PRIMARY KEY (user_id, event_id),
+
+    -- Lets "WHERE event_id = ?" / "IN (...)" deletes and counts seek instead of scanning
+    -- (and locking) the whole table
+    INDEX idx_registrations_event (event_id, user_id)
 );
 
-CREATE TABLE users (
-    id INT PRIMARY KEY AUTO_INCREMENT,
-    username VARCHAR(50) UNIQUE NOT NULL,
-    password VARCHAR(255) NOT NULL,
-    name VARCHAR(100),
-    email VARCHAR(100)
+-- 5. CREATE the WAITLIST table (FIFO queue of users waiting for a seat, see Waitlist.java)
+--    seq gives the join order; (event_id, seq) serves the in-order load per event.
+CREATE TABLE waitlist (
+    seq BIGINT AUTO_INCREMENT PRIMARY KEY,
+    event_id INT NOT NULL,
+    user_id INT NOT NULL,
+    joined_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+
+    FOREIGN KEY (user_id) REFERENCES users(user_id),
+    FOREIGN KEY (event_id) REFERENCES events(event_id) ON DELETE CASCADE,
+
+    UNIQUE (event_id, user_id),
+    INDEX idx_waitlist_event_seq (event_id, seq)
 );
 
 -- OPTIONAL: Insert Sample Data for Testing
@@ -52,7 +77,8 @@ VALUES
 ('Introduction to JDBC & Spark', '2026-01-20', 'Room 303', 100, 10.00),
 ('OOP Design Workshop', '2026-02-15', 'Lecture Theatre A', 75, 0.00);
 
-INSERT INTO users (name, email, user_type)
+-- Sample passwords are plaintext; they still log in, and are replaced by a hash on first login
+INSERT INTO users (username, password, name, email, user_type)
 VALUES
-('Alice Johnson', 'alice@example.com', 'Registered Attendee'),
-('Bob Smith', 'bob@example.com', 'Standard User');
\ No newline at end of file
+('alice', 'alice123', 'Alice Johnson', 'alice@example.com', 'Registered Attendee'),
+('bob', 'bob123', 'Bob Smith', 'bob@example.com', 'Standard User');
\ No newline at end of file
@@ -0,0 +1,103 @@
+package eventreg2;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class AuditLogTest {
+
+    private static AuditLog open(Path directory, int segmentBytes, int maxSegments) throws Exception {
+        return AuditLog.open(directory, 1024, segmentBytes, maxSegments, AuditLog.FsyncPolicy.BATCH, 1000);
+    }
+
+    @Test
+    public void testRecordsFromManyThreadsAreReplayedAcrossSegments() throws Exception {
+        Path directory = Files.createTempDirectory("audit");
+        int threads = 8;
+        int perThread = 2000;
+        try (AuditLog log = open(directory, 4096, 0)) {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            CountDownLatch done = new CountDownLatch(threads);
+            for (int t = 0; t < threads; t++) {
+                int userId = t + 1;
+                pool.execute(() -> {
+                    for (int i = 1; i <= perThread; i++) {
+                        // Spin rather than drop when the ring is momentarily full
+                        while (!log.record(AuditLog.Type.REGISTERED, i, userId, null)) Thread.onSpinWait();
+                    }
+                    done.countDown();
+                });
+            }
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            pool.shutdown();
+            log.record(AuditLog.Type.LOGIN, 0, 0, "ann");
+        }
+
+        List<AuditLog.Record> records = new ArrayList<>();
+        assertEquals(threads * perThread + 1, AuditLogReader.replay(directory, records::add));
+        assertTrue(AuditLog.segments(directory).size() > 1);
+        // Each producer's records come back in the order it wrote them
+        int[] lastEventId = new int[threads + 1];
+        for (AuditLog.Record record : records.subList(0, records.size() - 1)) {
+            assertEquals(lastEventId[record.getUserId()] + 1, record.getEventId());
+            lastEventId[record.getUserId()] = record.getEventId();
+        }
+        AuditLog.Record login = records.get(records.size() - 1);
+        assertEquals(AuditLog.Type.LOGIN, login.getType());
+        assertEquals("ann", login.getText());
+    }
+
+    @Test
+    public void testOldSegmentsAreDeletedAndNumberingContinues() throws Exception {
+        Path directory = Files.createTempDirectory("audit");
+        try (AuditLog log = open(directory, 4096, 2)) {
+            for (int i = 0; i < 1000; i++) {
+                while (!log.record(AuditLog.Type.CANCELLED, i, 1, null)) Thread.onSpinWait();
+            }
+        }
+        List<Path> kept = AuditLog.segments(directory);
+        assertEquals(2, kept.size());
+
+        try (AuditLog log = open(directory, 4096, 2)) {
+            assertEquals(AuditLog.indexOf(kept.get(1)) + 1, AuditLog.indexOf(log.getCurrentSegment()));
+        }
+    }
+
+    @Test
+    public void testFollowSeesRecordsWrittenLater() throws Exception {
+        Path directory = Files.createTempDirectory("audit");
+        List<AuditLog.Record> seen = new CopyOnWriteArrayList<>();
+        try (AuditLog log = open(directory, 4096, 0)) {
+            log.record(AuditLog.Type.EVENT_CREATED, 1, 0, null);
+            Thread follower = new Thread(() -> {
+                try {
+                    AuditLogReader.follow(directory, seen::add);
+                } catch (InterruptedException e) {
+                    // Stopped by the test
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            follower.start();
+            for (int i = 2; i <= 500; i++) {
+                log.record(AuditLog.Type.EVENT_UPDATED, i, 0, null);
+            }
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (seen.size() < 500 && System.currentTimeMillis() < deadline) Thread.sleep(20);
+            follower.interrupt();
+            follower.join();
+        }
+        assertEquals(500, seen.size());
+        assertEquals(AuditLog.Type.EVENT_CREATED, seen.get(0).getType());
+        assertEquals(500, seen.get(499).getEventId());
+    }
+}
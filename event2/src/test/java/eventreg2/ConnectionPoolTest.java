@@ -0,0 +1,128 @@
+package eventreg2;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.junit.After;
+import org.junit.Test;
+
+/** Runs against a private in-memory H2 database, separate from the one the DAO tests use. */
+public class ConnectionPoolTest {
+
+    private static final String URL = "jdbc:h2:mem:connection-pool-test;DB_CLOSE_DELAY=-1";
+
+    private ConnectionPool pool;
+
+    @After
+    public void tearDown() {
+        if (pool != null) pool.shutdown();
+    }
+
+    @Test
+    public void testBorrowTimesOutWhenEveryConnectionIsOut() throws Exception {
+        pool = new ConnectionPool(URL, "sa", "", 0, 1, 100, 60_000, 0);
+        Connection held = pool.borrow();
+
+        long start = System.nanoTime();
+        try {
+            pool.borrow();
+            fail("Borrowed past maxSize");
+        } catch (SQLException e) {
+            assertEquals("08001", e.getSQLState());
+            assertTrue((System.nanoTime() - start) / 1_000_000 >= 100);
+        }
+        assertEquals(1, pool.getActiveCount());
+
+        held.close();
+        try (Connection connection = pool.borrow()) {
+            assertFalse(connection.isClosed());
+        }
+    }
+
+    @Test
+    public void testCloseReturnsTheConnection() throws Exception {
+        pool = new ConnectionPool(URL, "sa", "", 0, 2, 1000, 60_000, 0);
+        Connection first = pool.borrow();
+        Connection physical = first.unwrap(Connection.class);
+        first.setAutoCommit(false);
+        assertEquals(1, pool.getActiveCount());
+
+        first.close();
+        first.close();
+        assertTrue(first.isClosed());
+        assertEquals(0, pool.getActiveCount());
+        assertEquals(1, pool.getIdleCount());
+        try {
+            first.createStatement();
+            fail("Used a returned connection");
+        } catch (SQLException expected) {
+            // The handle stays dead after close
+        }
+
+        // The next borrower gets the same physical connection, back in auto-commit
+        try (Connection second = pool.borrow()) {
+            assertSame(physical, second.unwrap(Connection.class));
+            assertTrue(second.getAutoCommit());
+            assertEquals(1, pool.getTotalCount());
+        }
+    }
+
+    @Test
+    public void testIdleConnectionsAreEvictedDownToMinSize() throws Exception {
+        pool = new ConnectionPool(URL, "sa", "", 1, 3, 1000, 50, 0);
+        Connection a = pool.borrow();
+        Connection b = pool.borrow();
+        Connection c = pool.borrow();
+        a.close();
+        b.close();
+        c.close();
+        assertEquals(3, pool.getTotalCount());
+
+        Thread.sleep(100);
+        pool.housekeep();
+        assertEquals(1, pool.getTotalCount());
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void testStatementsAreReusedAfterClose() throws Exception {
+        pool = new ConnectionPool(URL, "sa", "", 0, 1, 1000, 60_000, 4);
+        PreparedStatement physical;
+        try (Connection connection = pool.borrow();
+             PreparedStatement pstmt = connection.prepareStatement("SELECT ? + 1")) {
+            physical = pstmt.unwrap(PreparedStatement.class);
+            pstmt.setInt(1, 1);
+            assertEquals(2, single(pstmt));
+        }
+
+        try (Connection connection = pool.borrow();
+             PreparedStatement pstmt = connection.prepareStatement("SELECT ? + 1")) {
+            assertSame(physical, pstmt.unwrap(PreparedStatement.class));
+            pstmt.setInt(1, 41);
+            assertEquals(42, single(pstmt));
+
+            // A different key gets its own statement
+            try (PreparedStatement keyed = connection.prepareStatement("SELECT ? + 1", Statement.RETURN_GENERATED_KEYS)) {
+                assertNotSame(physical, keyed.unwrap(PreparedStatement.class));
+            }
+            pstmt.close();
+            try {
+                pstmt.executeQuery();
+                fail("Used a checked-in statement");
+            } catch (SQLException expected) {
+                // The handle is closed even though the statement lives on in the cache
+            }
+        }
+    }
+
+    private static int single(PreparedStatement pstmt) throws SQLException {
+        try (ResultSet rs = pstmt.executeQuery()) {
+            assertTrue(rs.next());
+            return rs.getInt(1);
+        }
+    }
+}
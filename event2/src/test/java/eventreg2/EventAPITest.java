@@ -0,0 +1,120 @@
+package eventreg2;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+import spark.HaltException;
+import spark.Route;
+
+/**
+ * Calls route handlers of {@link EventAPI} directly, with a response that records what
+ * the route set. Runs against the in-memory H2 database the build points the tests at.
+ */
+public class EventAPITest {
+
+    /** A Spark response without a servlet behind it. */
+    static final class RecordingResponse extends spark.Response {
+        int status = 200;
+        final Map<String, String> headers = new HashMap<>();
+
+        @Override public void status(int statusCode) { status = statusCode; }
+        @Override public int status() { return status; }
+        @Override public void header(String header, String value) { headers.put(header, value); }
+        @Override public void type(String contentType) { headers.put("Content-Type", contentType); }
+    }
+
+    private RegistrationEngine engine;
+    private Waitlist waitlist;
+
+    @Before
+    public void setUp() throws Exception {
+        EventDAOTest.clearTables();
+        engine = new RegistrationEngine(new RegistrationDAO());
+        waitlist = new Waitlist(new RegistrationDAO(), engine);
+    }
+
+    @Test
+    public void testSoldOutRegistrationJoinsTheWaitlist() throws Exception {
+        int eventId = soldOutEvent();
+        int ann;
+        try (Connection connection = DatabaseConnection.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO users (username, password) VALUES ('ann', 'x')",
+                Statement.RETURN_GENERATED_KEYS);
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                keys.next();
+                ann = keys.getInt(1);
+            }
+        }
+
+        RecordingResponse response = new RecordingResponse();
+        String body = EventAPI.joinWaitlist(waitlist, response, ann, eventId);
+        assertEquals(202, response.status);
+        assertEquals("{\"status\": \"waitlisted\", \"position\": 1}", body);
+    }
+
+    @Test
+    public void testUnknownUserOnSoldOutEventIsNotFound() throws Exception {
+        int eventId = soldOutEvent();
+
+        RecordingResponse response = new RecordingResponse();
+        String body = EventAPI.joinWaitlist(waitlist, response, 987_654, eventId);
+        assertEquals(404, response.status);
+        assertEquals("{\"error\": \"User ID 987654 not found\"}", body);
+        assertEquals(0, waitlist.size(eventId));
+    }
+
+    @Test
+    public void testEventDeletedBeforeJoiningIsNotFound() throws Exception {
+        RecordingResponse response = new RecordingResponse();
+        String body = EventAPI.joinWaitlist(waitlist, response, 1, 123_456);
+        assertEquals(404, response.status);
+        assertFalse(body.contains("position"));
+    }
+
+    @Test
+    public void testOnlyWrappedRoutesAreShedWhileOverloaded() throws Exception {
+        Metrics.Histogram latency = new Metrics.Histogram();
+        LoadShedder shedder = new LoadShedder(null, latency, 0, 1000, 1);
+        for (int i = 0; i < 10; i++) latency.record(TimeUnit.SECONDS.toNanos(2));
+        shedder.sample();
+        assertTrue(shedder.isOverloaded());
+
+        AtomicInteger calls = new AtomicInteger();
+        Route route = (request, response) -> "ran " + calls.incrementAndGet();
+        RecordingResponse response = new RecordingResponse();
+        try {
+            EventAPI.shedding(shedder, route).handle(null, response);
+            fail("Not shed while overloaded");
+        } catch (HaltException e) {
+            assertEquals(503, e.statusCode());
+            assertEquals("1", response.headers.get("Retry-After"));
+        }
+        assertEquals(0, calls.get());
+
+        // Routes mapped without the shedder (e.g. /api/ready) keep answering
+        assertEquals("ran 1", EventAPI.shedding(null, route).handle(null, new RecordingResponse()));
+
+        // Fast seconds clear the overload again
+        for (int i = 0; i < 10; i++) latency.record(TimeUnit.MILLISECONDS.toNanos(1));
+        shedder.sample();
+        assertEquals("ran 2", EventAPI.shedding(shedder, route).handle(null, new RecordingResponse()));
+    }
+
+    private int soldOutEvent() throws Exception {
+        Event event = new Event("Full", LocalDate.of(2026, 5, 1), "Room 1", 0, BigDecimal.ZERO);
+        assertTrue(new EventDAO().create(event));
+        assertEquals(RegistrationEngine.Result.SOLD_OUT, engine.register(1, event.getEventId()));
+        return event.getEventId();
+    }
+}
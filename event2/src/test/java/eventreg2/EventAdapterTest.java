@@ -0,0 +1,70 @@
+package eventreg2;
+
+import static org.junit.Assert.*;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import org.junit.Test;
+
+public class EventAdapterTest {
+
+    private static final Gson REFLECTIVE = new GsonBuilder()
+        .registerTypeAdapter(LocalDate.class, new LocalDateAdapter())
+        .create();
+    private static final Gson STREAMING = new GsonBuilder()
+        .registerTypeAdapter(LocalDate.class, new LocalDateAdapter())
+        .registerTypeAdapter(Event.class, new EventAdapter())
+        .registerTypeAdapter(User.class, new UserAdapter())
+        .create();
+
+    @Test
+    public void testEncodesLikeReflectiveMappingWithoutEmptyAttendees() {
+        Event event = new Event(7, "Meetup \"Q3\"", LocalDate.of(2025, 3, 14), "Hall A", 40, new BigDecimal("12.50"));
+
+        JsonObject expected = JsonParser.parseString(REFLECTIVE.toJson(event)).getAsJsonObject();
+        expected.remove("registeredAttendees");
+        String json = STREAMING.toJson(event);
+
+        assertEquals(expected, JsonParser.parseString(json));
+        assertEquals("{\"eventId\":7,\"title\":\"Meetup \\\"Q3\\\"\",\"date\":\"2025-03-14\","
+            + "\"location\":\"Hall A\",\"capacity\":40,\"fee\":12.50}", json);
+
+        Event noFee = new Event(8, "Free", LocalDate.of(2025, 3, 15), null, 10, null);
+        assertEquals(REFLECTIVE.toJson(noFee).replace(",\"registeredAttendees\":[]", ""), STREAMING.toJson(noFee));
+    }
+
+    @Test
+    public void testDecodesWhatReflectiveMappingProduces() {
+        Event event = new Event(7, "Meetup", LocalDate.of(2025, 3, 14), "Hall A", 40, new BigDecimal("12.50"));
+        User attendee = new User("Ann", "ann@example.com");
+        attendee.setUsername("ann");
+        event.getRegisteredAttendees().add(attendee);
+
+        Event decoded = STREAMING.fromJson(REFLECTIVE.toJson(event), Event.class);
+        assertEquals(7, decoded.getEventId());
+        assertEquals("Meetup", decoded.getTitle());
+        assertEquals(LocalDate.of(2025, 3, 14), decoded.getDate());
+        assertEquals("Hall A", decoded.getLocation());
+        assertEquals(40, decoded.getCapacity());
+        assertEquals(new BigDecimal("12.50"), decoded.getFee());
+        assertEquals("ann", decoded.getRegisteredAttendees().get(0).getUsername());
+        assertEquals(REFLECTIVE.toJson(event), STREAMING.toJson(decoded));
+
+        // Field order, quoted numbers, nulls and unknown fields as the frontend may send them
+        Event form = STREAMING.fromJson("{\"fee\":\"5\",\"capacity\":\"20\",\"location\":null,"
+            + "\"extra\":{\"a\":[1]},\"title\":\"Talk\",\"date\":\"2025-01-02\"}", Event.class);
+        assertEquals(0, form.getEventId());
+        assertEquals(20, form.getCapacity());
+        assertEquals(new BigDecimal("5"), form.getFee());
+        assertNull(form.getLocation());
+        assertTrue(form.getRegisteredAttendees().isEmpty());
+
+        User login = STREAMING.fromJson("{\"username\":\"ann\",\"password\":\"secret\"}", User.class);
+        assertEquals("ann", login.getUsername());
+        assertEquals("secret", login.getPassword());
+    }
+}
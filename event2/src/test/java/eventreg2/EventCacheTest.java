@@ -0,0 +1,65 @@
+package eventreg2;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class EventCacheTest {
+
+    private static Event event(int id) {
+        return new Event(id, "Event " + id, LocalDate.of(2026, 1, 1), "Room " + id, 10, BigDecimal.ONE);
+    }
+
+    @Test
+    public void testReadThroughAndHit() throws Exception {
+        EventCache cache = new EventCache(60_000, 100);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1, () -> { loads.incrementAndGet(); return event(1); });
+        Event cached = cache.get(1, () -> { loads.incrementAndGet(); return event(1); });
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cached.getEventId());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testWriteDuringLoadIsNotOverwrittenByStaleValue() throws Exception {
+        EventCache cache = new EventCache(60_000, 100);
+
+        // The event is deleted while a reader is still loading the old row
+        cache.get(1, () -> {
+            cache.invalidate(1);
+            return event(1);
+        });
+
+        AtomicInteger loads = new AtomicInteger();
+        Event reloaded = cache.get(1, () -> { loads.incrementAndGet(); return null; });
+
+        assertEquals(1, loads.get());
+        assertNull(reloaded);
+    }
+
+    @Test
+    public void testInvalidateDropsListAndSizeBound() throws Exception {
+        EventCache cache = new EventCache(60_000, 2);
+
+        List<Event> all = cache.getAll(() -> List.of(event(1), event(2)));
+        assertEquals(2, all.size());
+        assertSame(all, cache.getAll(() -> List.of()));
+
+        cache.invalidate(2);
+        assertEquals(0, cache.getAll(() -> List.of()).size());
+
+        cache.get(3, () -> event(3));
+        cache.get(4, () -> event(4));
+        cache.get(5, () -> event(5));
+        assertEquals(2, cache.size());
+        assertTrue(cache.getEvictionCount() >= 1);
+    }
+}
@@ -0,0 +1,48 @@
+package eventreg2;
+
+import static org.junit.Assert.*;
+
+import com.google.gson.Gson;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+public class EventChangeFeedTest {
+
+    private static String text(EventChangeFeed.Change change) {
+        return new String(change.message, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testChangesAreNumberedAndReplayedInOrder() {
+        EventChangeFeed feed = new EventChangeFeed(new Gson(), 8, 60);
+        assertNull(feed.next(0));
+
+        feed.eventDeleted(7);
+        feed.eventDeleted(8);
+        assertEquals(2, feed.latest());
+
+        EventChangeFeed.Change first = feed.next(0);
+        assertEquals(1, first.sequence);
+        assertEquals("id: 1\nevent: deleted\ndata: {\"eventId\":7}\n\n", text(first));
+        assertEquals(2, feed.next(first.sequence).sequence);
+        assertNull(feed.next(2));
+    }
+
+    @Test
+    public void testClientsOutsideTheBufferAreReset() {
+        EventChangeFeed feed = new EventChangeFeed(new Gson(), 4, 60);
+        for (int id = 1; id <= 10; id++) {
+            feed.eventDeleted(id);
+        }
+
+        // Changes 7..10 are still buffered
+        assertEquals(7, feed.next(6).sequence);
+        EventChangeFeed.Change reset = feed.next(5);
+        assertEquals(10, reset.sequence);
+        assertTrue(text(reset).contains("event: reset"));
+
+        // An ID from before a restart is ahead of this feed
+        assertEquals(10, feed.next(42).sequence);
+        assertTrue(text(feed.next(42)).contains("event: reset"));
+    }
+}
@@ -0,0 +1,125 @@
+package eventreg2;
+
+import static org.junit.Assert.*;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class EventCodecTest {
+
+    private static final Gson GSON = new GsonBuilder()
+        .registerTypeAdapter(LocalDate.class, new LocalDateAdapter())
+        .registerTypeAdapter(Event.class, new EventAdapter())
+        .create();
+
+    @Test
+    public void testRandomListsRoundTripLikeJson() {
+        Random random = new Random(42);
+        for (int run = 0; run < 500; run++) {
+            List<Event> events = new ArrayList<>();
+            int size = random.nextInt(20);
+            for (int i = 0; i < size; i++) {
+                events.add(randomEvent(random));
+            }
+
+            byte[] encoded = EventCodec.encode(events);
+            List<Event> decoded = EventCodec.decode(encoded);
+
+            assertEquals(GSON.toJson(events), GSON.toJson(decoded));
+            for (int i = 0; i < size; i++) {
+                // Same scale too, not just the same JSON number
+                assertEquals(events.get(i).getFee(), decoded.get(i).getFee());
+            }
+        }
+    }
+
+    @Test
+    public void testSeveralTimesSmallerThanJson() {
+        List<Event> events = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            events.add(new Event(i, "Event " + i, LocalDate.of(2025, 1, 1).plusDays(i % 365),
+                "Venue " + (i % 50), 50 + i % 200, new BigDecimal(i % 100 + ".50")));
+        }
+        int json = GSON.toJson(events).getBytes(StandardCharsets.UTF_8).length;
+        int binary = EventCodec.encode(events).length;
+        assertTrue("json=" + json + " binary=" + binary, binary * 2 < json);
+    }
+
+    @Test
+    public void testMalformedInputIsRejected() {
+        byte[] valid = EventCodec.encode(Collections.singletonList(
+            new Event(1, "Talk", LocalDate.of(2025, 1, 2), "Room", 10, new BigDecimal("5.00"))));
+
+        assertTrue(EventCodec.decode(new byte[] {1, 0}).isEmpty());
+        for (int length = 0; length < valid.length; length++) {
+            try {
+                EventCodec.decode(Arrays.copyOf(valid, length));
+                fail("Decoded a truncated list of " + length + " bytes");
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+        byte[] trailing = Arrays.copyOf(valid, valid.length + 1);
+        try {
+            EventCodec.decode(trailing);
+            fail("Decoded trailing bytes");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            EventCodec.decode(new byte[] {1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x7F});
+            fail("Accepted a count larger than the input");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private static Event randomEvent(Random random) {
+        int eventId = random.nextInt(4) == 0 ? random.nextInt() : random.nextInt(100_000);
+        int capacity = random.nextInt(4) == 0 ? random.nextInt() : random.nextInt(1000);
+        String title = random.nextInt(8) == 0 ? null : randomString(random);
+        LocalDate date = random.nextInt(8) == 0 ? null
+            : LocalDate.ofEpochDay(random.nextInt(2_000_000) - 1_000_000);
+        String location = random.nextInt(8) == 0 ? null : randomString(random);
+        BigDecimal fee = random.nextInt(8) == 0 ? null
+            : BigDecimal.valueOf(random.nextLong() >> random.nextInt(64), random.nextInt(8) - 2);
+        return new Event(eventId, title, date, location, capacity, fee);
+    }
+
+    private static String randomString(Random random) {
+        StringBuilder text = new StringBuilder();
+        int length = random.nextInt(30);
+        for (int i = 0; i < length; i++) {
+            switch (random.nextInt(4)) {
+                case 0: text.append((char) ('a' + random.nextInt(26))); break;
+                case 1: text.append("\"\\\n"); break;
+                case 2: text.append('é'); break;
+                default: text.appendCodePoint(0x1F389); break;
+            }
+        }
+        return text.toString();
+    }
+
+    @Test
+    public void testAcceptHonorsMediaRangesAndQuality() {
+        assertTrue(EventCodec.accepts("application/x-eventreg-bin"));
+        assertTrue(EventCodec.accepts("Application/X-Eventreg-Bin; charset=binary"));
+        assertTrue(EventCodec.accepts("application/x-eventreg-bin, application/json;q=0.9"));
+        assertTrue(EventCodec.accepts("application/json;q=0.5, application/x-eventreg-bin;q=0.5"));
+
+        assertFalse(EventCodec.accepts(null));
+        assertFalse(EventCodec.accepts("*/*"));
+        assertFalse(EventCodec.accepts("application/json"));
+        assertFalse(EventCodec.accepts("application/x-eventreg-bin;q=0, application/json"));
+        assertFalse(EventCodec.accepts("application/x-eventreg-bin; q=0.0"));
+        assertFalse(EventCodec.accepts("application/x-eventreg-bin;q=0.2, */*"));
+        assertFalse(EventCodec.accepts("application/x-eventreg-bin;q=high"));
+        assertFalse(EventCodec.accepts("application/x-eventreg-binary"));
+    }
+}
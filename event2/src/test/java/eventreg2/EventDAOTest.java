@@ -0,0 +1,206 @@
+package eventreg2;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Runs against the in-memory H2 database the build points the tests at. */
+public class EventDAOTest {
+
+    private final EventDAO eventDAO = new EventDAO();
+    private final RegistrationDAO registrationDAO = new RegistrationDAO();
+
+    static void clearTables() throws Exception {
+        try (Connection connection = DatabaseConnection.getConnection();
+             Statement statement = connection.createStatement()) {
+            for (String table : new String[] {"waitlist", "registrations", "events", "users"}) {
+                statement.execute("DELETE FROM " + table);
+            }
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        assertEquals(Dialect.H2, DatabaseConnection.getDialect());
+        clearTables();
+    }
+
+    @Test
+    public void testCreateReadUpdateAndStream() throws Exception {
+        Event event = new Event("Talk", LocalDate.of(2026, 5, 1), "Room 1", 30, new BigDecimal("7.50"));
+        assertTrue(eventDAO.create(event));
+        assertTrue(event.getEventId() > 0);
+
+        event.setTitle("Keynote");
+        assertTrue(eventDAO.update(event));
+        Event read = eventDAO.read(event.getEventId());
+        assertEquals("Keynote", read.getTitle());
+        assertEquals(LocalDate.of(2026, 5, 1), read.getDate());
+        assertEquals(new BigDecimal("7.50"), read.getFee());
+
+        eventDAO.createAll(Arrays.asList(
+            new Event("A", LocalDate.of(2026, 6, 1), "Room 2", 10, BigDecimal.ONE),
+            new Event("B", LocalDate.of(2026, 7, 1), "Room 3", 10, BigDecimal.ONE)));
+        assertEquals(3, eventDAO.readAll().size());
+
+        // Streams with the dialect's fetch size
+        List<String> titles = new ArrayList<>();
+        assertEquals(3, eventDAO.streamAll(streamed -> titles.add(streamed.getTitle())));
+        assertEquals(Arrays.asList("Keynote", "A", "B"), titles);
+    }
+
+    @Test
+    public void testSeatsAreClaimedWithinCapacity() throws Exception {
+        try (Connection connection = DatabaseConnection.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO users (username, password) VALUES ('ann', 'x'), ('bob', 'x')");
+        }
+        int ann = userId("ann");
+        int bob = userId("bob");
+        Event event = new Event("Small", LocalDate.of(2026, 5, 1), "Room 1", 1, BigDecimal.ZERO);
+        eventDAO.create(event);
+
+        assertTrue(registrationDAO.registerWithinCapacity(ann, event.getEventId()));
+        assertFalse(registrationDAO.registerWithinCapacity(bob, event.getEventId()));
+        try {
+            event.setCapacity(5);
+            eventDAO.update(event);
+            registrationDAO.registerWithinCapacity(ann, event.getEventId());
+            fail("Registered twice");
+        } catch (SQLIntegrityConstraintViolationException e) {
+            assertTrue(RegistrationDAO.isDuplicate(e));
+        }
+
+        BatchResult deleted = eventDAO.deleteAll(List.of(event.getEventId()));
+        assertEquals(1, deleted.getSucceeded());
+        assertNull(eventDAO.read(event.getEventId()));
+    }
+
+    @Test
+    public void testUpdateAllWithAMissingIdUpdatesNothing() throws Exception {
+        Event a = new Event("A", LocalDate.of(2026, 6, 1), "Room 2", 10, BigDecimal.ONE);
+        Event b = new Event("B", LocalDate.of(2026, 7, 1), "Room 3", 10, BigDecimal.ONE);
+        assertEquals(2, eventDAO.createAll(Arrays.asList(a, b)).getSucceeded());
+
+        Event missing = new Event("Gone", LocalDate.of(2026, 8, 1), "Room 4", 10, BigDecimal.ONE);
+        missing.setEventId(b.getEventId() + 1000);
+        a.setTitle("A2");
+        b.setTitle("B2");
+        BatchResult result = eventDAO.updateAll(Arrays.asList(a, missing, b, new Event("No ID", LocalDate.of(2026, 9, 1), "Room 5", 10, BigDecimal.ONE)));
+
+        assertEquals(0, result.getSucceeded());
+        assertEquals("Not saved: another item in the batch failed", result.getItems().get(0).getError());
+        assertEquals("Event ID " + missing.getEventId() + " not found", result.getItems().get(1).getError());
+        assertEquals(Integer.valueOf(b.getEventId()), result.getItems().get(2).getId());
+        assertEquals("Not saved: another item in the batch failed", result.getItems().get(2).getError());
+        assertEquals("eventId is required", result.getItems().get(3).getError());
+        assertEquals("A", eventDAO.read(a.getEventId()).getTitle());
+        assertEquals("B", eventDAO.read(b.getEventId()).getTitle());
+    }
+
+    @Test
+    public void testConstraintFailureRollsBackTheWholeBatch() throws Exception {
+        String tooLong = String.join("", Collections.nCopies(300, "x"));
+        Event ok = new Event("Fine", LocalDate.of(2026, 6, 1), "Room 2", 10, BigDecimal.ONE);
+        Event bad = new Event(tooLong, LocalDate.of(2026, 7, 1), "Room 3", 10, BigDecimal.ONE);
+        BatchResult created = eventDAO.createAll(Arrays.asList(ok, bad, new Event("No date", (LocalDate) null, "Room 4", 10, BigDecimal.ONE)));
+
+        assertEquals(0, created.getSucceeded());
+        assertEquals("Not saved: another item in the batch failed", created.getItems().get(0).getError());
+        assertNotNull(created.getItems().get(1).getError());
+        assertFalse(created.getItems().get(1).getError().startsWith("Not saved"));
+        assertEquals("title and date are required", created.getItems().get(2).getError());
+        assertEquals(0, eventDAO.readAll().size());
+
+        Event a = new Event("A", LocalDate.of(2026, 6, 1), "Room 2", 10, BigDecimal.ONE);
+        Event b = new Event("B", LocalDate.of(2026, 7, 1), "Room 3", 10, BigDecimal.ONE);
+        eventDAO.createAll(Arrays.asList(a, b));
+        a.setTitle("A2");
+        b.setTitle(tooLong);
+        BatchResult updated = eventDAO.updateAll(Arrays.asList(a, b));
+
+        assertEquals(0, updated.getSucceeded());
+        assertEquals("Not saved: another item in the batch failed", updated.getItems().get(0).getError());
+        assertFalse(updated.getItems().get(1).getError().startsWith("Not saved"));
+        assertEquals("A", eventDAO.read(a.getEventId()).getTitle());
+        assertEquals("B", eventDAO.read(b.getEventId()).getTitle());
+    }
+
+    @Test
+    public void testDeleteAllChunksAndDrainsLargeEvents() throws Exception {
+        try (Connection connection = DatabaseConnection.getConnection();
+             Statement statement = connection.createStatement()) {
+            for (int i = 0; i < 7; i++) {
+                statement.execute("INSERT INTO users (username, password) VALUES ('user" + i + "', 'x')");
+            }
+        }
+        // Three registrations per transaction: "large" has to drain, the others share chunks
+        EventDAO chunked = new EventDAO(3);
+        Event large = new Event("Large", LocalDate.of(2026, 5, 1), "Hall", 100, BigDecimal.ZERO);
+        Event pair = new Event("Pair", LocalDate.of(2026, 5, 2), "Room 1", 100, BigDecimal.ZERO);
+        Event single = new Event("Single", LocalDate.of(2026, 5, 3), "Room 2", 100, BigDecimal.ZERO);
+        Event empty = new Event("Empty", LocalDate.of(2026, 5, 4), "Room 3", 100, BigDecimal.ZERO);
+        Event kept = new Event("Kept", LocalDate.of(2026, 5, 5), "Room 4", 100, BigDecimal.ZERO);
+        for (Event event : Arrays.asList(large, pair, single, empty, kept)) {
+            chunked.create(event);
+        }
+        for (int i = 0; i < 7; i++) {
+            assertTrue(registrationDAO.registerWithinCapacity(userId("user" + i), large.getEventId()));
+        }
+        registrationDAO.registerWithinCapacity(userId("user0"), pair.getEventId());
+        registrationDAO.registerWithinCapacity(userId("user1"), pair.getEventId());
+        registrationDAO.registerWithinCapacity(userId("user2"), single.getEventId());
+        registrationDAO.registerWithinCapacity(userId("user3"), kept.getEventId());
+
+        Metrics.Counter deletedRegistrations = Metrics.counter("eventreg_dao_deleted_rows_total", "table", "registrations");
+        long registrationsBefore = deletedRegistrations.get();
+        int missing = kept.getEventId() + 1000;
+        BatchResult result = chunked.deleteAll(Arrays.asList(
+            large.getEventId(), pair.getEventId(), missing, single.getEventId(), empty.getEventId()));
+        assertEquals(4, result.getSucceeded());
+        assertEquals(1, result.getFailed());
+        BatchResult.Item notFound = result.getItems().get(2);
+        assertFalse(notFound.isSuccess());
+        assertEquals(Integer.valueOf(missing), notFound.getId());
+        assertEquals("Event ID " + missing + " not found", notFound.getError());
+
+        assertEquals(1, eventDAO.readAll().size());
+        assertNotNull(eventDAO.read(kept.getEventId()));
+        assertEquals(1, countRows("registrations"));
+        assertEquals(10, deletedRegistrations.get() - registrationsBefore);
+
+        // Deleting the same IDs again finds none of them
+        result = chunked.deleteAll(Arrays.asList(large.getEventId(), pair.getEventId()));
+        assertEquals(0, result.getSucceeded());
+        assertEquals(2, result.getFailed());
+    }
+
+    private static int countRows(String table) throws Exception {
+        try (Connection connection = DatabaseConnection.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static int userId(String username) throws Exception {
+        try (Connection connection = DatabaseConnection.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT user_id FROM users WHERE username = '" + username + "'")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
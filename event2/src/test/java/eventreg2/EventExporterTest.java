@@ -0,0 +1,65 @@
+package eventreg2;
+
+import static org.junit.Assert.*;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Runs against the in-memory H2 database the build points the tests at. */
+public class EventExporterTest {
+
+    private static final Gson GSON = new GsonBuilder()
+        .registerTypeAdapter(LocalDate.class, new LocalDateAdapter())
+        .registerTypeAdapter(Event.class, new EventAdapter())
+        .create();
+
+    private final EventDAO eventDAO = new EventDAO();
+    private final EventExporter exporter = new EventExporter(GSON, eventDAO);
+
+    @Before
+    public void setUp() throws Exception {
+        EventDAOTest.clearTables();
+    }
+
+    @Test
+    public void testEmptyTable() throws Exception {
+        assertEquals("[]", export(EventExporter.Format.JSON, 0));
+        assertEquals("", export(EventExporter.Format.NDJSON, 0));
+    }
+
+    @Test
+    public void testJsonAndNdjsonCarryEveryEventInIdOrder() throws Exception {
+        Event first = new Event("Talk", LocalDate.of(2026, 5, 1), "Room 1", 30, new BigDecimal("7.50"));
+        Event second = new Event("Café \"night\"", LocalDate.of(2026, 6, 1), null, 10, null);
+        eventDAO.createAll(Arrays.asList(first, second));
+
+        List<Event> array = GSON.fromJson(export(EventExporter.Format.JSON, 2), new TypeToken<List<Event>>() {}.getType());
+        assertEquals(2, array.size());
+        assertEquals(first.getEventId(), array.get(0).getEventId());
+        assertEquals(new BigDecimal("7.50"), array.get(0).getFee());
+        assertEquals("Café \"night\"", array.get(1).getTitle());
+        assertNull(array.get(1).getLocation());
+
+        String ndjson = export(EventExporter.Format.NDJSON, 2);
+        assertTrue(ndjson.endsWith("\n"));
+        String[] lines = ndjson.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(GSON.toJson(array.get(0)), lines[0]);
+        assertEquals(LocalDate.of(2026, 6, 1), GSON.fromJson(lines[1], Event.class).getDate());
+    }
+
+    private String export(EventExporter.Format format, int expectedCount) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(expectedCount, exporter.export(out, format));
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
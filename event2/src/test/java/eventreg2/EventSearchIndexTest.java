@@ -0,0 +1,83 @@
+package eventreg2;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class EventSearchIndexTest {
+
+    private static Event event(int id, String title, String location, String date, int fee) {
+        return new Event(id, title, LocalDate.parse(date), location, 10, new BigDecimal(fee));
+    }
+
+    private static List<Integer> ids(List<Event> events) {
+        List<Integer> ids = new ArrayList<>();
+        for (Event event : events) ids.add(event.getEventId());
+        return ids;
+    }
+
+    private static EventQuery filter() {
+        EventQuery filter = new EventQuery();
+        filter.setLimit(EventSearchIndex.DEFAULT_LIMIT);
+        return filter;
+    }
+
+    @Test
+    public void testTokenizeFoldsCaseAndAccents() {
+        assertArrayEquals(new String[] {"cafe", "zurich", "2026"},
+            EventSearchIndex.tokenize("Café  ZÜRICH-2026, café"));
+        assertEquals(0, EventSearchIndex.tokenize(" ,. ").length);
+    }
+
+    @Test
+    public void testMatchesEveryWordAndRanksTitleAbovePrefixAndLocation() {
+        EventSearchIndex index = new EventSearchIndex();
+        index.load(Arrays.asList(
+            event(1, "Java Meetup", "Room 1", "2026-05-01", 0),
+            event(2, "JavaScript Night", "Room 2", "2026-04-01", 0),
+            event(3, "Chess Club", "Java House", "2026-03-01", 0),
+            event(4, "Java Workshop", "Room 1", "2026-02-01", 50)));
+
+        // Exact title matches first, earlier date breaking the tie, then prefix, then location
+        assertEquals(Arrays.asList(4, 1, 2, 3), ids(index.search("java", filter())));
+        // A trailing space ends the word, so no prefix matches
+        assertEquals(Arrays.asList(4, 1, 3), ids(index.search("java ", filter())));
+        assertEquals(Arrays.asList(4), ids(index.search("java work", filter())));
+        // Only the last word is a prefix
+        assertTrue(index.search("jav work", filter()).isEmpty());
+        assertEquals(Arrays.asList(4, 1), ids(index.search("room 1 java", filter())));
+        assertTrue(index.search("python", filter()).isEmpty());
+
+        EventQuery filter = filter();
+        filter.setMaxFee(BigDecimal.TEN);
+        filter.setFromDate(LocalDate.parse("2026-03-15"));
+        assertEquals(Arrays.asList(1, 2), ids(index.search("java", filter)));
+        filter.setLimit(1);
+        assertEquals(Arrays.asList(1), ids(index.search("java", filter)));
+    }
+
+    @Test
+    public void testFollowsEventChanges() {
+        EventSearchIndex index = new EventSearchIndex();
+        index.eventCreated(event(1, "Rust Meetup", "Room 1", "2026-05-01", 0));
+        index.eventCreated(event(2, "Rust Workshop", "Room 2", "2026-05-02", 0));
+        assertEquals(Arrays.asList(1, 2), ids(index.search("rust", filter())));
+
+        index.eventUpdated(event(1, "Go Meetup", "Room 1", "2026-05-01", 0));
+        assertEquals(Arrays.asList(2), ids(index.search("rust", filter())));
+        assertEquals(Arrays.asList(1), ids(index.search("go", filter())));
+
+        index.eventDeleted(2);
+        assertTrue(index.search("rust", filter()).isEmpty());
+        // The freed slot is reused without mixing up the old event's words
+        index.eventCreated(event(3, "Poetry Night", "Room 3", "2026-05-03", 0));
+        assertEquals(Arrays.asList(3), ids(index.search("room 3", filter())));
+        assertEquals(Arrays.asList(1, 3), ids(index.search("room", filter())));
+        assertEquals(2, index.size());
+    }
+}
@@ -0,0 +1,67 @@
+package eventreg2;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class EventSnapshotTest {
+
+    private final AtomicInteger encodes = new AtomicInteger();
+    private final EventSnapshot snapshots = new EventSnapshot(events -> {
+        encodes.incrementAndGet();
+        StringBuilder text = new StringBuilder();
+        for (Event event : events) text.append(event.getEventId()).append(':').append(event.getTitle()).append(';');
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    });
+
+    private static Event event(int id, String title) {
+        Event event = new Event(title, LocalDate.of(2026, 5, 1), "Room 1", 10, BigDecimal.ONE);
+        event.setEventId(id);
+        return event;
+    }
+
+    @Test
+    public void testETagIsStableUntilTheListChanges() {
+        List<Event> events = Arrays.asList(event(1, "Talk"), event(2, "Workshop"));
+        EventSnapshot.Snapshot first = snapshots.get(events);
+        assertSame(first, snapshots.get(events));
+        assertEquals(1, encodes.get());
+        assertTrue(first.getETag().matches("\"[0-9a-f]{32}\""));
+
+        // A reload with the same content is re-encoded but keeps its ETag
+        EventSnapshot.Snapshot reloaded = snapshots.get(new ArrayList<>(events));
+        assertEquals(2, encodes.get());
+        assertEquals(first.getETag(), reloaded.getETag());
+        assertTrue(reloaded.getVersion() > first.getVersion());
+
+        // A write hands out a new list with new content, and a new ETag
+        EventSnapshot.Snapshot written = snapshots.get(Arrays.asList(event(1, "Talk"), event(2, "Keynote")));
+        assertNotEquals(first.getETag(), written.getETag());
+        assertEquals("1:Talk;2:Keynote;", new String(written.getBytes(), StandardCharsets.UTF_8));
+        assertFalse(written.matches(first.getETag()));
+    }
+
+    @Test
+    public void testIfNoneMatch() {
+        EventSnapshot.Snapshot snapshot = snapshots.get(Arrays.asList(event(1, "Talk")));
+        String etag = snapshot.getETag();
+
+        assertTrue(snapshot.matches(etag));
+        assertTrue(snapshot.matches("W/" + etag));
+        assertTrue(snapshot.matches("\"stale\", " + etag));
+        assertTrue(snapshot.matches("\"stale\",W/" + etag + " ,\"other\""));
+        assertTrue(snapshot.matches("*"));
+
+        assertFalse(snapshot.matches(null));
+        assertFalse(snapshot.matches(""));
+        assertFalse(snapshot.matches("\"stale\", \"other\""));
+        assertFalse(snapshot.matches(etag.replace("\"", "")));
+    }
+}
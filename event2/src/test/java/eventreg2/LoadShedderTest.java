@@ -0,0 +1,33 @@
+package eventreg2;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class LoadShedderTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void testSlowSecondShedsOnlyWithEnoughSamples() {
+        Metrics.Histogram latency = new Metrics.Histogram();
+        LoadShedder shedder = new LoadShedder(null, latency, 0, 1000, 20);
+
+        // One slow request in a quiet second is not overload
+        latency.record(3 * SECOND);
+        shedder.sample();
+        assertEquals(1, shedder.getRecentSamples());
+        assertFalse(shedder.isOverloaded());
+
+        for (int i = 0; i < 30; i++) latency.record(2 * SECOND);
+        shedder.sample();
+        assertTrue(shedder.isOverloaded());
+
+        // Each sample only covers what was recorded since the last one
+        for (int i = 0; i < 30; i++) latency.record(TimeUnit.MILLISECONDS.toNanos(5));
+        shedder.sample();
+        assertEquals(30, shedder.getRecentSamples());
+        assertFalse(shedder.isOverloaded());
+    }
+}
@@ -0,0 +1,61 @@
+package eventreg2;
+
+import static org.junit.Assert.*;
+
+import java.sql.SQLException;
+import org.junit.Test;
+
+public class MetricsTest {
+
+    @Test
+    public void testBucketsStayWithinRelativeError() {
+        for (long value = 0; value < 1L << 40; value = value * 3 / 2 + 1) {
+            long reported = Metrics.Histogram.highestValueIn(Metrics.Histogram.bucketOf(value));
+            assertTrue(value + " reported as " + reported, reported >= value);
+            assertTrue(value + " reported as " + reported, reported - value <= value / 16);
+        }
+    }
+
+    @Test
+    public void testQuantiles() {
+        Metrics.Histogram histogram = new Metrics.Histogram();
+        for (int micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500_000, histogram.valueAt(0.5), 500_000 / 16.0);
+        assertEquals(990_000, histogram.valueAt(0.99), 990_000 / 16.0);
+        assertEquals(1000 * 1001 / 2 * 1000L, histogram.getSum());
+    }
+
+    @Test
+    public void testTimeCountsCallsAndErrors() throws Exception {
+        Metrics.Timer timer = Metrics.timer("eventreg_test_time", "method", "X.call");
+        assertEquals("ok", timer.time(() -> "ok"));
+        try {
+            timer.time(() -> { throw new SQLException("down"); });
+            fail("Exception swallowed");
+        } catch (SQLException e) {
+            assertEquals("down", e.getMessage());
+        }
+        assertEquals(2, timer.getHistogram().getCount());
+        assertEquals(1, timer.getErrorCount());
+        assertEquals(0, timer.getInFlight());
+    }
+
+    @Test
+    public void testRenderTimer() {
+        Metrics.Timer timer = Metrics.timer("eventreg_test", "route", "GET /x");
+        long start = timer.start();
+        assertEquals(1, timer.getInFlight());
+        timer.stop(start);
+        timer.error();
+
+        String text = Metrics.render();
+        assertTrue(text.contains("# TYPE eventreg_test_duration_seconds summary"));
+        assertTrue(text.contains("eventreg_test_duration_seconds_count{route=\"GET /x\"} 1"));
+        assertTrue(text.contains("eventreg_test_errors_total{route=\"GET /x\"} 1"));
+        assertTrue(text.contains("eventreg_test_in_flight{route=\"GET /x\"} 0"));
+        assertSame(timer, Metrics.timer("eventreg_test", "route", "GET /x"));
+    }
+}
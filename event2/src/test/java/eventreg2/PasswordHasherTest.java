@@ -0,0 +1,77 @@
+package eventreg2;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.Test;
+
+public class PasswordHasherTest {
+
+    private static PasswordHasher hasher(int iterations) {
+        return new PasswordHasher(iterations, 2, 16, 60_000, 100);
+    }
+
+    @Test
+    public void testHashAndVerify() throws Exception {
+        PasswordHasher hasher = hasher(1000);
+        String stored = hasher.hash("s3cret").get();
+
+        assertTrue(stored.startsWith("pbkdf2$sha256$1000$"));
+        assertNotEquals(stored, hasher.encode("s3cret")); // salted
+        assertTrue(hasher.verify("ann", "s3cret", stored).get().matches());
+        assertFalse(hasher.verify("ann", "wrong", stored).get().matches());
+        assertFalse(hasher.verify("ann", "s3cret", stored).get().needsRehash());
+    }
+
+    @Test
+    public void testLegacyPlaintextAndCostChangeNeedRehash() throws Exception {
+        PasswordHasher hasher = hasher(2000);
+
+        PasswordHasher.Verification legacy = hasher.verify("bob", "1234", "1234").get();
+        assertTrue(legacy.matches());
+        assertTrue(legacy.needsRehash());
+        assertFalse(hasher.verify("bob", "12345", "1234").get().matches());
+
+        String oldCost = hasher(1000).encode("1234");
+        PasswordHasher.Verification upgraded = hasher.verify("bob", "1234", oldCost).get();
+        assertTrue(upgraded.matches());
+        assertTrue(upgraded.needsRehash());
+    }
+
+    @Test
+    public void testRepeatLoginIsServedFromCache() throws Exception {
+        PasswordHasher hasher = hasher(1000);
+        String stored = hasher.encode("s3cret");
+
+        assertTrue(hasher.verify("ann", "s3cret", stored).get().matches());
+        assertTrue(hasher.verify("ann", "s3cret", stored).get().matches());
+        assertEquals(1, hasher.getCacheHitCount());
+
+        // A wrong password never matches a cached entry
+        assertFalse(hasher.verify("ann", "wrong", stored).get().matches());
+        assertEquals(1, hasher.getCacheHitCount());
+    }
+
+    @Test
+    public void testFullQueueFailsTheFuture() throws Exception {
+        // One thread busy with a slow hash and one queued: the next request is rejected
+        PasswordHasher hasher = new PasswordHasher(1_000_000, 1, 1, 60_000, 100);
+        hasher.hash("first");
+        hasher.hash("second");
+
+        CompletableFuture<String> hashed = hasher.hash("third");
+        CompletableFuture<PasswordHasher.Verification> verified = hasher.verify("ann", "s3cret", hasher(1000).encode("s3cret"));
+        for (CompletableFuture<?> future : Arrays.asList(hashed, verified)) {
+            assertTrue(future.isCompletedExceptionally());
+            try {
+                future.join();
+                fail("Queue was full");
+            } catch (CompletionException e) {
+                assertTrue(e.getCause() instanceof RejectedExecutionException);
+            }
+        }
+    }
+}
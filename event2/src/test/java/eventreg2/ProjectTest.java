@@ -48,4 +48,20 @@ public class ProjectTest {
         assertNotNull("Attendee list should not be null", event.getRegisteredAttendees());
         assertEquals(0, event.getRegisteredAttendees().size());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testEventQueryCursorRoundTrip() {
+        // Testing that the opaque keyset cursor decodes back to the last (date, id) of a page
+        Event last = new Event(42, "Meetup", LocalDate.of(2026, 3, 1), "Hall", 10, BigDecimal.ZERO);
+        EventQuery query = new EventQuery();
+        query.setCursor(EventQuery.cursorOf(last));
+
+        assertEquals(LocalDate.of(2026, 3, 1), query.getAfterDate());
+        assertEquals(42, query.getAfterId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEventQueryRejectsBadCursor() {
+        new EventQuery().setCursor("not-a-cursor");
+    }
+}
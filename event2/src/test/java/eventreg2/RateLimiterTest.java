@@ -0,0 +1,73 @@
+package eventreg2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void testBurstThenRefill() {
+        RateLimiter limiter = new RateLimiter(2, 3, 100);
+        long now = 0;
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("ip:1", now));
+        }
+        long wait = limiter.tryAcquire("ip:1", now);
+        assertEquals(SECOND / 2, wait);
+
+        // Other clients have buckets of their own
+        assertEquals(0, limiter.tryAcquire("ip:2", now));
+
+        assertEquals(0, limiter.tryAcquire("ip:1", now + wait));
+        assertTrue(limiter.tryAcquire("ip:1", now + wait) > 0);
+    }
+
+    @Test
+    public void testIdleClientsAreEvicted() {
+        RateLimiter limiter = new RateLimiter(10, 5, 100);
+        long now = System.nanoTime();
+        limiter.tryAcquire("ip:1", now);
+        limiter.tryAcquire("ip:2", now);
+        assertEquals(2, limiter.size());
+
+        // Ten seconds on, when the background sweep runs, both buckets are full again
+        limiter.tryAcquire("ip:3", now + 10 * SECOND);
+        limiter.sweep(now + 10 * SECOND);
+        assertEquals(1, limiter.size());
+    }
+
+    @Test
+    public void testClientsBeyondLimitShareOverflowBuckets() {
+        RateLimiter limiter = new RateLimiter(1, 2, 2);
+        long now = System.nanoTime();
+        limiter.tryAcquire("ip:1", now);
+        limiter.tryAcquire("ip:2", now);
+
+        // Three new clients hashed onto the same overflow bucket, and one onto another
+        List<String> sameBucket = new ArrayList<>();
+        String otherBucket = null;
+        for (int i = 3; sameBucket.size() < 3 || otherBucket == null; i++) {
+            String client = "ip:" + i;
+            if (sameBucket.isEmpty() || RateLimiter.overflowKey(client).equals(RateLimiter.overflowKey(sameBucket.get(0)))) {
+                if (sameBucket.size() < 3) sameBucket.add(client);
+            } else if (otherBucket == null) {
+                otherBucket = client;
+            }
+        }
+
+        assertEquals(0, limiter.tryAcquire(sameBucket.get(0), now));
+        assertEquals(0, limiter.tryAcquire(sameBucket.get(1), now));
+        assertTrue(limiter.tryAcquire(sameBucket.get(2), now) > 0);
+        // A noisy neighbour only affects its own overflow bucket
+        assertEquals(0, limiter.tryAcquire(otherBucket, now));
+        assertEquals(4, limiter.size());
+    }
+}
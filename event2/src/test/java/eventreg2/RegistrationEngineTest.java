@@ -0,0 +1,94 @@
+package eventreg2;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RegistrationEngineTest {
+
+    /** Stands in for the database: a guarded counter plus the registrations "table". */
+    private static class InMemoryRegistrationDAO extends RegistrationDAO {
+        final int capacity;
+        final AtomicInteger registeredCount = new AtomicInteger();
+        final Set<Long> rows = ConcurrentHashMap.newKeySet();
+
+        InMemoryRegistrationDAO(int capacity) {
+            this.capacity = capacity;
+        }
+
+        @Override
+        public boolean registerWithinCapacity(int userId, int eventId) throws SQLException {
+            synchronized (this) {
+                if (registeredCount.get() >= capacity) return false;
+                if (!rows.add(((long) userId << 32) | eventId)) {
+                    throw new SQLIntegrityConstraintViolationException("Duplicate entry", "23000", 1062);
+                }
+                registeredCount.incrementAndGet();
+                return true;
+            }
+        }
+
+        @Override
+        public SeatSnapshot loadSeats(int eventId) {
+            return eventId == 1 ? new SeatSnapshot(capacity, new ArrayList<>()) : null;
+        }
+    }
+
+    @Test
+    public void testNoOversellUnderContention() throws Exception {
+        int capacity = 100;
+        int users = 2000;
+        InMemoryRegistrationDAO dao = new InMemoryRegistrationDAO(capacity);
+        RegistrationEngine engine = new RegistrationEngine(dao);
+
+        Map<RegistrationEngine.Result, AtomicInteger> outcomes = new ConcurrentHashMap<>();
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Runnable> attempts = new ArrayList<>();
+        for (int user = 1; user <= users; user++) {
+            int userId = user;
+            // Every user tries twice to exercise duplicate rejection as well
+            for (int attempt = 0; attempt < 2; attempt++) {
+                attempts.add(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    RegistrationEngine.Result result = engine.register(userId, 1);
+                    outcomes.computeIfAbsent(result, r -> new AtomicInteger()).incrementAndGet();
+                });
+            }
+        }
+        attempts.forEach(pool::execute);
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(capacity, dao.registeredCount.get());
+        assertEquals(capacity, dao.rows.size());
+        assertEquals(capacity, outcomes.get(RegistrationEngine.Result.REGISTERED).get());
+        assertEquals(0, engine.availableSeats(1));
+    }
+
+    @Test
+    public void testDuplicateAndUnknownEvent() {
+        RegistrationEngine engine = new RegistrationEngine(new InMemoryRegistrationDAO(5));
+
+        assertEquals(RegistrationEngine.Result.REGISTERED, engine.register(7, 1));
+        assertEquals(RegistrationEngine.Result.ALREADY_REGISTERED, engine.register(7, 1));
+        assertEquals(RegistrationEngine.Result.EVENT_NOT_FOUND, engine.register(7, 2));
+    }
+}
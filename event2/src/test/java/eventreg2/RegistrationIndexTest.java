@@ -0,0 +1,95 @@
+package eventreg2;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import org.junit.Test;
+
+public class RegistrationIndexTest {
+
+    @Test
+    public void testBothDirectionsStayInSync() {
+        RegistrationIndex index = new RegistrationIndex();
+        assertTrue(index.add(7, 1));
+        assertTrue(index.add(3, 1));
+        assertTrue(index.add(3, 2));
+        assertFalse(index.add(7, 1));
+
+        assertEquals(2, index.attendeeCount(1));
+        assertArrayEquals(new int[] {3, 7}, index.attendees(1, 0, 10));
+        assertArrayEquals(new int[] {1, 2}, index.eventsOf(3));
+        assertTrue(index.contains(7, 1));
+
+        assertTrue(index.remove(3, 1));
+        assertFalse(index.remove(3, 1));
+        assertArrayEquals(new int[] {2}, index.eventsOf(3));
+        assertArrayEquals(new int[] {7}, index.attendees(1, 0, 10));
+
+        index.removeEvent(2);
+        assertEquals(0, index.eventsOf(3).length);
+        assertEquals(0, index.attendeeCount(2));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void testAttendeePagesWalkEveryUserOnce() {
+        RegistrationIndex index = new RegistrationIndex();
+        // Added out of order, as concurrent registrations would be
+        for (int i = 0; i < 100_000; i++) {
+            index.add((i * 7919) % 100_000 + 1, 42);
+        }
+        assertEquals(100_000, index.attendeeCount(42));
+
+        int after = 0;
+        int seen = 0;
+        int[] page;
+        while ((page = index.attendees(42, after, 1000)).length > 0) {
+            for (int userId : page) {
+                assertEquals(after + 1, userId);
+                after = userId;
+                seen++;
+            }
+        }
+        assertEquals(100_000, seen);
+        assertEquals(0, index.attendees(42, Integer.MAX_VALUE, 10).length);
+    }
+
+    /** Runs against the in-memory H2 database the build points the tests at. */
+    @Test
+    public void testLoadsRegistrationsWrittenByTheEngine() throws Exception {
+        EventDAOTest.clearTables();
+        Event event = new Event("Talk", LocalDate.of(2026, 5, 1), "Room 1", 10, BigDecimal.ZERO);
+        assertTrue(new EventDAO().create(event));
+        int eventId = event.getEventId();
+        int[] userIds = new int[3];
+        try (Connection connection = DatabaseConnection.getConnection();
+             Statement statement = connection.createStatement()) {
+            for (int i = 0; i < userIds.length; i++) {
+                statement.executeUpdate("INSERT INTO users (username, password) VALUES ('u" + i + "', 'x')",
+                    Statement.RETURN_GENERATED_KEYS);
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    keys.next();
+                    userIds[i] = keys.getInt(1);
+                }
+            }
+        }
+
+        RegistrationIndex live = new RegistrationIndex();
+        RegistrationEngine engine = new RegistrationEngine(new RegistrationDAO(), null, live);
+        for (int userId : userIds) {
+            assertEquals(RegistrationEngine.Result.REGISTERED, engine.register(userId, eventId));
+        }
+        assertEquals(RegistrationEngine.Result.ALREADY_REGISTERED, engine.register(userIds[0], eventId));
+        assertTrue(engine.cancel(userIds[1], eventId));
+
+        RegistrationIndex loaded = new RegistrationIndex();
+        assertEquals(2, loaded.load(new RegistrationDAO()::forEachRegistration));
+        assertArrayEquals(live.attendees(eventId, 0, 10), loaded.attendees(eventId, 0, 10));
+        assertArrayEquals(new int[] {eventId}, loaded.eventsOf(userIds[2]));
+        assertEquals(0, loaded.eventsOf(userIds[1]).length);
+    }
+}
@@ -0,0 +1,85 @@
+package eventreg2;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RegistrationWriterTest {
+
+    /** Registrations "table" that counts how many transactions were used. */
+    private static class RecordingRegistrationDAO extends RegistrationDAO {
+        final Set<Long> rows = ConcurrentHashMap.newKeySet();
+        final AtomicInteger groups = new AtomicInteger();
+        final AtomicInteger singles = new AtomicInteger();
+
+        @Override
+        public synchronized boolean registerGroup(Map<Integer, List<Integer>> usersByEvent) throws SQLException {
+            groups.incrementAndGet();
+            List<Long> keys = new ArrayList<>();
+            for (Map.Entry<Integer, List<Integer>> entry : usersByEvent.entrySet()) {
+                for (int userId : entry.getValue()) {
+                    long key = ((long) userId << 32) | entry.getKey();
+                    if (rows.contains(key) || keys.contains(key)) {
+                        throw new SQLIntegrityConstraintViolationException("Duplicate entry", "23000", 1062);
+                    }
+                    keys.add(key);
+                }
+            }
+            rows.addAll(keys);
+            return true;
+        }
+
+        @Override
+        public synchronized boolean registerWithinCapacity(int userId, int eventId) throws SQLException {
+            singles.incrementAndGet();
+            if (!rows.add(((long) userId << 32) | eventId)) {
+                throw new SQLIntegrityConstraintViolationException("Duplicate entry", "23000", 1062);
+            }
+            return true;
+        }
+    }
+
+    @Test
+    public void testRowsAreCommittedInGroups() throws Exception {
+        RecordingRegistrationDAO dao = new RecordingRegistrationDAO();
+        RegistrationWriter writer = new RegistrationWriter(dao, 10_000, 500, 5, 1000);
+
+        List<CompletableFuture<RegistrationWriter.Outcome>> results = new ArrayList<>();
+        for (int user = 1; user <= 2000; user++) {
+            results.add(writer.submit(user, 1 + user % 3));
+        }
+        for (CompletableFuture<RegistrationWriter.Outcome> result : results) {
+            assertEquals(RegistrationWriter.Outcome.REGISTERED, result.get());
+        }
+        writer.shutdown();
+
+        assertEquals(2000, dao.rows.size());
+        assertTrue("expected far fewer transactions than rows, got " + dao.groups.get(), dao.groups.get() < 100);
+        assertEquals(0, dao.singles.get());
+    }
+
+    @Test
+    public void testDuplicateInGroupFallsBackToSingleRows() throws Exception {
+        RecordingRegistrationDAO dao = new RecordingRegistrationDAO();
+        dao.registerWithinCapacity(7, 1);
+        RegistrationWriter writer = new RegistrationWriter(dao, 100, 500, 50, 1000);
+
+        CompletableFuture<RegistrationWriter.Outcome> first = writer.submit(6, 1);
+        CompletableFuture<RegistrationWriter.Outcome> duplicate = writer.submit(7, 1);
+        CompletableFuture<RegistrationWriter.Outcome> last = writer.submit(8, 1);
+
+        assertEquals(RegistrationWriter.Outcome.REGISTERED, first.get());
+        assertEquals(RegistrationWriter.Outcome.DUPLICATE, duplicate.get());
+        assertEquals(RegistrationWriter.Outcome.REGISTERED, last.get());
+        writer.shutdown();
+    }
+}
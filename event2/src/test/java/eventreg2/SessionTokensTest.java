@@ -0,0 +1,45 @@
+package eventreg2;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class SessionTokensTest {
+
+    @Test
+    public void testIssuedTokenValidates() {
+        SessionTokens tokens = new SessionTokens(null, 60_000);
+        String token = tokens.issue("ann", 7);
+
+        SessionTokens.Session session = tokens.validate(token);
+        assertNotNull(session);
+        assertEquals("ann", session.getUsername());
+        assertEquals(7, session.getUserId());
+        assertTrue(session.getExpiresAt() > System.currentTimeMillis());
+    }
+
+    @Test
+    public void testForgedExpiredAndMalformedTokensAreRejected() {
+        SessionTokens tokens = new SessionTokens(null, 60_000);
+        String token = tokens.issue("ann", 7);
+        String otherKey = new SessionTokens(null, 60_000).issue("ann", 7);
+
+        assertNull(tokens.validate(otherKey));
+        assertNull(tokens.validate(token.substring(0, token.length() - 2) + "AA"));
+        assertNull(tokens.validate("not-a-token"));
+        assertNull(tokens.validate(null));
+        assertNull(new SessionTokens(null, -1).validate(new SessionTokens(null, -1).issue("ann", 7)));
+    }
+
+    @Test
+    public void testRevokedTokenIsRejected() {
+        SessionTokens tokens = new SessionTokens(null, 60_000);
+        String token = tokens.issue("ann", 7);
+        String other = tokens.issue("ann", 7);
+
+        tokens.revoke(tokens.validate(token));
+
+        assertNull(tokens.validate(token));
+        assertNotNull(tokens.validate(other));
+        assertEquals(1, tokens.getRevokedCount());
+    }
+}
@@ -0,0 +1,23 @@
+package eventreg2;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import org.junit.Test;
+
+/** Runs against the in-memory H2 database the build points the tests at. */
+public class StartupWarmupTest {
+
+    @Test
+    public void testPreparesEveryStatementOnEachConnection() throws Exception {
+        int connections = Math.min(3, DatabaseConnection.getPool().getMaxSize());
+        assertEquals(connections, StartupWarmup.prepareStatements(connections));
+        // Every connection went back to the pool
+        assertEquals(0, DatabaseConnection.getPool().getActiveCount());
+    }
+
+    @Test
+    public void testSerializationWarmsUpWithoutEvents() {
+        StartupWarmup.serialization(EventAPI.GSON, new ArrayList<>(), 2);
+    }
+}
@@ -0,0 +1,92 @@
+package eventreg2;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Runs against the in-memory H2 database the build points the tests at. */
+public class UserDAOTest {
+
+    private UserCache cache;
+    private UserDAO userDAO;
+
+    @Before
+    public void setUp() throws Exception {
+        EventDAOTest.clearTables();
+        cache = new UserCache(60_000, 100, 1000);
+        userDAO = new UserDAO(cache);
+    }
+
+    private static User user(String username, String password) {
+        User user = new User("Name", null);
+        user.setUsername(username);
+        user.setPassword(password);
+        return user;
+    }
+
+    @Test
+    public void testUnknownUsernamesAreRejectedWithoutQuery() throws Exception {
+        userDAO.saveUser(user("ann", "hash-1"));
+        cache.rebuild(userDAO::forEachUsername);
+
+        assertNull(userDAO.findByUsername("mallory"));
+        assertEquals(1, cache.getFilteredCount());
+
+        User ann = userDAO.findByUsername("ann");
+        assertEquals("hash-1", ann.getPassword());
+        assertSame(ann, userDAO.findByUsername("ann"));
+        assertEquals(1, cache.getHitCount());
+
+        // Saved after the filter was built, and found straight away
+        userDAO.saveUser(user("bob", "hash-2"));
+        assertEquals("hash-2", userDAO.findByUsername("bob").getPassword());
+    }
+
+    @Test
+    public void testPasswordChangeInvalidatesCachedUser() throws Exception {
+        userDAO.saveUser(user("ann", "hash-1"));
+        assertEquals("hash-1", userDAO.findByUsername("ann").getPassword());
+
+        assertTrue(userDAO.updatePassword("ann", "hash-2"));
+        assertEquals("hash-2", userDAO.findByUsername("ann").getPassword());
+    }
+
+    @Test
+    public void testNamesMatchTheWayTheColumnCompares() throws Exception {
+        userDAO.saveUser(user("alice", "hash-1"));
+        cache.rebuild(userDAO::forEachUsername);
+
+        // MySQL's default collation finds "alice" for these, so the filter must let them through
+        for (String name : new String[] {"Alice", "ALICE ", "Alicé"}) {
+            assertTrue(name, cache.mightExist(name));
+        }
+        assertEquals(0, cache.getFilteredCount());
+
+        User alice = userDAO.findByUsername("alice");
+        assertSame(alice, cache.get("Alice"));
+        // A change made under another spelling still drops the cached entry
+        cache.invalidate("ALICE");
+        assertNull(cache.get("alice"));
+    }
+
+    @Test
+    public void testFilterHasNoFalseNegatives() {
+        UsernameFilter filter = new UsernameFilter(10_000);
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            names.add("user" + i);
+            filter.add("user" + i);
+        }
+        for (String name : names) {
+            assertTrue(filter.mightContain(name));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("other" + i)) falsePositives++;
+        }
+        assertTrue("false positives: " + falsePositives, falsePositives < 300);
+    }
+}
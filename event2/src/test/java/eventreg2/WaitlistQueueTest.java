@@ -0,0 +1,50 @@
+package eventreg2;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class WaitlistQueueTest {
+
+    @Test
+    public void testFifoPositions() {
+        WaitlistQueue queue = new WaitlistQueue();
+        assertEquals(1, queue.add(10));
+        assertEquals(2, queue.add(20));
+        assertEquals(3, queue.add(30));
+        assertEquals(2, queue.add(20)); // joining twice keeps the original place
+
+        queue.remove(10);
+        assertEquals(1, queue.position(20));
+        assertEquals(2, queue.position(30));
+        assertEquals(-1, queue.position(10));
+        assertEquals(List.of(20, 30), queue.peek(5));
+    }
+
+    @Test
+    public void testPositionsMatchNaiveListAcrossGrowth() {
+        WaitlistQueue queue = new WaitlistQueue();
+        List<Integer> expected = new ArrayList<>();
+        Random random = new Random(42);
+
+        for (int user = 1; user <= 5000; user++) {
+            queue.add(user);
+            expected.add(user);
+            // Promote from the front or drop someone from the middle now and then
+            if (random.nextInt(3) == 0) {
+                int victim = random.nextBoolean() ? expected.get(0) : expected.get(random.nextInt(expected.size()));
+                queue.remove(victim);
+                expected.remove(Integer.valueOf(victim));
+            }
+        }
+
+        assertEquals(expected.size(), queue.size());
+        for (int i = 0; i < expected.size(); i += 97) {
+            assertEquals(i + 1, queue.position(expected.get(i)));
+        }
+        assertEquals(expected.subList(0, 10), queue.peek(10));
+    }
+}
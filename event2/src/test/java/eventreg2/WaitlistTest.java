@@ -0,0 +1,78 @@
+package eventreg2;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Arrays;
+import org.junit.Test;
+
+/** Runs against the in-memory H2 database the build points the tests at. */
+public class WaitlistTest {
+
+    private static int createUser(Statement statement, String username) throws Exception {
+        statement.executeUpdate("INSERT INTO users (username, password) VALUES ('" + username + "', 'x')",
+            Statement.RETURN_GENERATED_KEYS);
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+            keys.next();
+            return keys.getInt(1);
+        }
+    }
+
+    private static int count(String sql) throws Exception {
+        try (Connection connection = DatabaseConnection.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    @Test
+    public void testPromotionDropsUsersWhoAreAlreadyRegistered() throws Exception {
+        EventDAOTest.clearTables();
+        Event event = new Event("Talk", LocalDate.of(2026, 5, 1), "Room 1", 2, BigDecimal.ZERO);
+        assertTrue(new EventDAO().create(event));
+        int eventId = event.getEventId();
+        int ann;
+        int bob;
+        int cy;
+        try (Connection connection = DatabaseConnection.getConnection();
+             Statement statement = connection.createStatement()) {
+            ann = createUser(statement, "ann");
+            bob = createUser(statement, "bob");
+            cy = createUser(statement, "cy");
+        }
+
+        RegistrationDAO dao = new RegistrationDAO();
+        RegistrationEngine engine = new RegistrationEngine(dao);
+        Waitlist waitlist = new Waitlist(dao, engine);
+        assertEquals(RegistrationEngine.Result.REGISTERED, engine.register(ann, eventId));
+        assertEquals(RegistrationEngine.Result.REGISTERED, engine.register(bob, eventId));
+
+        // What two racing requests can leave behind: ann holds a seat and is also first in line
+        dao.joinWaitlist(ann, eventId);
+        dao.joinWaitlist(cy, eventId);
+        assertEquals(1, waitlist.position(ann, eventId));
+        assertEquals(2, waitlist.size(eventId));
+
+        assertTrue(engine.cancel(bob, eventId));
+        waitlist.schedulePromotion(eventId);
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (waitlist.hasWaiting(eventId) && System.currentTimeMillis() < deadline) Thread.sleep(20);
+
+        assertFalse(waitlist.hasWaiting(eventId));
+        assertTrue(engine.isRegistered(cy, eventId));
+        assertTrue(engine.isRegistered(ann, eventId));
+        assertEquals(0, engine.availableSeats(eventId));
+        assertEquals(0, count("SELECT COUNT(*) FROM waitlist"));
+        assertEquals(2, count("SELECT registered_count FROM events WHERE event_id = " + eventId));
+        assertEquals(Waitlist.ALREADY_REGISTERED, waitlist.join(ann, eventId));
+
+        // Straight to the DAO: nobody left to promote is not a failure
+        assertEquals(Arrays.asList(), dao.promote(eventId, Arrays.asList(ann, bob)));
+    }
+}